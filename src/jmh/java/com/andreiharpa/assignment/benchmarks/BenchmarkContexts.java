@@ -0,0 +1,89 @@
+package com.andreiharpa.assignment.benchmarks;
+
+import com.andreiharpa.assignment.ProductOrdersApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application for benchmarks, without the web layer unless a benchmark drives it over HTTP
+ *
+ * @author Andrei Harpa
+ *
+ */
+final class BenchmarkContexts {
+    private BenchmarkContexts() {
+    }
+
+    /**
+     * Starts the application against a fresh in-memory database
+     *
+     * @param properties additional properties, in "key=value" form
+     * @return the started {@link ConfigurableApplicationContext}
+     */
+    static ConfigurableApplicationContext start(String... properties) {
+        return start(WebApplicationType.NONE, properties);
+    }
+
+    /**
+     * Starts the application with its embedded server on a random port against a fresh in-memory database
+     *
+     * @param properties additional properties, in "key=value" form
+     * @return the started {@link ConfigurableApplicationContext}, the port is in its local.server.port property
+     */
+    static ConfigurableApplicationContext startWeb(String... properties) {
+        List<String> allProperties = new ArrayList<>(Arrays.asList("server.port=0", "access-log.enabled=false"));
+        allProperties.addAll(Arrays.asList(properties));
+        return start(WebApplicationType.SERVLET, allProperties.toArray(new String[0]));
+    }
+
+    /**
+     * Starts the application with the "reactive" profile, its embedded server on a random port
+     * against a fresh in-memory database
+     *
+     * @param properties additional properties, in "key=value" form
+     * @return the started {@link ConfigurableApplicationContext}, the port is in its local.server.port property
+     */
+    static ConfigurableApplicationContext startReactiveWeb(String... properties) {
+        List<String> allProperties = new ArrayList<>(Arrays.asList("server.port=0", "spring.profiles.active=reactive"));
+        allProperties.addAll(Arrays.asList(properties));
+        return start(WebApplicationType.REACTIVE, allProperties.toArray(new String[0]));
+    }
+
+    /**
+     * Starts the application against the file-backed database at the path, with the "file" profile
+     *
+     * @param path the database path, without the .mv.db extension
+     * @param properties additional properties, in "key=value" form
+     * @return the started {@link ConfigurableApplicationContext}
+     */
+    static ConfigurableApplicationContext startFileStorage(String path, String... properties) {
+        return run(WebApplicationType.NONE,
+                Arrays.asList("spring.profiles.active=file", "storage.file.path=" + path), properties);
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        String database = "benchmark-" + UUID.randomUUID();
+        return run(webApplicationType, Arrays.asList(
+                "spring.datasource.url=jdbc:h2:mem:" + database,
+                "reactive.r2dbc.url=r2dbc:h2:mem:///" + database), properties);
+    }
+
+    /**
+     * The properties are passed as command line arguments, which take precedence over application.properties
+     */
+    private static ConfigurableApplicationContext run(WebApplicationType webApplicationType,
+                                                      List<String> databaseProperties, String... properties) {
+        List<String> allProperties = new ArrayList<>(databaseProperties);
+        allProperties.addAll(Arrays.asList("spring.jpa.show-sql=false", "logging.level.root=WARN"));
+        allProperties.addAll(Arrays.asList(properties));
+        return new SpringApplicationBuilder(ProductOrdersApplication.class)
+                .web(webApplicationType)
+                .run(allProperties.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+}
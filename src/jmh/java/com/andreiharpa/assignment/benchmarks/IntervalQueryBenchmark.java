@@ -0,0 +1,105 @@
+package com.andreiharpa.assignment.benchmarks;
+
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderPageDto;
+import com.andreiharpa.assignment.services.OrderService;
+import com.andreiharpa.assignment.utils.Money;
+import com.andreiharpa.assignment.utils.UuidGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of an interval query over a large order snapshots table,
+ * with and without the (timestamp, id) index
+ *
+ * @author Andrei Harpa
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IntervalQueryBenchmark {
+    private static final int SEED_BATCH_SIZE = 10_000;
+    private static final long SEED_PERIOD_MILLIS = TimeUnit.DAYS.toMillis(365);
+    private static final long INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    @Param({"5000000"})
+    public int existingOrders;
+
+    private ConfigurableApplicationContext context;
+
+    private OrderService orderService;
+
+    private long seedStart;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        context = BenchmarkContexts.start();
+        orderService = context.getBean(OrderService.class);
+        UuidGenerator uuidGenerator = context.getBean(UuidGenerator.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+
+        if (!indexed) {
+            jdbcTemplate.execute("drop index idx_order_snapshots_timestamp_id");
+        }
+
+        seedStart = System.currentTimeMillis() - SEED_PERIOD_MILLIS;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int seeded = 0; seeded < existingOrders; seeded += SEED_BATCH_SIZE) {
+            List<Object[]> rows = new ArrayList<>(SEED_BATCH_SIZE);
+            for (int i = 0; i < SEED_BATCH_SIZE; i++) {
+                OrderDto orderDto = OrderDto.builder()
+                        .id(uuidGenerator.generate())
+                        .customerEmail("benchmark@andreiharpa.dev")
+                        .timestamp(new Timestamp(seedStart + random.nextLong(SEED_PERIOD_MILLIS)))
+                        .totalPrice(Money.ofMinorUnits(100))
+                        .products(Collections.emptyList())
+                        .build();
+                rows.add(new Object[]{orderDto.getId(), orderDto.getTimestamp(), objectMapper.writeValueAsString(orderDto)});
+            }
+            jdbcTemplate.batchUpdate("insert into order_snapshots (id, timestamp, payload) values (?, ?, ?)", rows);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OrderPageDto getPageInTimeInterval() {
+        long start = seedStart + ThreadLocalRandom.current().nextLong(SEED_PERIOD_MILLIS - INTERVAL_MILLIS);
+        return orderService.getPageInTimeInterval(new Date(start), new Date(start + INTERVAL_MILLIS), null, PAGE_SIZE);
+    }
+}
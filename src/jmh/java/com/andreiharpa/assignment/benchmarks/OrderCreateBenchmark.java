@@ -0,0 +1,84 @@
+package com.andreiharpa.assignment.benchmarks;
+
+import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.CreateProductDto;
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.services.OrderService;
+import com.andreiharpa.assignment.services.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link OrderService#create} with and without the product cache
+ *
+ * @author Andrei Harpa
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OrderCreateBenchmark {
+    private static final int PRODUCT_COUNT = 1000;
+
+    @Param({"true", "false"})
+    public boolean productCacheEnabled;
+
+    @Param({"5", "50"})
+    public int productsPerOrder;
+
+    private ConfigurableApplicationContext context;
+
+    private OrderService orderService;
+
+    private List<UUID> productIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start("products.cache.enabled=" + productCacheEnabled);
+        orderService = context.getBean(OrderService.class);
+        ProductService productService = context.getBean(ProductService.class);
+
+        productIds = new ArrayList<>(PRODUCT_COUNT);
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            productIds.add(productService.create(
+                    new CreateProductDto("product-" + i, BigDecimal.valueOf(i + 1, 2))).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OrderDto create() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<UUID> orderProductIds = new ArrayList<>(productsPerOrder);
+        for (int i = 0; i < productsPerOrder; i++) {
+            orderProductIds.add(productIds.get(random.nextInt(PRODUCT_COUNT)));
+        }
+        return orderService.create(new CreateOrderDto("benchmark@andreiharpa.dev", orderProductIds));
+    }
+}
@@ -0,0 +1,136 @@
+package com.andreiharpa.assignment.benchmarks;
+
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderPageDto;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.services.OrderService;
+import com.andreiharpa.assignment.utils.Money;
+import com.andreiharpa.assignment.utils.UuidGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the order read paths of {@link OrderService} end to end, against a database
+ * seeded with orders spread over the last 30 days
+ *
+ * @author Andrei Harpa
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OrderReadBenchmark {
+    private static final int PRODUCT_COUNT = 1000;
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final long SEED_PERIOD_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final long INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    @Param({"100000"})
+    public int existingOrders;
+
+    @Param({"5"})
+    public int productsPerOrder;
+
+    @Param({"100"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+
+    private OrderService orderService;
+
+    private List<UUID> orderIds;
+
+    private long seedStart;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        context = BenchmarkContexts.start();
+        orderService = context.getBean(OrderService.class);
+        UuidGenerator uuidGenerator = context.getBean(UuidGenerator.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+
+        List<Object[]> products = new ArrayList<>(PRODUCT_COUNT);
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            products.add(new Object[]{uuidGenerator.generate(), "product-" + i, BigDecimal.valueOf(i + 1, 2)});
+        }
+        jdbcTemplate.batchUpdate("insert into products (id, name, price) values (?, ?, ?)", products);
+
+        seedStart = System.currentTimeMillis() - SEED_PERIOD_MILLIS;
+        orderIds = new ArrayList<>(existingOrders);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long orderItemId = 0;
+        for (int seeded = 0; seeded < existingOrders; seeded += SEED_BATCH_SIZE) {
+            List<Object[]> orders = new ArrayList<>(SEED_BATCH_SIZE);
+            List<Object[]> orderItems = new ArrayList<>(SEED_BATCH_SIZE * productsPerOrder);
+            List<Object[]> orderSnapshots = new ArrayList<>(SEED_BATCH_SIZE);
+            for (int i = 0; i < SEED_BATCH_SIZE; i++) {
+                UUID orderId = uuidGenerator.generate();
+                orderIds.add(orderId);
+                BigDecimal totalPrice = BigDecimal.ZERO;
+                List<ProductDto> productDtos = new ArrayList<>(productsPerOrder);
+                for (int j = 0; j < productsPerOrder; j++) {
+                    Object[] product = products.get(random.nextInt(PRODUCT_COUNT));
+                    BigDecimal price = (BigDecimal) product[2];
+                    totalPrice = totalPrice.add(price);
+                    orderItems.add(new Object[]{++orderItemId, orderId, price, product[0]});
+                    productDtos.add(new ProductDto((UUID) product[0], (String) product[1], Money.of(price)));
+                }
+                Timestamp timestamp = new Timestamp(seedStart + random.nextLong(SEED_PERIOD_MILLIS));
+                orders.add(new Object[]{orderId, "benchmark@andreiharpa.dev", timestamp, totalPrice});
+                OrderDto orderDto = new OrderDto(orderId, "benchmark@andreiharpa.dev", timestamp,
+                        Money.of(totalPrice), productDtos);
+                orderSnapshots.add(new Object[]{orderId, timestamp, objectMapper.writeValueAsString(orderDto)});
+            }
+            jdbcTemplate.batchUpdate(
+                    "insert into orders (id, customer_email, timestamp, total_price) values (?, ?, ?, ?)", orders);
+            jdbcTemplate.batchUpdate(
+                    "insert into order_items (id, order_id, price, product_id) values (?, ?, ?, ?)", orderItems);
+            jdbcTemplate.batchUpdate(
+                    "insert into order_snapshots (id, timestamp, payload) values (?, ?, ?)", orderSnapshots);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OrderDto getById() {
+        return orderService.getById(orderIds.get(ThreadLocalRandom.current().nextInt(orderIds.size())));
+    }
+
+    @Benchmark
+    public OrderPageDto getPageInTimeInterval() {
+        long start = seedStart + ThreadLocalRandom.current().nextLong(SEED_PERIOD_MILLIS - INTERVAL_MILLIS);
+        return orderService.getPageInTimeInterval(new Date(start), new Date(start + INTERVAL_MILLIS), null, pageSize);
+    }
+}
@@ -0,0 +1,87 @@
+package com.andreiharpa.assignment.benchmarks;
+
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.utils.Money;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Jackson serialization of {@link OrderDto}, as done for the order endpoints,
+ * and its deserialization, as done when reading order snapshots
+ *
+ * @author Andrei Harpa
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderSerializationBenchmark {
+    @Param({"1", "10", "100"})
+    public int productsPerOrder;
+
+    private ObjectWriter orderWriter;
+
+    private ObjectReader orderReader;
+
+    private OrderDto orderDto;
+
+    private byte[] orderJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        orderWriter = objectMapper.writerFor(OrderDto.class);
+        orderReader = objectMapper.readerFor(OrderDto.class);
+
+        List<ProductDto> products = new ArrayList<>(productsPerOrder);
+        for (int i = 0; i < productsPerOrder; i++) {
+            products.add(new ProductDto(UUID.randomUUID(), "product-" + i, Money.ofMinorUnits(i + 1)));
+        }
+        orderDto = OrderDto.builder()
+                .id(UUID.randomUUID())
+                .customerEmail("benchmark@andreiharpa.dev")
+                .timestamp(new Date())
+                .totalPrice(Money.ofMinorUnits(1000))
+                .products(products)
+                .build();
+        orderJson = orderWriter.writeValueAsBytes(orderDto);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return orderWriter.writeValueAsBytes(orderDto);
+    }
+
+    /**
+     * Parses an order the way order snapshots are read by the interval queries
+     */
+    @Benchmark
+    public OrderDto deserialize() throws IOException {
+        return orderReader.readValue(orderJson);
+    }
+}
@@ -0,0 +1,79 @@
+package com.andreiharpa.assignment.benchmarks;
+
+import com.andreiharpa.assignment.dtos.CreateProductDto;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.services.ProductService;
+import com.andreiharpa.assignment.utils.UuidGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures product inserts into a pre-filled products table for each {@link UuidGenerator} mode,
+ * showing the cost of scattering random keys across the primary key index
+ *
+ * @author Andrei Harpa
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProductInsertBenchmark {
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    @Param({"random", "time-ordered"})
+    public String uuidGeneratorMode;
+
+    @Param({"1000000"})
+    public int existingProducts;
+
+    private ConfigurableApplicationContext context;
+
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start("uuid.generator.mode=" + uuidGeneratorMode);
+        productService = context.getBean(ProductService.class);
+        UuidGenerator uuidGenerator = context.getBean(UuidGenerator.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        for (int seeded = 0; seeded < existingProducts; seeded += SEED_BATCH_SIZE) {
+            List<Object[]> rows = new ArrayList<>(SEED_BATCH_SIZE);
+            for (int i = 0; i < SEED_BATCH_SIZE; i++) {
+                rows.add(new Object[]{uuidGenerator.generate(), "seed-product", BigDecimal.ONE});
+            }
+            jdbcTemplate.batchUpdate("insert into products (id, name, price) values (?, ?, ?)", rows);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductDto create() {
+        return productService.create(new CreateProductDto("benchmark-product", BigDecimal.TEN));
+    }
+}
@@ -0,0 +1,124 @@
+package com.andreiharpa.assignment.benchmarks;
+
+import com.andreiharpa.assignment.utils.UuidGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the request throughput of the web.execution.mode values and of the reactive stack under high
+ * concurrency, with {@value #CONCURRENT_CLIENTS} clients reading orders over HTTP from the embedded server
+ *
+ * The reactive mode starts the application with the "reactive" profile instead of setting web.execution.mode.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(RequestExecutionBenchmark.CONCURRENT_CLIENTS)
+@Fork(1)
+public class RequestExecutionBenchmark {
+    static final int CONCURRENT_CLIENTS = 256;
+    private static final int PRODUCT_COUNT = 1000;
+
+    @Param({"platform", "async", "reactive"})
+    public String mode;
+
+    @Param({"10000"})
+    public int existingOrders;
+
+    @Param({"5"})
+    public int productsPerOrder;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient httpClient;
+
+    private List<URI> orderUris;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = "reactive".equals(mode)
+                ? BenchmarkContexts.startReactiveWeb()
+                : BenchmarkContexts.startWeb("web.execution.mode=" + mode);
+        UuidGenerator uuidGenerator = context.getBean(UuidGenerator.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Object[]> products = new ArrayList<>(PRODUCT_COUNT);
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            products.add(new Object[]{uuidGenerator.generate(), "product-" + i, BigDecimal.valueOf(i + 1, 2)});
+        }
+        jdbcTemplate.batchUpdate("insert into products (id, name, price) values (?, ?, ?)", products);
+
+        String baseUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/v1/orders/";
+        orderUris = new ArrayList<>(existingOrders);
+        List<Object[]> orders = new ArrayList<>(existingOrders);
+        List<Object[]> orderItems = new ArrayList<>(existingOrders * productsPerOrder);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long orderItemId = 0;
+        for (int i = 0; i < existingOrders; i++) {
+            UUID orderId = uuidGenerator.generate();
+            orderUris.add(URI.create(baseUri + orderId));
+            BigDecimal totalPrice = BigDecimal.ZERO;
+            for (int j = 0; j < productsPerOrder; j++) {
+                Object[] product = products.get(random.nextInt(PRODUCT_COUNT));
+                totalPrice = totalPrice.add((BigDecimal) product[2]);
+                orderItems.add(new Object[]{++orderItemId, orderId, product[2], product[0]});
+            }
+            orders.add(new Object[]{orderId, "benchmark@andreiharpa.dev",
+                    new Timestamp(System.currentTimeMillis()), totalPrice});
+        }
+        jdbcTemplate.batchUpdate(
+                "insert into orders (id, customer_email, timestamp, total_price) values (?, ?, ?, ?)", orders);
+        jdbcTemplate.batchUpdate(
+                "insert into order_items (id, order_id, price, product_id) values (?, ?, ?, ?)", orderItems);
+
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String getOrderById() throws IOException, InterruptedException {
+        URI orderUri = orderUris.get(ThreadLocalRandom.current().nextInt(orderUris.size()));
+        HttpRequest request = HttpRequest.newBuilder(orderUri).GET().build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,138 @@
+package com.andreiharpa.assignment.benchmarks;
+
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.utils.Money;
+import com.andreiharpa.assignment.utils.UuidGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the application takes to start, and to close, against a file-backed database
+ * seeded with orders spread over the last year, with and without the startup jobs (snapshot backfill
+ * and rollup rebuild)
+ *
+ * @author Andrei Harpa
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+    private static final int PRODUCT_COUNT = 1000;
+    private static final int SEED_BATCH_SIZE = 10_000;
+    private static final long SEED_PERIOD_MILLIS = TimeUnit.DAYS.toMillis(365);
+
+    @Param({"1000000"})
+    public int existingOrders;
+
+    @Param({"true", "false"})
+    public boolean startupJobs;
+
+    private Path directory;
+
+    private String databasePath;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("startup-benchmark");
+        databasePath = directory.resolve("orders").toString();
+        ConfigurableApplicationContext seedContext = BenchmarkContexts.startFileStorage(databasePath,
+                "orders.snapshots.backfill-on-startup=false", "orders.rollups.rebuild-on-startup=false");
+        try {
+            seed(seedContext);
+        } finally {
+            seedContext.close();
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void close() {
+        context.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext start() {
+        context = BenchmarkContexts.startFileStorage(databasePath,
+                "orders.snapshots.backfill-on-startup=" + startupJobs,
+                "orders.rollups.rebuild-on-startup=" + startupJobs);
+        return context;
+    }
+
+    private void seed(ConfigurableApplicationContext seedContext) throws JsonProcessingException {
+        UuidGenerator uuidGenerator = seedContext.getBean(UuidGenerator.class);
+        JdbcTemplate jdbcTemplate = seedContext.getBean(JdbcTemplate.class);
+        ObjectMapper objectMapper = seedContext.getBean(ObjectMapper.class);
+
+        List<Object[]> products = new ArrayList<>(PRODUCT_COUNT);
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            products.add(new Object[]{uuidGenerator.generate(), "product-" + i, BigDecimal.valueOf(i + 1, 2)});
+        }
+        jdbcTemplate.batchUpdate("insert into products (id, name, price) values (?, ?, ?)", products);
+
+        long seedStart = System.currentTimeMillis() - SEED_PERIOD_MILLIS;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long orderItemId = 0;
+        for (int seeded = 0; seeded < existingOrders; seeded += SEED_BATCH_SIZE) {
+            List<Object[]> orders = new ArrayList<>(SEED_BATCH_SIZE);
+            List<Object[]> orderItems = new ArrayList<>(SEED_BATCH_SIZE);
+            List<Object[]> orderSnapshots = new ArrayList<>(SEED_BATCH_SIZE);
+            for (int i = 0; i < SEED_BATCH_SIZE; i++) {
+                UUID orderId = uuidGenerator.generate();
+                Object[] product = products.get(random.nextInt(PRODUCT_COUNT));
+                BigDecimal price = (BigDecimal) product[2];
+                Timestamp timestamp = new Timestamp(seedStart + random.nextLong(SEED_PERIOD_MILLIS));
+                orders.add(new Object[]{orderId, "benchmark@andreiharpa.dev", timestamp, price});
+                orderItems.add(new Object[]{++orderItemId, orderId, price, product[0]});
+                OrderDto orderDto = new OrderDto(orderId, "benchmark@andreiharpa.dev", timestamp, Money.of(price),
+                        Collections.singletonList(new ProductDto((UUID) product[0], (String) product[1],
+                                Money.of(price))));
+                orderSnapshots.add(new Object[]{orderId, timestamp, objectMapper.writeValueAsString(orderDto)});
+            }
+            jdbcTemplate.batchUpdate(
+                    "insert into orders (id, customer_email, timestamp, total_price) values (?, ?, ?, ?)", orders);
+            jdbcTemplate.batchUpdate(
+                    "insert into order_items (id, order_id, price, product_id) values (?, ?, ?, ?)", orderItems);
+            jdbcTemplate.batchUpdate(
+                    "insert into order_snapshots (id, timestamp, payload) values (?, ?, ?)", orderSnapshots);
+        }
+    }
+}
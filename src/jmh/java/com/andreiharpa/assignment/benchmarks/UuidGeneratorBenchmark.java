@@ -0,0 +1,54 @@
+package com.andreiharpa.assignment.benchmarks;
+
+import com.andreiharpa.assignment.utils.UuidGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link UuidGenerator} modes with one and several generating threads
+ *
+ * @author Andrei Harpa
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UuidGeneratorBenchmark {
+    @Param({"RANDOM", "TIME_ORDERED"})
+    public UuidGenerator.Mode mode;
+
+    private UuidGenerator uuidGenerator;
+
+    @Setup
+    public void setUp() {
+        uuidGenerator = new UuidGenerator(mode);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public UUID generateSingleThread() {
+        return uuidGenerator.generate();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public UUID generateEightThreads() {
+        return uuidGenerator.generate();
+    }
+}
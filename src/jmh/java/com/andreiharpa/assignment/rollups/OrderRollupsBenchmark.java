@@ -0,0 +1,100 @@
+package com.andreiharpa.assignment.rollups;
+
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderStatsDto;
+import com.andreiharpa.assignment.dtos.OrderStatsGrouping;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.utils.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures recording orders into {@link OrderRollups} from concurrent threads, and reading
+ * the stats of the last day from rollups holding one order per second over that day
+ *
+ * @author Andrei Harpa
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderRollupsBenchmark {
+    private static final int PRODUCT_COUNT = 1000;
+    private static final int ORDER_COUNT = 1000;
+    private static final long SEED_PERIOD_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    @Param({"5"})
+    public int productsPerOrder;
+
+    private OrderRollups orderRollups;
+
+    private List<ProductDto> products;
+
+    private List<OrderDto> orders;
+
+    @Setup
+    public void setUp() {
+        orderRollups = new OrderRollups(null, null, false,
+                Duration.ofDays(2), Duration.ofDays(31), Duration.ofDays(366));
+        products = new ArrayList<>(PRODUCT_COUNT);
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            products.add(new ProductDto(UUID.randomUUID(), "product-" + i, Money.ofMinorUnits(i + 1)));
+        }
+        long now = System.currentTimeMillis();
+        for (long timestamp = now - SEED_PERIOD_MILLIS; timestamp < now; timestamp += TimeUnit.SECONDS.toMillis(1)) {
+            orderRollups.record(getOrderDto(new Date(timestamp)));
+        }
+        // Built up front so random id generation is not measured,
+        // and dated after the interval read by getHourlyStatsOfLastDay
+        orders = new ArrayList<>(ORDER_COUNT);
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            orders.add(getOrderDto(new Date(now + SEED_PERIOD_MILLIS)));
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void record() {
+        orderRollups.record(orders.get(ThreadLocalRandom.current().nextInt(ORDER_COUNT)));
+    }
+
+    @Benchmark
+    public OrderStatsDto getHourlyStatsOfLastDay() {
+        long now = System.currentTimeMillis();
+        return orderRollups.getStats(new Date(now - SEED_PERIOD_MILLIS), new Date(now),
+                OrderStatsGrouping.HOUR, 100, 10);
+    }
+
+    private OrderDto getOrderDto(Date timestamp) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<ProductDto> orderProducts = new ArrayList<>(productsPerOrder);
+        Money totalPrice = Money.ZERO;
+        for (int i = 0; i < productsPerOrder; i++) {
+            ProductDto product = products.get(random.nextInt(PRODUCT_COUNT));
+            orderProducts.add(product);
+            totalPrice = totalPrice.plus(product.getPrice());
+        }
+        return new OrderDto(UUID.randomUUID(), "benchmark@andreiharpa.dev", timestamp, totalPrice, orderProducts);
+    }
+}
@@ -0,0 +1,103 @@
+package com.andreiharpa.assignment.services;
+
+import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.models.Order;
+import com.andreiharpa.assignment.models.OrderItem;
+import com.andreiharpa.assignment.models.Product;
+import com.andreiharpa.assignment.utils.Money;
+import com.andreiharpa.assignment.utils.UuidGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the entity/DTO mapping of the services, without any database access.
+ * {@link OrderServiceImpl#toOrder} includes the total price reduction done on create.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMappingBenchmark {
+    @Param({"1", "10", "100"})
+    public int productsPerOrder;
+
+    private OrderServiceImpl orderService;
+
+    private ProductServiceImpl productService;
+
+    private CreateOrderDto createOrderDto;
+
+    private Map<UUID, Product> orderProducts;
+
+    private Order order;
+
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        orderService = new OrderServiceImpl();
+        orderService.uuidGenerator = new UuidGenerator(UuidGenerator.Mode.RANDOM);
+        productService = new ProductServiceImpl(null, null, null, null);
+
+        orderProducts = new LinkedHashMap<>();
+        List<OrderItem> orderItems = new ArrayList<>(productsPerOrder);
+        for (int i = 0; i < productsPerOrder; i++) {
+            Product orderProduct = new Product(UUID.randomUUID(), "product-" + i, Money.ofMinorUnits(i + 1));
+            orderProducts.put(orderProduct.getId(), orderProduct);
+            orderItems.add(OrderItem.builder()
+                    .id((long) i)
+                    .price(orderProduct.getPrice())
+                    .productId(orderProduct.getId())
+                    .product(orderProduct)
+                    .build());
+        }
+        product = orderProducts.values().iterator().next();
+        createOrderDto = new CreateOrderDto("benchmark@andreiharpa.dev", new ArrayList<>(orderProducts.keySet()));
+        order = Order.builder()
+                .id(UUID.randomUUID())
+                .customerEmail(createOrderDto.getCustomerEmail())
+                .timestamp(new Date())
+                .totalPrice(Money.ofMinorUnits(1000))
+                .orderItems(orderItems)
+                .build();
+    }
+
+    @Benchmark
+    public Order toOrder() {
+        return orderService.toOrder(createOrderDto, orderProducts, OrderServiceImpl.getOrderQuantities(createOrderDto));
+    }
+
+    @Benchmark
+    public OrderDto toOrderDto() {
+        return orderService.toOrderDto(order);
+    }
+
+    @Benchmark
+    public ProductDto productToProductDto() {
+        return productService.productToProductDto(product);
+    }
+}
@@ -2,8 +2,10 @@ package com.andreiharpa.assignment;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ProductOrdersApplication {
     public static void main(String[] args) {
         SpringApplication.run(ProductOrdersApplication.class, args);
@@ -0,0 +1,156 @@
+package com.andreiharpa.assignment.cache;
+
+import com.andreiharpa.assignment.models.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded read-through cache of {@link Product} entities keyed by id
+ *
+ * Cached products are detached and shared between threads, so callers must treat them as read-only.
+ * Loaded and saved products only replace a cached product with the same or an older version, so a load that read
+ * a product before an update committed cannot overwrite the updated product.
+ * Hit, miss and eviction statistics are published to the {@link MeterRegistry} under the "products" cache name.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Component
+public class ProductCache {
+    public static final String CACHE_NAME = "products";
+
+    private final boolean enabled;
+
+    private final Cache<UUID, Product> cache;
+
+    public ProductCache(@Value("${products.cache.enabled:true}") boolean enabled,
+                        @Value("${products.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${products.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Retrieves a product, loading it on a miss
+     *
+     * @param id the {@link Product} id
+     * @param loader loads the product when it is not cached
+     * @return the {@link Product}, or empty if the loader could not find it
+     */
+    public Optional<Product> get(UUID id, Function<UUID, Optional<Product>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        // Loaded atomically, a product saved meanwhile is merged after the load and replaces it
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Retrieves a product only if it is cached
+     *
+     * @param id the {@link Product} id
+     * @return the cached {@link Product}, or empty on a miss
+     */
+    public Optional<Product> getIfPresent(UUID id) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    /**
+     * Retrieves several products, loading all misses with a single call to the loader
+     *
+     * @param ids the {@link Product} ids
+     * @param loader loads the products that are not cached
+     * @return the found products keyed by id, ids that could not be found are absent
+     */
+    public Map<UUID, Product> getAll(Collection<UUID> ids, Function<Set<UUID>, Collection<Product>> loader) {
+        if (!enabled) {
+            return loader.apply(toSet(ids)).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+        }
+        Map<UUID, Product> products = new HashMap<>(cache.getAllPresent(ids));
+        Set<UUID> missingIds = toSet(ids);
+        missingIds.removeAll(products.keySet());
+        if (!missingIds.isEmpty()) {
+            loader.apply(missingIds).forEach(product -> products.put(product.getId(), putNewer(product)));
+        }
+        return products;
+    }
+
+    /**
+     * Stores a product once the current transaction commits, or immediately if there is none
+     *
+     * @param product the saved {@link Product}
+     */
+    public void put(Product product) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Evict right away so readers fall back to the database until the new state is committed
+            cache.invalidate(product.getId());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    putNewer(product);
+                }
+            });
+        } else {
+            putNewer(product);
+        }
+    }
+
+    /**
+     * Removes a product from the cache
+     *
+     * @param id the {@link Product} id
+     */
+    public void invalidate(UUID id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * Caches the product unless a newer version is cached already
+     *
+     * @return the cached {@link Product}
+     */
+    private Product putNewer(Product product) {
+        return cache.asMap().merge(product.getId(), product,
+                (cached, candidate) -> getVersion(candidate) >= getVersion(cached) ? candidate : cached);
+    }
+
+    private static long getVersion(Product product) {
+        return product.getVersion() == null ? -1 : product.getVersion();
+    }
+
+    private static Set<UUID> toSet(Iterable<? extends UUID> ids) {
+        Set<UUID> set = new HashSet<>();
+        ids.forEach(set::add);
+        return set;
+    }
+}
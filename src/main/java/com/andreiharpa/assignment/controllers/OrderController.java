@@ -1,30 +1,51 @@
 package com.andreiharpa.assignment.controllers;
 
+import com.andreiharpa.assignment.dtos.BatchOrderResultDto;
 import com.andreiharpa.assignment.dtos.CreateOrderDto;
 import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderPageDto;
+import com.andreiharpa.assignment.exceptions.IdempotencyKeyInProgressException;
+import com.andreiharpa.assignment.exceptions.IdempotencyKeyReusedException;
+import com.andreiharpa.assignment.exceptions.InvalidCursorException;
 import com.andreiharpa.assignment.exceptions.OrderNotFoundException;
 import com.andreiharpa.assignment.exceptions.OrderProductNotFoundException;
+import com.andreiharpa.assignment.exceptions.OrderQuantityTooLargeException;
+import com.andreiharpa.assignment.exceptions.OrderTotalTooLargeException;
+import com.andreiharpa.assignment.idempotency.IdempotencyStore;
 import com.andreiharpa.assignment.services.OrderService;
+import com.andreiharpa.assignment.utils.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller for the products api
@@ -37,35 +58,87 @@ import java.util.UUID;
 @Log4j2
 @Validated
 @AllArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class OrderController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * Orders never change after creation, but their full view shows the current product names,
+     * so clients may only keep them for a minute
+     * Private because orders hold the customer email
+     */
+    public static final String ORDER_CACHE_CONTROL =
+            CacheControl.maxAge(1, TimeUnit.MINUTES).cachePrivate().getHeaderValue();
+
+    public static final String FULL_VIEW = "full";
+    public static final String SUMMARY_VIEW = "summary";
+    static final String VIEW_PATTERN = FULL_VIEW + "|" + SUMMARY_VIEW;
+    private static final String DEFAULT_PAGE_SIZE = "100";
 
     @Autowired
     private final OrderService orderService;
 
+    @Autowired
+    private final IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private final ObjectMapper objectMapper;
+
     /**
      * Handles post requests
+     * Requests retried with the same {@value IdempotencyStore#IDEMPOTENCY_KEY_HEADER} header return the
+     * order created by the first request
      *
-     * @return {@link ResponseEntity} containing the list of {@link OrderDto}
+     * @param idempotencyKey the optional client supplied idempotency key
+     * @param createOrderDto {@link CreateOrderDto}
+     * @return {@link ResponseEntity} containing the created {@link OrderDto}
      */
     @RequestMapping(method = RequestMethod.POST)
-    public ResponseEntity<OrderDto> createOrder(@Valid @RequestBody CreateOrderDto createOrderDto) {
-        OrderDto orderDto = orderService.create(createOrderDto);
-        log.info("OrderService returned {}", orderDto);
+    public ResponseEntity<OrderDto> createOrder(
+            @RequestHeader(value = IdempotencyStore.IDEMPOTENCY_KEY_HEADER, required = false)
+            @Size(max = IdempotencyStore.MAX_KEY_LENGTH) String idempotencyKey,
+            @Valid @RequestBody CreateOrderDto createOrderDto) {
+        OrderDto orderDto = idempotencyKey == null
+                ? orderService.create(createOrderDto)
+                : idempotencyStore.createOnce(idempotencyKey, createOrderDto, () -> orderService.create(createOrderDto));
+        log.info("OrderService returned order {}", orderDto.getId());
         return new ResponseEntity<>(orderDto, HttpStatus.CREATED);
     }
 
+    /**
+     * Handles batch post requests
+     * Orders are created in a single transaction, orders referencing unknown products are reported
+     * in their own result without failing the rest of the batch
+     *
+     * @param createOrderDtos the orders to create
+     * @return {@link ResponseEntity} containing one {@link BatchOrderResultDto} per requested order
+     */
+    @RequestMapping(value = "/batch", method = RequestMethod.POST)
+    public ResponseEntity<List<BatchOrderResultDto>> createOrders(
+            @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<@Valid CreateOrderDto> createOrderDtos) {
+        List<BatchOrderResultDto> results = orderService.createAll(createOrderDtos);
+        log.info("OrderService created {} of {} orders",
+                results.stream().filter(result -> result.getOrder() != null).count(), results.size());
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
     /**
      * Handles getById requests
      *
      * @param id the id of the product
+     * @param view {@value #SUMMARY_VIEW} to leave out the products, without reading the order items
      * @return {@link ResponseEntity} containing the {@link OrderDto}
      */
     @RequestMapping(value = "/{id}", method = RequestMethod.GET)
-    public ResponseEntity<OrderDto> getOrderById(@Valid @PathVariable("id") UUID id) {
+    public ResponseEntity<OrderDto> getOrderById(
+            @Valid @PathVariable("id") UUID id,
+            @RequestParam(value = "view", defaultValue = FULL_VIEW) @Pattern(regexp = VIEW_PATTERN) String view) {
         try {
-            OrderDto orderDto = orderService.getById(id);
-            log.info("OrderService returned {}", orderDto);
-            return new ResponseEntity<>(orderDto, HttpStatus.OK);
+            OrderDto orderDto = SUMMARY_VIEW.equals(view) ? orderService.getSummaryById(id) : orderService.getById(id);
+            log.info("OrderService returned order {}", orderDto.getId());
+            return ResponseEntity.ok().header(HttpHeaders.CACHE_CONTROL, ORDER_CACHE_CONTROL).body(orderDto);
         } catch (OrderNotFoundException e) {
             log.info(e.getMessage());
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -74,22 +147,102 @@ public class OrderController {
 
     /**
      * Handles get with time interval
+     * Returns one page of orders, the cursor for the next page is sent in the {@value #NEXT_CURSOR_HEADER} header
      *
      * @param startTime the start date for the requested interval
      * @param endTime the end date for the requested interval
+     * @param cursor the cursor returned with the previous page, absent for the first page
+     * @param limit the maximum number of orders in the page
+     * @param view {@value #SUMMARY_VIEW} to leave out the products, reading the orders table only
      * @return {@link ResponseEntity} containing a list of {@link OrderDto}
      */
     @RequestMapping(method = RequestMethod.GET)
     public ResponseEntity<List<OrderDto>> getOrdersWithTimeInterval(
             @RequestParam("startTime") @DateTimeFormat(pattern = OrderDto.TIMESTAMP_FORMAT) Date startTime,
-            @RequestParam("endTime") @DateTimeFormat(pattern = OrderDto.TIMESTAMP_FORMAT) Date endTime) {
-        List<OrderDto> orders = orderService.getAllInTimeInterval(startTime, endTime);
-        log.info("OrderService returned {}", orders);
-        if(orders.isEmpty()) {
+            @RequestParam("endTime") @DateTimeFormat(pattern = OrderDto.TIMESTAMP_FORMAT) Date endTime,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+            @RequestParam(value = "view", defaultValue = FULL_VIEW) @Pattern(regexp = VIEW_PATTERN) String view) {
+        OrderPageDto orderPage = SUMMARY_VIEW.equals(view)
+                ? orderService.getSummaryPageInTimeInterval(startTime, endTime, cursor, limit)
+                : orderService.getPageInTimeInterval(startTime, endTime, cursor, limit);
+        log.info("OrderService returned {} orders", orderPage.getOrders().size());
+        if(orderPage.getOrders().isEmpty()) {
             log.info("Received empty orders list.");
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         }
-        return new ResponseEntity<>(orders, HttpStatus.OK);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (orderPage.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, orderPage.getNextCursor());
+        }
+        return response.body(orderPage.getOrders());
+    }
+
+    /**
+     * Handles get with time interval when newline delimited json is requested
+     * Streams every order in the interval while reading them from the database in chunks
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @param view {@value #SUMMARY_VIEW} to leave out the products, reading the orders table only
+     * @return {@link ResponseEntity} streaming one {@link OrderDto} per line
+     */
+    @RequestMapping(method = RequestMethod.GET, produces = NdjsonWriter.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOrdersWithTimeInterval(
+            @RequestParam("startTime") @DateTimeFormat(pattern = OrderDto.TIMESTAMP_FORMAT) Date startTime,
+            @RequestParam("endTime") @DateTimeFormat(pattern = OrderDto.TIMESTAMP_FORMAT) Date endTime,
+            @RequestParam(value = "view", defaultValue = FULL_VIEW) @Pattern(regexp = VIEW_PATTERN) String view) {
+        StreamingResponseBody body = outputStream -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+            if (SUMMARY_VIEW.equals(view)) {
+                orderService.forEachSummaryInTimeInterval(startTime, endTime, writer::write);
+            } else {
+                orderService.forEachInTimeInterval(startTime, endTime, writer::write);
+            }
+        };
+        return ResponseEntity.ok().contentType(NdjsonWriter.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Handles InvalidCursorException
+     * Returns the error message to the client
+     *
+     * @param e {@link InvalidCursorException}
+     * @return the error details
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String onInvalidCursorException(InvalidCursorException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
+
+    /**
+     * Handles IdempotencyKeyReusedException
+     * Returns the error message to the client
+     *
+     * @param e {@link IdempotencyKeyReusedException}
+     * @return the error details
+     */
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public String onIdempotencyKeyReusedException(IdempotencyKeyReusedException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
+
+    /**
+     * Handles IdempotencyKeyInProgressException
+     * Returns the error message to the client, the request can be retried later
+     *
+     * @param e {@link IdempotencyKeyInProgressException}
+     * @return the error details
+     */
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String onIdempotencyKeyInProgressException(IdempotencyKeyInProgressException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
     }
 
     /**
@@ -105,4 +258,32 @@ public class OrderController {
         log.info(e.getMessage());
         return e.getMessage();
     }
+
+    /**
+     * Handles OrderTotalTooLargeException
+     * Returns the error message to the client
+     *
+     * @param e {@link OrderTotalTooLargeException}
+     * @return the error details
+     */
+    @ExceptionHandler(OrderTotalTooLargeException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public String onOrderTotalTooLargeException(OrderTotalTooLargeException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
+
+    /**
+     * Handles OrderQuantityTooLargeException
+     * Returns the error message to the client
+     *
+     * @param e {@link OrderQuantityTooLargeException}
+     * @return the error details
+     */
+    @ExceptionHandler(OrderQuantityTooLargeException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String onOrderQuantityTooLargeException(OrderQuantityTooLargeException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
 }
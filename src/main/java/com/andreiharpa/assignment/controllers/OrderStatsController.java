@@ -0,0 +1,128 @@
+package com.andreiharpa.assignment.controllers;
+
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderStatsDto;
+import com.andreiharpa.assignment.dtos.OrderStatsGrouping;
+import com.andreiharpa.assignment.exceptions.OrderRollupsNotReadyException;
+import com.andreiharpa.assignment.exceptions.UnsupportedStatsGroupingException;
+import com.andreiharpa.assignment.rollups.OrderRollups;
+import com.andreiharpa.assignment.services.OrderStatsService;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.util.Date;
+
+/**
+ * Controller for the order stats api
+ *
+ * @author Andrei Harpa
+ *
+ */
+@RestController
+@RequestMapping("/v1/orders/stats")
+@Log4j2
+@Validated
+@AllArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class OrderStatsController {
+    public static final int MAX_GROUPS = 1000;
+    public static final int MAX_TOP_PRODUCTS = 100;
+    private static final String DEFAULT_GROUPS = "100";
+    private static final String DEFAULT_TOP_PRODUCTS = "10";
+
+    @Autowired
+    private final OrderStatsService orderStatsService;
+
+    @Autowired
+    private final OrderRollups orderRollups;
+
+    /**
+     * Handles get with time interval
+     * Returns the order count, revenue and average order value of the interval, grouped by day, hour or customer,
+     * together with the best selling products
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @param groupBy how the orders are grouped
+     * @param limit the maximum number of groups
+     * @param top the number of best selling products, 0 to leave them out
+     * @return {@link ResponseEntity} containing the {@link OrderStatsDto}
+     */
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<OrderStatsDto> getStatsWithTimeInterval(
+            @RequestParam("startTime") @DateTimeFormat(pattern = OrderDto.TIMESTAMP_FORMAT) Date startTime,
+            @RequestParam("endTime") @DateTimeFormat(pattern = OrderDto.TIMESTAMP_FORMAT) Date endTime,
+            @RequestParam(value = "groupBy", defaultValue = "DAY") OrderStatsGrouping groupBy,
+            @RequestParam(value = "limit", defaultValue = DEFAULT_GROUPS) @Min(1) @Max(MAX_GROUPS) int limit,
+            @RequestParam(value = "top", defaultValue = DEFAULT_TOP_PRODUCTS) @Min(0) @Max(MAX_TOP_PRODUCTS) int top) {
+        OrderStatsDto orderStats = orderStatsService.getStats(startTime, endTime, groupBy, limit, top);
+        log.info("OrderStatsService returned {} groups for {} orders",
+                orderStats.getGroups().size(), orderStats.getOrderCount());
+        return new ResponseEntity<>(orderStats, HttpStatus.OK);
+    }
+
+    /**
+     * Handles get with time interval served from the in-memory rollups
+     * Returns the same stats without querying the database, for intervals within the rollup retention,
+     * aligned to whole minutes, hours or days, or 503 while the rollups are rebuilt on startup
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @param groupBy the bucket granularity, one of MINUTE, HOUR or DAY
+     * @param limit the maximum number of groups
+     * @param top the number of best selling products, 0 to leave them out
+     * @return {@link ResponseEntity} containing the {@link OrderStatsDto}
+     */
+    @RequestMapping(value = "/live", method = RequestMethod.GET)
+    public ResponseEntity<OrderStatsDto> getLiveStatsWithTimeInterval(
+            @RequestParam("startTime") @DateTimeFormat(pattern = OrderDto.TIMESTAMP_FORMAT) Date startTime,
+            @RequestParam("endTime") @DateTimeFormat(pattern = OrderDto.TIMESTAMP_FORMAT) Date endTime,
+            @RequestParam(value = "groupBy", defaultValue = "MINUTE") OrderStatsGrouping groupBy,
+            @RequestParam(value = "limit", defaultValue = DEFAULT_GROUPS) @Min(1) @Max(MAX_GROUPS) int limit,
+            @RequestParam(value = "top", defaultValue = DEFAULT_TOP_PRODUCTS) @Min(0) @Max(MAX_TOP_PRODUCTS) int top) {
+        OrderStatsDto orderStats = orderRollups.getStats(startTime, endTime, groupBy, limit, top);
+        return new ResponseEntity<>(orderStats, HttpStatus.OK);
+    }
+
+    /**
+     * Handles UnsupportedStatsGroupingException
+     * Returns the error message to the client
+     *
+     * @param e {@link UnsupportedStatsGroupingException}
+     * @return the error details
+     */
+    @ExceptionHandler(UnsupportedStatsGroupingException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String onUnsupportedStatsGroupingException(UnsupportedStatsGroupingException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
+
+    /**
+     * Handles OrderRollupsNotReadyException
+     * Returns the error message to the client, the live stats can be requested again once the rollups are rebuilt
+     *
+     * @param e {@link OrderRollupsNotReadyException}
+     * @return the error details
+     */
+    @ExceptionHandler(OrderRollupsNotReadyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public String onOrderRollupsNotReadyException(OrderRollupsNotReadyException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
+}
@@ -4,23 +4,37 @@ import com.andreiharpa.assignment.dtos.CreateProductDto;
 import com.andreiharpa.assignment.dtos.ProductDto;
 import com.andreiharpa.assignment.dtos.UpdateProductDto;
 import com.andreiharpa.assignment.exceptions.ProductNotFoundException;
+import com.andreiharpa.assignment.exceptions.ProductVersionConflictException;
+import com.andreiharpa.assignment.exceptions.ProductVersionMismatchException;
 import com.andreiharpa.assignment.services.ProductService;
+import com.andreiharpa.assignment.utils.NdjsonWriter;
+import com.andreiharpa.assignment.utils.VersionDigest;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -34,38 +48,90 @@ import java.util.UUID;
 @Log4j2
 @Validated
 @AllArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ProductController {
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final String DEFAULT_PAGE_SIZE = "100";
+    private static final long NO_VERSION = -1L;
+
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Handles getAll requests
+     * Returns every product, or a single page ordered by id when the page parameter is present
+     * The ETag digests the ids and versions of the products, a matching If-None-Match is answered with 304
+     * without loading the products
      *
+     * @param page the zero based page index, absent to retrieve all products
+     * @param size the page size
+     * @param webRequest the request, checked for If-None-Match
      * @return {@link ResponseEntity} containing the list of {@link ProductDto}
      */
     @RequestMapping(method = RequestMethod.GET)
-    public ResponseEntity<List<ProductDto>> getAllProducts() {
-        List<ProductDto> productDtos = productService.getAll();
-        log.info("ProductService returned {}", productDtos);
+    public ResponseEntity<List<ProductDto>> getAllProducts(
+            @RequestParam(value = "page", required = false) @Min(0) Integer page,
+            @RequestParam(value = "size", defaultValue = DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int size,
+            WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String version = page == null
+                    ? productService.getAllVersion()
+                    : productService.getPageVersion(page, size);
+            if (webRequest.checkNotModified(version)) {
+                log.info("Products not modified");
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version).build();
+            }
+        }
+        List<ProductDto> productDtos = page == null
+                ? productService.getAll()
+                : productService.getPage(page, size);
+        log.info("ProductService returned {} products", productDtos.size());
         if(productDtos.isEmpty()) {
             log.info("Received empty products list.");
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         }
-        return new ResponseEntity<>(productDtos, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(getProductsVersion(productDtos)).body(productDtos);
+    }
+
+    /**
+     * Handles getAll requests when newline delimited json is requested
+     * Streams every product while reading them from the database
+     *
+     * @return {@link ResponseEntity} streaming one {@link ProductDto} per line
+     */
+    @RequestMapping(method = RequestMethod.GET, produces = NdjsonWriter.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        StreamingResponseBody body = outputStream -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+            productService.forEach(writer::write);
+        };
+        return ResponseEntity.ok().contentType(NdjsonWriter.APPLICATION_NDJSON).body(body);
     }
 
     /**
      * Handles getById requests
+     * The ETag is the product version, a matching If-None-Match is answered with 304 without loading the product
      *
      * @param id the id of the product
+     * @param webRequest the request, checked for If-None-Match
      * @return {@link ResponseEntity} containing the {@link ProductDto}
      */
     @RequestMapping(value = "/{id}", method = RequestMethod.GET)
-    public ResponseEntity<ProductDto> getProductById(@PathVariable("id") UUID id) {
+    public ResponseEntity<ProductDto> getProductById(@PathVariable("id") UUID id, WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Optional<String> version = productService.getVersion(id).map(String::valueOf);
+            if (version.isPresent() && webRequest.checkNotModified(version.get())) {
+                log.info("Product {} not modified", id);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version.get()).build();
+            }
+        }
         try {
             ProductDto productDto = productService.getById(id);
-            log.info("ProductService returned {}", productDto);
-            return new ResponseEntity<>(productDto, HttpStatus.OK);
+            log.info("ProductService returned product {}", productDto.getId());
+            return ResponseEntity.ok().eTag(String.valueOf(productDto.getVersion())).body(productDto);
         } catch (ProductNotFoundException e) {
             log.info("Could not find product with id: {}", id);
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -82,22 +148,27 @@ public class ProductController {
     @RequestMapping(method = RequestMethod.POST)
     public ResponseEntity<ProductDto> createProduct(@Valid @RequestBody CreateProductDto createProductDto) {
         ProductDto productDto = productService.create(createProductDto);
-        log.info("ProductService returned {}", productDto);
+        log.info("ProductService returned product {}", productDto.getId());
         return new ResponseEntity<>(productDto, HttpStatus.CREATED);
     }
 
     /**
      * Handles put requests
+     * An If-Match header makes the update conditional on the product version, a mismatch is answered with 412
      *
+     * @param id the id of the product
+     * @param ifMatch the If-Match header, absent for an unconditional update
      * @param updateProductDto {@link UpdateProductDto}
      * @return {@link ResponseEntity} containing the updated {@link ProductDto}
      */
     @RequestMapping(value = "/{id}", method = RequestMethod.PUT)
     public ResponseEntity<ProductDto> updateProduct(@PathVariable("id") UUID id,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                            String ifMatch,
                                                     @Valid @RequestBody UpdateProductDto updateProductDto) {
-        ProductDto productDto = productService.update(id, updateProductDto);
-        log.info("ProductService returned {}", productDto);
-        return new ResponseEntity<>(productDto, HttpStatus.OK);
+        ProductDto productDto = productService.update(id, updateProductDto, getExpectedVersion(ifMatch));
+        log.info("ProductService returned product {}", productDto.getId());
+        return ResponseEntity.ok().eTag(String.valueOf(productDto.getVersion())).body(productDto);
     }
 
     /**
@@ -113,4 +184,67 @@ public class ProductController {
         log.info(e.getMessage());
         return e.getMessage();
     }
+
+    /**
+     * Handles ProductVersionMismatchException
+     * Returns the error message to the client, the product has to be read again before updating it
+     *
+     * @param e {@link ProductVersionMismatchException}
+     * @return the error details
+     */
+    @ExceptionHandler(ProductVersionMismatchException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public String onProductVersionMismatchException(ProductVersionMismatchException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
+
+    /**
+     * Handles ProductVersionConflictException
+     * Returns the error message to the client, the update can be retried
+     *
+     * @param e {@link ProductVersionConflictException}
+     * @return the error details
+     */
+    @ExceptionHandler(ProductVersionConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String onProductVersionConflictException(ProductVersionConflictException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
+
+    /**
+     * Digests the ids and versions of loaded products, the same digest the product service computes from the
+     * versions alone
+     *
+     * @param productDtos the products, ordered by id
+     * @return the ETag of the products
+     */
+    static String getProductsVersion(List<ProductDto> productDtos) {
+        VersionDigest digest = new VersionDigest();
+        productDtos.forEach(productDto -> digest.add(productDto.getId(), productDto.getVersion()));
+        return digest.digest();
+    }
+
+    /**
+     * Parses the product version an update is conditional on
+     * Only a single strong ETag can match a version, weak or unparsable ETags never match
+     *
+     * @param ifMatch the If-Match header, may be null
+     * @return the expected version, null for an unconditional update
+     */
+    static Long getExpectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.length() > 1 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            etag = etag.substring(1, etag.length() - 1);
+        }
+        try {
+            return Long.parseLong(etag);
+        } catch (NumberFormatException e) {
+            return NO_VERSION;
+        }
+    }
 }
@@ -0,0 +1,225 @@
+package com.andreiharpa.assignment.controllers;
+
+import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderPageDto;
+import com.andreiharpa.assignment.exceptions.InvalidCursorException;
+import com.andreiharpa.assignment.exceptions.OrderNotFoundException;
+import com.andreiharpa.assignment.exceptions.OrderProductNotFoundException;
+import com.andreiharpa.assignment.exceptions.OrderQuantityTooLargeException;
+import com.andreiharpa.assignment.exceptions.OrderTotalTooLargeException;
+import com.andreiharpa.assignment.services.ReactiveOrderService;
+import com.andreiharpa.assignment.utils.NdjsonWriter;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Pattern;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Non-blocking variant of {@link OrderController}, served instead of it by reactive web applications
+ * Idempotency keys, batch creation and order stats are only supported by {@link OrderController}
+ * and {@link OrderStatsController}.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@RestController
+@RequestMapping("/v1/orders")
+@Log4j2
+@Validated
+@AllArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOrderController {
+    private static final String DEFAULT_PAGE_SIZE = "100";
+
+    private final ReactiveOrderService orderService;
+
+    /**
+     * Handles post requests
+     *
+     * @param createOrderDto {@link CreateOrderDto}
+     * @return {@link ResponseEntity} containing the created {@link OrderDto}
+     */
+    @RequestMapping(method = RequestMethod.POST)
+    public Mono<ResponseEntity<OrderDto>> createOrder(@Valid @RequestBody CreateOrderDto createOrderDto) {
+        return orderService.create(createOrderDto).map(orderDto -> {
+            log.info("OrderService returned order {}", orderDto.getId());
+            return new ResponseEntity<>(orderDto, HttpStatus.CREATED);
+        });
+    }
+
+    /**
+     * Handles getById requests
+     *
+     * @param id the id of the order
+     * @param view {@value OrderController#SUMMARY_VIEW} for the order without its products
+     * @return {@link ResponseEntity} containing the {@link OrderDto}
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.GET)
+    public Mono<ResponseEntity<OrderDto>> getOrderById(
+            @PathVariable("id") UUID id,
+            @RequestParam(value = "view", defaultValue = OrderController.FULL_VIEW)
+            @Pattern(regexp = OrderController.VIEW_PATTERN) String view) {
+        Mono<OrderDto> order = OrderController.SUMMARY_VIEW.equals(view)
+                ? orderService.getSummaryById(id)
+                : orderService.getById(id);
+        return order
+                .map(orderDto -> {
+                    log.info("OrderService returned order {}", orderDto.getId());
+                    return ResponseEntity.ok()
+                            .header(HttpHeaders.CACHE_CONTROL, OrderController.ORDER_CACHE_CONTROL)
+                            .body(orderDto);
+                })
+                .onErrorResume(OrderNotFoundException.class, e -> {
+                    log.info(e.getMessage());
+                    return Mono.just(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+                });
+    }
+
+    /**
+     * Handles get with time interval
+     * Returns one page of orders, the cursor for the next page is sent in the
+     * {@value OrderController#NEXT_CURSOR_HEADER} header
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @param cursor the cursor returned with the previous page, absent for the first page
+     * @param limit the maximum number of orders in the page
+     * @param view {@value OrderController#SUMMARY_VIEW} for the orders without their products
+     * @return {@link ResponseEntity} containing a list of {@link OrderDto}
+     */
+    @RequestMapping(method = RequestMethod.GET)
+    public Mono<ResponseEntity<List<OrderDto>>> getOrdersWithTimeInterval(
+            @RequestParam("startTime") @DateTimeFormat(pattern = OrderDto.TIMESTAMP_FORMAT) Date startTime,
+            @RequestParam("endTime") @DateTimeFormat(pattern = OrderDto.TIMESTAMP_FORMAT) Date endTime,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_SIZE)
+            @Min(1) @Max(OrderController.MAX_PAGE_SIZE) int limit,
+            @RequestParam(value = "view", defaultValue = OrderController.FULL_VIEW)
+            @Pattern(regexp = OrderController.VIEW_PATTERN) String view) {
+        Mono<OrderPageDto> orders = OrderController.SUMMARY_VIEW.equals(view)
+                ? orderService.getSummaryPageInTimeInterval(startTime, endTime, cursor, limit)
+                : orderService.getPageInTimeInterval(startTime, endTime, cursor, limit);
+        return orders.map(orderPage -> {
+            log.info("OrderService returned {} orders", orderPage.getOrders().size());
+            if (orderPage.getOrders().isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (orderPage.getNextCursor() != null) {
+                response.header(OrderController.NEXT_CURSOR_HEADER, orderPage.getNextCursor());
+            }
+            return response.body(orderPage.getOrders());
+        });
+    }
+
+    /**
+     * Handles get with time interval when newline delimited json is requested
+     * Streams every order in the interval, each one is written as soon as it is read from the database
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @param view {@value OrderController#SUMMARY_VIEW} for the orders without their products
+     * @return one {@link OrderDto} per line
+     */
+    @RequestMapping(method = RequestMethod.GET, produces = NdjsonWriter.APPLICATION_NDJSON_VALUE)
+    public Flux<OrderDto> streamOrdersWithTimeInterval(
+            @RequestParam("startTime") @DateTimeFormat(pattern = OrderDto.TIMESTAMP_FORMAT) Date startTime,
+            @RequestParam("endTime") @DateTimeFormat(pattern = OrderDto.TIMESTAMP_FORMAT) Date endTime,
+            @RequestParam(value = "view", defaultValue = OrderController.FULL_VIEW)
+            @Pattern(regexp = OrderController.VIEW_PATTERN) String view) {
+        return OrderController.SUMMARY_VIEW.equals(view)
+                ? orderService.getAllSummariesInTimeInterval(startTime, endTime)
+                : orderService.getAllInTimeInterval(startTime, endTime);
+    }
+
+    /**
+     * Handles the order stats requests, which are not served by reactive web applications
+     * Mapped explicitly so they are not matched as an order id
+     *
+     * @return {@link ResponseEntity} with status 501 and the error details
+     */
+    @RequestMapping(value = {"/stats", "/stats/live"}, method = RequestMethod.GET)
+    public ResponseEntity<String> getOrderStats() {
+        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED)
+                .body("Order stats are not supported by the reactive api");
+    }
+
+    /**
+     * Handles InvalidCursorException
+     * Returns the error message to the client
+     *
+     * @param e {@link InvalidCursorException}
+     * @return the error details
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String onInvalidCursorException(InvalidCursorException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
+
+    /**
+     * Handles OrderProductNotFoundException
+     * Returns the error message to the client
+     *
+     * @param e {@link OrderProductNotFoundException}
+     * @return the error details
+     */
+    @ExceptionHandler(OrderProductNotFoundException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public String onOrderProductNotFoundException(OrderProductNotFoundException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
+
+    /**
+     * Handles OrderTotalTooLargeException
+     * Returns the error message to the client
+     *
+     * @param e {@link OrderTotalTooLargeException}
+     * @return the error details
+     */
+    @ExceptionHandler(OrderTotalTooLargeException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public String onOrderTotalTooLargeException(OrderTotalTooLargeException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
+
+    /**
+     * Handles OrderQuantityTooLargeException
+     * Returns the error message to the client
+     *
+     * @param e {@link OrderQuantityTooLargeException}
+     * @return the error details
+     */
+    @ExceptionHandler(OrderQuantityTooLargeException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String onOrderQuantityTooLargeException(OrderQuantityTooLargeException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,215 @@
+package com.andreiharpa.assignment.controllers;
+
+import com.andreiharpa.assignment.dtos.CreateProductDto;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.dtos.UpdateProductDto;
+import com.andreiharpa.assignment.exceptions.ProductNotFoundException;
+import com.andreiharpa.assignment.exceptions.ProductVersionConflictException;
+import com.andreiharpa.assignment.exceptions.ProductVersionMismatchException;
+import com.andreiharpa.assignment.services.ReactiveProductService;
+import com.andreiharpa.assignment.utils.NdjsonWriter;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Non-blocking variant of {@link ProductController}, served instead of it by reactive web applications
+ *
+ * @author Andrei Harpa
+ *
+ */
+@RestController
+@RequestMapping("/v1/products")
+@Log4j2
+@Validated
+@AllArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductController {
+    private static final String DEFAULT_PAGE_SIZE = "100";
+
+    private final ReactiveProductService productService;
+
+    /**
+     * Handles getAll requests
+     * Returns every product, or a single page ordered by id when the page parameter is present
+     * The ETag digests the ids and versions of the products, a matching If-None-Match is answered with 304
+     * without loading the products
+     *
+     * @param page the zero based page index, absent to retrieve all products
+     * @param size the page size
+     * @param exchange the exchange, checked for If-None-Match
+     * @return {@link ResponseEntity} containing the list of {@link ProductDto}
+     */
+    @RequestMapping(method = RequestMethod.GET)
+    public Mono<ResponseEntity<List<ProductDto>>> getAllProducts(
+            @RequestParam(value = "page", required = false) @Min(0) Integer page,
+            @RequestParam(value = "size", defaultValue = DEFAULT_PAGE_SIZE)
+            @Min(1) @Max(ProductController.MAX_PAGE_SIZE) int size,
+            ServerWebExchange exchange) {
+        boolean conditional = exchange.getRequest().getHeaders().containsKey(HttpHeaders.IF_NONE_MATCH);
+        Mono<String> version = Mono.empty();
+        if (conditional) {
+            version = page == null
+                    ? productService.getAllVersion()
+                    : productService.getPageVersion(page, size);
+        }
+        Mono<ResponseEntity<List<ProductDto>>> notModified = version
+                .filter(exchange::checkNotModified)
+                .map(etag -> {
+                    log.info("Products not modified");
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                });
+        return notModified.switchIfEmpty(Mono.defer(() -> {
+            Flux<ProductDto> productDtos = page == null
+                    ? productService.getAll()
+                    : productService.getPage(page, size);
+            return productDtos.collectList().map(products -> {
+                log.info("ProductService returned {} products", products.size());
+                return products.isEmpty()
+                        ? new ResponseEntity<>(HttpStatus.NO_CONTENT)
+                        : ResponseEntity.ok().eTag(ProductController.getProductsVersion(products)).body(products);
+            });
+        }));
+    }
+
+    /**
+     * Handles getAll requests when newline delimited json is requested
+     * Streams every product while reading them from the database
+     *
+     * @return one {@link ProductDto} per line
+     */
+    @RequestMapping(method = RequestMethod.GET, produces = NdjsonWriter.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductDto> exportProducts() {
+        return productService.getAll();
+    }
+
+    /**
+     * Handles getById requests
+     * The ETag is the product version, a matching If-None-Match is answered with 304 without loading the product
+     *
+     * @param id the id of the product
+     * @param exchange the exchange, checked for If-None-Match
+     * @return {@link ResponseEntity} containing the {@link ProductDto}
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.GET)
+    public Mono<ResponseEntity<ProductDto>> getProductById(@PathVariable("id") UUID id, ServerWebExchange exchange) {
+        boolean conditional = exchange.getRequest().getHeaders().containsKey(HttpHeaders.IF_NONE_MATCH);
+        Mono<ResponseEntity<ProductDto>> notModified = conditional
+                ? productService.getVersion(id)
+                        .map(String::valueOf)
+                        .filter(exchange::checkNotModified)
+                        .map(etag -> {
+                            log.info("Product {} not modified", id);
+                            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                        })
+                : Mono.empty();
+        return notModified.switchIfEmpty(Mono.defer(() -> productService.getById(id)
+                .map(productDto -> {
+                    log.info("ProductService returned product {}", productDto.getId());
+                    return ResponseEntity.ok().eTag(String.valueOf(productDto.getVersion())).body(productDto);
+                })
+                .onErrorResume(ProductNotFoundException.class, e -> {
+                    log.info(e.getMessage());
+                    return Mono.just(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+                })));
+    }
+
+    /**
+     * Handles post requests
+     *
+     * @param createProductDto {@link CreateProductDto}
+     * @return {@link ResponseEntity} containing the saved {@link ProductDto}
+     */
+    @RequestMapping(method = RequestMethod.POST)
+    public Mono<ResponseEntity<ProductDto>> createProduct(@Valid @RequestBody CreateProductDto createProductDto) {
+        return productService.create(createProductDto).map(productDto -> {
+            log.info("ProductService returned product {}", productDto.getId());
+            return new ResponseEntity<>(productDto, HttpStatus.CREATED);
+        });
+    }
+
+    /**
+     * Handles put requests
+     * An If-Match header makes the update conditional on the product version, a mismatch is answered with 412
+     *
+     * @param id the id of the product
+     * @param ifMatch the If-Match header, absent for an unconditional update
+     * @param updateProductDto {@link UpdateProductDto}
+     * @return {@link ResponseEntity} containing the updated {@link ProductDto}
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.PUT)
+    public Mono<ResponseEntity<ProductDto>> updateProduct(@PathVariable("id") UUID id,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                                  String ifMatch,
+                                                          @Valid @RequestBody UpdateProductDto updateProductDto) {
+        return productService.update(id, updateProductDto, ProductController.getExpectedVersion(ifMatch))
+                .map(productDto -> {
+                    log.info("ProductService returned product {}", productDto.getId());
+                    return ResponseEntity.ok().eTag(String.valueOf(productDto.getVersion())).body(productDto);
+                });
+    }
+
+    /**
+     * Handles ProductNotFoundException that are not caught in the controller handlers
+     * Returns the error message to the client
+     *
+     * @param e {@link ProductNotFoundException}
+     * @return the error details
+     */
+    @ExceptionHandler(ProductNotFoundException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public String onProductNotFoundException(ProductNotFoundException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
+
+    /**
+     * Handles ProductVersionMismatchException
+     * Returns the error message to the client, the product has to be read again before updating it
+     *
+     * @param e {@link ProductVersionMismatchException}
+     * @return the error details
+     */
+    @ExceptionHandler(ProductVersionMismatchException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public String onProductVersionMismatchException(ProductVersionMismatchException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
+
+    /**
+     * Handles ProductVersionConflictException
+     * Returns the error message to the client, the update can be retried
+     *
+     * @param e {@link ProductVersionConflictException}
+     * @return the error details
+     */
+    @ExceptionHandler(ProductVersionConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String onProductVersionConflictException(ProductVersionConflictException e) {
+        log.info(e.getMessage());
+        return e.getMessage();
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import javax.validation.ConstraintViolation;
@@ -58,6 +59,24 @@ public class ValidationErrorsControllerAdvice {
         return errors;
     }
 
+    /**
+     * Handles {@link WebExchangeBindException}, raised instead of {@link MethodArgumentNotValidException}
+     * by the reactive controllers
+     *
+     * @param e the exception
+     * @return a list of {@link FieldErrorDto} containing the validation errors
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public List<FieldErrorDto> onWebExchangeBindException(WebExchangeBindException e) {
+        List<FieldErrorDto> errors = new ArrayList<>();
+        for (FieldError fieldError : e.getBindingResult().getFieldErrors()) {
+            errors.add(new FieldErrorDto(fieldError.getField(), fieldError.getDefaultMessage()));
+        }
+        return errors;
+    }
+
     /**
      * Handles {@link MethodArgumentTypeMismatchException}
      *
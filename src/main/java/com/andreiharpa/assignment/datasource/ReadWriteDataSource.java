@@ -0,0 +1,85 @@
+package com.andreiharpa.assignment.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The JDBC datasource: connections of read-only transactions come from the read pool, every other connection
+ * from the primary pool
+ *
+ * Connections are fetched from the pools when the first statement runs, not when they are requested:
+ * JpaTransactionManager requests the connection before the transaction is marked read-only.
+ * Without datasource.read.url the read pool connects to the primary database, standing in for a replica,
+ * so long reads still can't hold the connections that writes wait for.
+ * Being a bean, it replaces the datasource Spring Boot would create from the spring.datasource properties.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Log4j2
+@Component
+public class ReadWriteDataSource extends LazyConnectionDataSourceProxy implements DisposableBean {
+    private final HikariDataSource primaryPool;
+
+    private final HikariDataSource readPool;
+
+    public ReadWriteDataSource(DataSourceProperties properties,
+                               MeterRegistry meterRegistry,
+                               @Value("${datasource.primary.pool-size:10}") int primaryPoolSize,
+                               @Value("${datasource.read.url:}") String readUrl,
+                               @Value("${datasource.read.pool-size:10}") int readPoolSize) {
+        String primaryUrl = properties.determineUrl();
+        primaryPool = createPool(properties, meterRegistry, "primary", primaryUrl, primaryPoolSize);
+        readPool = createPool(properties, meterRegistry, "read", readUrl.isEmpty() ? primaryUrl : readUrl,
+                readPoolSize);
+        readPool.setReadOnly(true);
+
+        Map<Object, Object> pools = new HashMap<>();
+        pools.put(Boolean.FALSE, primaryPool);
+        pools.put(Boolean.TRUE, readPool);
+        AbstractRoutingDataSource routingDataSource = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+            }
+        };
+        routingDataSource.setTargetDataSources(pools);
+        routingDataSource.setDefaultTargetDataSource(primaryPool);
+        routingDataSource.afterPropertiesSet();
+        setTargetDataSource(routingDataSource);
+        afterPropertiesSet();
+        log.info("Primary pool of {} connections to {}, read pool of {} connections to {}",
+                primaryPoolSize, primaryUrl, readPoolSize, readPool.getJdbcUrl());
+    }
+
+    @Override
+    public void destroy() {
+        readPool.close();
+        primaryPool.close();
+    }
+
+    private static HikariDataSource createPool(DataSourceProperties properties, MeterRegistry meterRegistry,
+                                               String name, String url, int poolSize) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        pool.setPoolName(name);
+        // The minimum idle count defaults to the maximum, a fixed size pool
+        pool.setMaximumPoolSize(poolSize);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+}
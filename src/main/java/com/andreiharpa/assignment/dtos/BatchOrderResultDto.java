@@ -0,0 +1,20 @@
+package com.andreiharpa.assignment.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchOrderResultDto {
+    private int index;
+
+    private OrderDto order;
+
+    private String error;
+}
@@ -1,16 +1,24 @@
 package com.andreiharpa.assignment.dtos;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.Email;
-import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * Products can be ordered either as a list of ids, one unit per entry, or as lines with a quantity
+ *
+ * @author Andrei Harpa
+ *
+ */
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -21,6 +29,18 @@ public class CreateOrderDto {
     @NotNull
     private String customerEmail;
 
-    @NotEmpty
     private List<UUID> productIds;
+
+    @Valid
+    private List<CreateOrderLineDto> lines;
+
+    public CreateOrderDto(String customerEmail, List<UUID> productIds) {
+        this(customerEmail, productIds, null);
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "productIds or lines must not be empty")
+    public boolean isProductIdsOrLinesPresent() {
+        return (productIds != null && !productIds.isEmpty()) || (lines != null && !lines.isEmpty());
+    }
 }
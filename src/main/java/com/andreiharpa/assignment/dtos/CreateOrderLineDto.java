@@ -0,0 +1,27 @@
+package com.andreiharpa.assignment.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CreateOrderLineDto {
+    public static final int MAX_QUANTITY = 1_000_000;
+
+    @NotNull
+    private UUID productId;
+
+    @NotNull
+    @Positive
+    @Max(MAX_QUANTITY)
+    private Integer quantity;
+}
@@ -1,10 +1,12 @@
 package com.andreiharpa.assignment.dtos;
 
+import com.andreiharpa.assignment.utils.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.Digits;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
@@ -16,11 +18,17 @@ import java.math.BigDecimal;
 @Builder
 @AllArgsConstructor
 public class CreateProductDto {
+    /**
+     * Keeps prices well within the long minor units of {@link Money}
+     */
+    public static final int MAX_PRICE_UNIT_DIGITS = 15;
+
     @NotNull()
     @Size(max = 50)
     private String name;
 
     @NotNull()
     @Positive()
+    @Digits(integer = MAX_PRICE_UNIT_DIGITS, fraction = Money.SCALE)
     private BigDecimal price;
 }
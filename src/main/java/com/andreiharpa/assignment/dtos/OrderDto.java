@@ -1,12 +1,13 @@
 package com.andreiharpa.assignment.dtos;
 
+import com.andreiharpa.assignment.utils.Money;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
@@ -25,7 +26,11 @@ public class OrderDto {
     @JsonFormat(pattern = TIMESTAMP_FORMAT)
     private Date timestamp;
 
-    private BigDecimal totalPrice;
+    private Money totalPrice;
 
+    /**
+     * Null in the summary view, which leaves the products out
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<ProductDto> products;
 }
@@ -0,0 +1,18 @@
+package com.andreiharpa.assignment.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageDto {
+    private List<OrderDto> orders;
+
+    private String nextCursor;
+}
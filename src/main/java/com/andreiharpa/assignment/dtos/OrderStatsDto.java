@@ -0,0 +1,27 @@
+package com.andreiharpa.assignment.dtos;
+
+import com.andreiharpa.assignment.utils.Money;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatsDto {
+    private long orderCount;
+
+    private Money revenue;
+
+    private Money averageOrderValue;
+
+    private OrderStatsGrouping groupBy;
+
+    private List<OrderStatsGroupDto> groups;
+
+    private List<ProductStatsDto> topProducts;
+}
@@ -0,0 +1,25 @@
+package com.andreiharpa.assignment.dtos;
+
+import com.andreiharpa.assignment.utils.Money;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatsGroupDto {
+    /**
+     * The start of the day, hour or minute formatted as {@value OrderDto#TIMESTAMP_FORMAT}, or the customer email
+     */
+    private String key;
+
+    private long orderCount;
+
+    private Money revenue;
+
+    private Money averageOrderValue;
+}
@@ -0,0 +1,14 @@
+package com.andreiharpa.assignment.dtos;
+
+/**
+ * The ways orders can be grouped in {@link OrderStatsDto}
+ *
+ * @author Andrei Harpa
+ *
+ */
+public enum OrderStatsGrouping {
+    DAY,
+    HOUR,
+    MINUTE,
+    CUSTOMER
+}
@@ -1,11 +1,13 @@
 package com.andreiharpa.assignment.dtos;
 
+import com.andreiharpa.assignment.utils.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 
 import com.andreiharpa.assignment.services.ProductService;
@@ -17,5 +19,22 @@ import com.andreiharpa.assignment.services.ProductService;
 public class ProductDto{
     private UUID id;
     private String name;
-    private BigDecimal price;
+    private Money price;
+
+    /**
+     * The ordered units, only set on the products of an order
+     * Null on orders serialized before quantities existed, which stands for a single unit
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer quantity;
+
+    /**
+     * The product version, sent as the ETag header instead of in the body
+     */
+    @JsonIgnore
+    private Long version;
+
+    public ProductDto(UUID id, String name, Money price) {
+        this(id, name, price, null, null);
+    }
 }
@@ -0,0 +1,23 @@
+package com.andreiharpa.assignment.dtos;
+
+import com.andreiharpa.assignment.utils.Money;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStatsDto {
+    private UUID id;
+
+    private String name;
+
+    private long unitsSold;
+
+    private Money revenue;
+}
@@ -1,10 +1,12 @@
 package com.andreiharpa.assignment.dtos;
 
+import com.andreiharpa.assignment.utils.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.Digits;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.Size;
@@ -19,5 +21,6 @@ public class UpdateProductDto {
     private String name;
 
     @Positive()
+    @Digits(integer = CreateProductDto.MAX_PRICE_UNIT_DIGITS, fraction = Money.SCALE)
     private BigDecimal price;
 }
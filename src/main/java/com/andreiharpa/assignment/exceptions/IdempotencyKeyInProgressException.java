@@ -0,0 +1,7 @@
+package com.andreiharpa.assignment.exceptions;
+
+public class IdempotencyKeyInProgressException extends RuntimeException{
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
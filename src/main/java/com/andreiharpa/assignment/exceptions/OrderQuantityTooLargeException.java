@@ -0,0 +1,7 @@
+package com.andreiharpa.assignment.exceptions;
+
+public class OrderQuantityTooLargeException extends RuntimeException{
+    public OrderQuantityTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.andreiharpa.assignment.exceptions;
+
+public class OrderRollupsNotReadyException extends RuntimeException{
+    public OrderRollupsNotReadyException(String message) {
+        super(message);
+    }
+}
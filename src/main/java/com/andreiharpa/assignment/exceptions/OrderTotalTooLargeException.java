@@ -0,0 +1,7 @@
+package com.andreiharpa.assignment.exceptions;
+
+public class OrderTotalTooLargeException extends RuntimeException{
+    public OrderTotalTooLargeException(String message) {
+        super(message);
+    }
+}
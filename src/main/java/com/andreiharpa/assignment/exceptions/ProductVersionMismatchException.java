@@ -0,0 +1,7 @@
+package com.andreiharpa.assignment.exceptions;
+
+public class ProductVersionMismatchException extends RuntimeException{
+    public ProductVersionMismatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.andreiharpa.assignment.exceptions;
+
+public class UnsupportedStatsGroupingException extends RuntimeException{
+    public UnsupportedStatsGroupingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,59 @@
+package com.andreiharpa.assignment.execution;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.Collections;
+
+/**
+ * Runs the controller handlers as {@link java.util.concurrent.CompletableFuture}s on a dedicated bounded
+ * executor, selected with web.execution.mode=async
+ *
+ * Tomcat worker threads are released as soon as the request arguments are bound, and requests arriving
+ * while every executor thread is busy and the queue is full are rejected with 503 instead of queueing
+ * in front of the database. The executor is not a bean, so it does not replace the application task executor
+ * used by the streamed responses. Its metrics are published under the "http.handlers" executor name.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "web.execution.mode", havingValue = "async")
+public class AsyncHandlerExecution implements WebMvcRegistrations, DisposableBean {
+    public static final String EXECUTOR_NAME = "http.handlers";
+
+    private final ThreadPoolTaskExecutor executor;
+
+    public AsyncHandlerExecution(@Value("${web.execution.async.threads:200}") int threads,
+                                 @Value("${web.execution.async.queue-capacity:1000}") int queueCapacity,
+                                 MeterRegistry meterRegistry) {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("http-handler-");
+        executor.initialize();
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), EXECUTOR_NAME, Collections.emptyList())
+                .bindTo(meterRegistry);
+        log.info("Controller handlers run on {} threads with a queue of {}", threads, queueCapacity);
+    }
+
+    @Override
+    public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+        return new OffloadingHandlerAdapter(executor);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,36 @@
+package com.andreiharpa.assignment.execution;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fails on startup when web.execution.mode names a mode this application does not provide
+ *
+ * The execution modes are selected with conditional beans, so an unknown mode would otherwise silently run
+ * the handlers on the Tomcat worker pool.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Component
+public class ExecutionModeCheck {
+    static final List<String> MODES = Arrays.asList("platform", "async");
+
+    public ExecutionModeCheck(@Value("${web.execution.mode:platform}") String mode) {
+        checkMode(mode);
+    }
+
+    static void checkMode(String mode) {
+        if ("virtual".equals(mode)) {
+            throw new IllegalStateException("web.execution.mode=virtual is not supported: "
+                    + "virtual threads need Java 21 and the application is built for Java 8");
+        }
+        if (!MODES.contains(mode)) {
+            throw new IllegalStateException(String.format(
+                    "Unknown web.execution.mode=%s, expected one of %s", mode, MODES));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.andreiharpa.assignment.execution;
+
+import com.andreiharpa.assignment.ProductOrdersApplication;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link RequestMappingHandlerAdapter} that binds the handler arguments on the request thread and invokes
+ * the handler on an executor, handing its result back to Spring MVC as a {@link CompletableFuture}
+ *
+ * Only the synchronous handlers of this application are offloaded, handlers that already return an
+ * asynchronous type (e.g. streamed responses) and framework endpoints run as before.
+ *
+ * @author Andrei Harpa
+ *
+ */
+class OffloadingHandlerAdapter extends RequestMappingHandlerAdapter {
+    private static final String APPLICATION_PACKAGE = ProductOrdersApplication.class.getPackage().getName();
+    private static final List<Class<?>> ASYNC_RETURN_TYPES = Arrays.asList(Callable.class, DeferredResult.class,
+            WebAsyncTask.class, CompletionStage.class, ListenableFuture.class, StreamingResponseBody.class,
+            ResponseBodyEmitter.class);
+
+    private final Executor executor;
+
+    private final Map<Method, Boolean> offloadedMethods = new ConcurrentHashMap<>();
+
+    OffloadingHandlerAdapter(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+        return offloadedMethods.computeIfAbsent(handlerMethod.getMethod(), method -> isOffloaded(handlerMethod))
+                ? new OffloadedHandlerMethod(handlerMethod)
+                : super.createInvocableHandlerMethod(handlerMethod);
+    }
+
+    static boolean isOffloaded(HandlerMethod handlerMethod) {
+        if (!handlerMethod.getBeanType().getName().startsWith(APPLICATION_PACKAGE + ".")) {
+            return false;
+        }
+        ResolvableType returnType = ResolvableType.forMethodReturnType(handlerMethod.getMethod());
+        if (HttpEntity.class.isAssignableFrom(returnType.toClass())) {
+            returnType = returnType.getGeneric();
+        }
+        Class<?> bodyType = returnType.toClass();
+        return ASYNC_RETURN_TYPES.stream().noneMatch(asyncType -> asyncType.isAssignableFrom(bodyType));
+    }
+
+    private class OffloadedHandlerMethod extends ServletInvocableHandlerMethod {
+        OffloadedHandlerMethod(HandlerMethod handlerMethod) {
+            super(handlerMethod);
+        }
+
+        @Override
+        public Object invokeForRequest(NativeWebRequest request, ModelAndViewContainer mavContainer,
+                                       Object... providedArgs) throws Exception {
+            Object[] args = getMethodArgumentValues(request, mavContainer, providedArgs);
+            try {
+                return CompletableFuture.supplyAsync(() -> invoke(args), executor);
+            } catch (RejectedExecutionException e) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent requests", e);
+            }
+        }
+
+        private Object invoke(Object[] args) {
+            try {
+                return doInvoke(args);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }
+    }
+}
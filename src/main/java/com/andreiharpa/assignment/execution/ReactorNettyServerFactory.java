@@ -0,0 +1,19 @@
+package com.andreiharpa.assignment.execution;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serves reactive web applications from Reactor Netty
+ *
+ * Tomcat is on the classpath for the blocking controllers and Spring Boot would otherwise prefer it,
+ * running the reactive controllers through its servlet adapter instead of on the Netty event loops.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactorNettyServerFactory extends NettyReactiveWebServerFactory {
+}
@@ -0,0 +1,34 @@
+package com.andreiharpa.assignment.idempotency;
+
+import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.exceptions.IdempotencyKeyInProgressException;
+import com.andreiharpa.assignment.exceptions.IdempotencyKeyReusedException;
+
+import java.util.function.Supplier;
+
+/**
+ * Remembers the order created for each idempotency key, so that retried create requests
+ * return the original order instead of creating a new one
+ *
+ * @author Andrei Harpa
+ *
+ */
+public interface IdempotencyStore {
+    String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    int MAX_KEY_LENGTH = 255;
+
+    /**
+     * Returns the order created for the key, creating it if this is the first request with the key
+     * Concurrent requests with the same key wait for the first one and return its order.
+     * If the first request fails, nothing is remembered and the next request creates the order.
+     *
+     * @param key the client supplied idempotency key
+     * @param createOrderDto the create request, a key may only be reused for an equal request
+     * @param create creates the order
+     * @return the {@link OrderDto} created for the key
+     * @throws IdempotencyKeyReusedException if the key was used for a different request
+     * @throws IdempotencyKeyInProgressException if the first request did not complete in time
+     */
+    OrderDto createOnce(String key, CreateOrderDto createOrderDto, Supplier<OrderDto> create);
+}
@@ -0,0 +1,91 @@
+package com.andreiharpa.assignment.idempotency;
+
+import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.exceptions.IdempotencyKeyInProgressException;
+import com.andreiharpa.assignment.exceptions.IdempotencyKeyReusedException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * {@link IdempotencyStore} keeping the keys of this instance in a bounded, expiring in-memory cache
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "orders.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+    private final Cache<String, Entry> entries;
+
+    private final Duration waitTimeout;
+
+    public InMemoryIdempotencyStore(@Value("${orders.idempotency.maximum-size:100000}") long maximumSize,
+                                    @Value("${orders.idempotency.ttl:24h}") Duration ttl,
+                                    @Value("${orders.idempotency.wait-timeout:10s}") Duration waitTimeout) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.waitTimeout = waitTimeout;
+    }
+
+    @Override
+    public OrderDto createOnce(String key, CreateOrderDto createOrderDto, Supplier<OrderDto> create) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            Entry entry = new Entry(createOrderDto, new CompletableFuture<>());
+            Entry existing = entries.asMap().putIfAbsent(key, entry);
+            if (existing == null) {
+                return complete(key, entry, create);
+            }
+            if (!existing.request.equals(createOrderDto)) {
+                throw new IdempotencyKeyReusedException(
+                        String.format("Idempotency key: %s was already used for a different request", key));
+            }
+            try {
+                return existing.order.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                // The first request failed and released the key, try to create the order again
+            } catch (TimeoutException e) {
+                throw new IdempotencyKeyInProgressException(
+                        String.format("Request with idempotency key: %s is still in progress", key));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyKeyInProgressException(
+                        String.format("Interrupted while waiting for idempotency key: %s", key));
+            }
+        }
+    }
+
+    private OrderDto complete(String key, Entry entry, Supplier<OrderDto> create) {
+        try {
+            OrderDto orderDto = create.get();
+            entry.order.complete(orderDto);
+            return orderDto;
+        } catch (Throwable e) {
+            // Errors release the key as well, otherwise retries would wait for it until it expires
+            entries.asMap().remove(key, entry);
+            entry.order.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final CreateOrderDto request;
+
+        private final CompletableFuture<OrderDto> order;
+    }
+}
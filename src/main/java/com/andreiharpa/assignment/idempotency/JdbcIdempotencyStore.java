@@ -0,0 +1,228 @@
+package com.andreiharpa.assignment.idempotency;
+
+import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.exceptions.IdempotencyKeyInProgressException;
+import com.andreiharpa.assignment.exceptions.IdempotencyKeyReusedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * {@link IdempotencyStore} keeping the keys in the idempotency_keys table, shared by all instances
+ *
+ * The primary key on the idempotency key elects the request that creates the order, the others poll
+ * the row until the order is stored. The order and the stored response commit in one transaction, so an
+ * order is never created without its response. A claim without a response older than the claim lease was
+ * abandoned by a failed instance and is taken over. The lease must outlast the slowest create, otherwise a
+ * retry takes over a request that is still running. Expired rows are ignored and purged periodically.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "orders.idempotency.store", havingValue = "jdbc")
+@Log4j2
+public class JdbcIdempotencyStore implements IdempotencyStore {
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration ttl;
+
+    private final Duration waitTimeout;
+
+    private final Duration claimLease;
+
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                @Value("${orders.idempotency.ttl:24h}") Duration ttl,
+                                @Value("${orders.idempotency.wait-timeout:10s}") Duration waitTimeout,
+                                @Value("${orders.idempotency.claim-lease:5m}") Duration claimLease) {
+        if (claimLease.compareTo(waitTimeout) < 0) {
+            throw new IllegalStateException(String.format(
+                    "orders.idempotency.claim-lease (%s) must not be shorter than orders.idempotency.wait-timeout (%s)",
+                    claimLease, waitTimeout));
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.claimLease = claimLease;
+    }
+
+    @Override
+    public OrderDto createOnce(String key, CreateOrderDto createOrderDto, Supplier<OrderDto> create) {
+        String requestHash = hash(createOrderDto);
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            Timestamp claimedAt = now();
+            try {
+                jdbcTemplate.update("insert into idempotency_keys (idempotency_key, request_hash, created_at) "
+                        + "values (?, ?, ?)", key, requestHash, claimedAt);
+                return complete(key, claimedAt, create);
+            } catch (DuplicateKeyException e) {
+                StoredKey storedKey = findKey(key, requestHash);
+                if (storedKey != null && storedKey.response != null) {
+                    return readOrder(storedKey.response);
+                }
+                if (storedKey != null && storedKey.createdAt.before(abandonedBefore())
+                        && takeOver(key, storedKey.createdAt, claimedAt)) {
+                    log.warn("Took over abandoned idempotency key: {}", key);
+                    return complete(key, claimedAt, create);
+                }
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new IdempotencyKeyInProgressException(
+                        String.format("Request with idempotency key: %s is still in progress", key));
+            }
+            sleep(key);
+        }
+    }
+
+    /**
+     * Deletes the keys older than the configured ttl
+     */
+    @Scheduled(fixedDelayString = "${orders.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int purged = jdbcTemplate.update("delete from idempotency_keys where created_at < ?", expiredBefore());
+        log.debug("Purged {} expired idempotency keys", purged);
+    }
+
+    /**
+     * Creates the order and stores it as the response of the claim, in one transaction
+     * Nothing is stored if the claim was taken over meanwhile, and a failed create releases the claim.
+     */
+    private OrderDto complete(String key, Timestamp claimedAt, Supplier<OrderDto> create) {
+        try {
+            return transactionTemplate.execute(status -> {
+                OrderDto orderDto = create.get();
+                int stored = jdbcTemplate.update("update idempotency_keys set response = ? "
+                                + "where idempotency_key = ? and created_at = ? and response is null",
+                        writeOrder(orderDto), key, claimedAt);
+                if (stored == 0) {
+                    throw new IdempotencyKeyInProgressException(
+                            String.format("Request with idempotency key: %s was taken over by another request", key));
+                }
+                return orderDto;
+            });
+        } catch (Throwable e) {
+            jdbcTemplate.update("delete from idempotency_keys "
+                    + "where idempotency_key = ? and created_at = ? and response is null", key, claimedAt);
+            throw e;
+        }
+    }
+
+    /**
+     * Moves an abandoned claim to this request, false if another request stored or claimed it first
+     */
+    private boolean takeOver(String key, Timestamp abandonedAt, Timestamp claimedAt) {
+        return jdbcTemplate.update("update idempotency_keys set created_at = ? "
+                        + "where idempotency_key = ? and created_at = ? and response is null",
+                claimedAt, key, abandonedAt) == 1;
+    }
+
+    /**
+     * Reads the key, returns null if there is none or it expired
+     */
+    private StoredKey findKey(String key, String requestHash) {
+        List<StoredKey> storedKeys = jdbcTemplate.query(
+                "select request_hash, response, created_at from idempotency_keys where idempotency_key = ?",
+                (resultSet, rowNum) -> new StoredKey(resultSet.getString("request_hash"),
+                        resultSet.getString("response"), resultSet.getTimestamp("created_at")),
+                key);
+        if (storedKeys.isEmpty()) {
+            return null;
+        }
+        StoredKey storedKey = storedKeys.get(0);
+        if (storedKey.createdAt.before(expiredBefore())) {
+            jdbcTemplate.update("delete from idempotency_keys where idempotency_key = ? and created_at = ?",
+                    key, storedKey.createdAt);
+            return null;
+        }
+        if (!storedKey.requestHash.equals(requestHash)) {
+            throw new IdempotencyKeyReusedException(
+                    String.format("Idempotency key: %s was already used for a different request", key));
+        }
+        return storedKey;
+    }
+
+    private OrderDto readOrder(String response) {
+        try {
+            return objectMapper.readValue(response, OrderDto.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String writeOrder(OrderDto orderDto) {
+        try {
+            return objectMapper.writeValueAsString(orderDto);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String hash(CreateOrderDto createOrderDto) {
+        try {
+            return DigestUtils.md5DigestAsHex(objectMapper.writeValueAsString(createOrderDto)
+                    .getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Timestamp expiredBefore() {
+        return new Timestamp(System.currentTimeMillis() - ttl.toMillis());
+    }
+
+    private Timestamp abandonedBefore() {
+        return new Timestamp(System.currentTimeMillis() - claimLease.toMillis());
+    }
+
+    private static Timestamp now() {
+        return new Timestamp(System.currentTimeMillis());
+    }
+
+    private static void sleep(String key) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException(
+                    String.format("Interrupted while waiting for idempotency key: %s", key));
+        }
+    }
+
+    @AllArgsConstructor
+    private static class StoredKey {
+        private final String requestHash;
+
+        private final String response;
+
+        private final Timestamp createdAt;
+    }
+}
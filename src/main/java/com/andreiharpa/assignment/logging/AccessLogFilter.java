@@ -0,0 +1,166 @@
+package com.andreiharpa.assignment.logging;
+
+import com.andreiharpa.assignment.utils.NdjsonWriter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes one summary record per request (method, uri, status and latency) to the "access" logger
+ *
+ * The response payload is appended to a sample of the records when access-log.payload.enabled is set,
+ * streamed (newline delimited json) responses are never captured. Asynchronously handled requests are logged
+ * once they complete, their payload is captured on the async dispatch that writes the response.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Log4j2(topic = AccessLogFilter.LOGGER_NAME)
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AccessLogFilter extends OncePerRequestFilter {
+    public static final String LOGGER_NAME = "access";
+    private static final String PAYLOAD_ATTRIBUTE = AccessLogFilter.class.getName() + ".payload";
+
+    private final boolean enabled;
+
+    private final double payloadSampleRate;
+
+    private final int payloadMaxLength;
+
+    public AccessLogFilter(@Value("${access-log.enabled:true}") boolean enabled,
+                           @Value("${access-log.payload.enabled:false}") boolean payloadEnabled,
+                           @Value("${access-log.payload.sample-rate:0.01}") double payloadSampleRate,
+                           @Value("${access-log.payload.max-length:2048}") int payloadMaxLength) {
+        this.enabled = enabled;
+        this.payloadSampleRate = payloadEnabled ? payloadSampleRate : 0;
+        this.payloadMaxLength = payloadMaxLength;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !log.isInfoEnabled();
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            doFilterAsyncDispatch(request, response, filterChain);
+            return;
+        }
+        long startTime = System.nanoTime();
+        ContentCachingResponseWrapper payloadCapture = samplePayload(request)
+                ? new ContentCachingResponseWrapper(response) : null;
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, payloadCapture != null ? payloadCapture : response);
+            failed = false;
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncCompletionListener(request, response, startTime));
+            } else {
+                logRequest(request, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus(),
+                        startTime, payloadCapture != null ? getPayload(payloadCapture) : null);
+                if (payloadCapture != null) {
+                    payloadCapture.copyBodyToResponse();
+                }
+            }
+        }
+    }
+
+    private void doFilterAsyncDispatch(HttpServletRequest request, HttpServletResponse response,
+                                       FilterChain filterChain) throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // The response handed to the async dispatch is the one wrapped by the initial dispatch
+            ContentCachingResponseWrapper payloadCapture =
+                    WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+            if (payloadCapture != null && !request.isAsyncStarted()) {
+                request.setAttribute(PAYLOAD_ATTRIBUTE, getPayload(payloadCapture));
+                payloadCapture.copyBodyToResponse();
+            }
+        }
+    }
+
+    private boolean samplePayload(HttpServletRequest request) {
+        if (payloadSampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= payloadSampleRate) {
+            return false;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept == null || !accept.contains(NdjsonWriter.APPLICATION_NDJSON_VALUE);
+    }
+
+    private void logRequest(HttpServletRequest request, int status, long startTime, String payload) {
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        String uri = request.getQueryString() == null
+                ? request.getRequestURI() : request.getRequestURI() + "?" + request.getQueryString();
+        if (payload == null) {
+            log.info("method={} uri={} status={} latencyMs={}", request.getMethod(), uri, status, latencyMillis);
+        } else {
+            log.info("method={} uri={} status={} latencyMs={} payload={}", request.getMethod(), uri, status,
+                    latencyMillis, payload);
+        }
+    }
+
+    private String getPayload(ContentCachingResponseWrapper payloadCapture) {
+        byte[] payload = payloadCapture.getContentAsByteArray();
+        int length = Math.min(payload.length, payloadMaxLength);
+        String text = new String(payload, 0, length, StandardCharsets.UTF_8);
+        return length < payload.length ? text + "...(" + payload.length + " bytes)" : text;
+    }
+
+    private class AsyncCompletionListener implements AsyncListener {
+        private final HttpServletRequest request;
+
+        private final HttpServletResponse response;
+
+        private final long startTime;
+
+        AsyncCompletionListener(HttpServletRequest request, HttpServletResponse response, long startTime) {
+            this.request = request;
+            this.response = response;
+            this.startTime = startTime;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            logRequest(request, response.getStatus(), startTime, (String) request.getAttribute(PAYLOAD_ATTRIBUTE));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
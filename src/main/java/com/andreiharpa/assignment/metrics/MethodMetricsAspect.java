@@ -0,0 +1,78 @@
+package com.andreiharpa.assignment.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every public service and repository method and counts the exceptions thrown by services
+ *
+ * Timers are tagged with the class, method and exception (or "none"), their percentiles and histograms
+ * are configured through the management.metrics.distribution properties.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Aspect
+@Component
+public class MethodMetricsAspect {
+    public static final String SERVICE_TIMER = "service.calls";
+    public static final String REPOSITORY_TIMER = "repository.calls";
+    public static final String SERVICE_EXCEPTION_COUNTER = "service.exceptions";
+
+    private static final String NO_EXCEPTION = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Class<?>, String> classNames = new ConcurrentHashMap<>();
+
+    public MethodMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Reactive services return before their work runs, they are only covered by http.server.requests
+    @Around("execution(public !org.reactivestreams.Publisher+ com.andreiharpa.assignment.services..*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        String className = classNames.computeIfAbsent(joinPoint.getTarget().getClass(),
+                type -> ClassUtils.getUserClass(type).getSimpleName());
+        try {
+            return time(SERVICE_TIMER, className, joinPoint);
+        } catch (Throwable e) {
+            meterRegistry.counter(SERVICE_EXCEPTION_COUNTER,
+                    "class", className, "exception", e.getClass().getSimpleName()).increment();
+            throw e;
+        }
+    }
+
+    @Around("execution(public * org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        // The target is the shared Spring Data implementation, the proxied interface names the repository
+        String className = classNames.computeIfAbsent(joinPoint.getThis().getClass(),
+                type -> AopProxyUtils.proxiedUserInterfaces(joinPoint.getThis())[0].getSimpleName());
+        return time(REPOSITORY_TIMER, className, joinPoint);
+    }
+
+    private Object time(String name, String className, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = NO_EXCEPTION;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer(name,
+                    "class", className,
+                    "method", joinPoint.getSignature().getName(),
+                    "exception", exception));
+        }
+    }
+}
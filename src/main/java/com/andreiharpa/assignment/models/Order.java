@@ -1,22 +1,28 @@
 package com.andreiharpa.assignment.models;
 
 
+import com.andreiharpa.assignment.utils.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
 import javax.persistence.OneToMany;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
-import java.math.BigDecimal;
+import javax.persistence.Transient;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
@@ -26,8 +32,8 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "orders")
-public class Order {
+@Table(name = "orders", indexes = @Index(name = "idx_orders_timestamp_id", columnList = "timestamp, id"))
+public class Order implements Persistable<UUID> {
     @Id
     @Column(nullable = false)
     private UUID id;
@@ -35,12 +41,39 @@ public class Order {
     @Column(nullable = false)
     private String customerEmail;
 
-    private BigDecimal totalPrice;
+    private Money totalPrice;
 
     @CreationTimestamp
-    @Temporal(TemporalType.DATE)
+    @Temporal(TemporalType.TIMESTAMP)
     private Date timestamp;
 
-    @OneToMany(targetEntity = OrderItem.class, cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    /**
+     * Mapped to the order_id foreign key of the order items instead of a join table
+     * Not nullable and not updatable, so Hibernate writes the foreign key with the order item insert
+     * instead of updating every order item once the order is inserted
+     * Lazy, the repository methods that need the order items fetch them explicitly with an entity graph
+     */
+    @OneToMany(targetEntity = OrderItem.class, cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false, updatable = false)
     private List<OrderItem> orderItems;
+
+    /**
+     * Orders get their id assigned before saving, so Spring Data cannot tell new orders apart by id.
+     * Tracking it here lets save() persist new orders instead of merging them, which would select the
+     * order and reload every referenced product.
+     */
+    @Transient
+    @Builder.Default
+    private boolean newOrder = true;
+
+    @Override
+    public boolean isNew() {
+        return newOrder;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newOrder = false;
+    }
 }
@@ -1,5 +1,6 @@
 package com.andreiharpa.assignment.models;
 
+import com.andreiharpa.assignment.utils.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -11,25 +12,50 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
-import java.math.BigDecimal;
+import java.util.UUID;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = @Index(name = "idx_order_items_order_id", columnList = "order_id"))
 public class OrderItem {
+    public static final String ID_SEQUENCE = "order_items_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Ids are drawn from a pooled sequence instead of IDENTITY, so Hibernate knows them before inserting
+     * and can send the order items of an order as JDBC batches
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
-    private BigDecimal price;
+    /**
+     * The unit price, the line amounts to price × quantity
+     */
+    private Money price;
+
+    @Builder.Default
+    private int quantity = 1;
+
+    /**
+     * The product foreign key is written from this column, so new order items only need the product id.
+     * Referencing (possibly cached, detached) {@link Product} instances would make Hibernate select each
+     * of them on persist to check whether they are transient.
+     */
+    @Column(name = "product_id")
+    private UUID productId;
 
     @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", insertable = false, updatable = false)
     Product product;
 }
@@ -0,0 +1,76 @@
+package com.andreiharpa.assignment.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.Transient;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Denormalized, append-only copy of an order as returned by the api
+ *
+ * Order items keep the price they were bought at, so the serialized order never changes
+ * and interval queries can serve it from this single table.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "order_snapshots", indexes = @Index(name = "idx_order_snapshots_timestamp_id", columnList = "timestamp, id"))
+public class OrderSnapshot implements Persistable<UUID> {
+    @Id
+    @Column(nullable = false)
+    private UUID id;
+
+    @Column(nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date timestamp;
+
+    /**
+     * The {@link com.andreiharpa.assignment.dtos.OrderDto} json, stored as varchar rather than a lob
+     * so it is read inline with the row
+     */
+    @Column(nullable = false, length = Integer.MAX_VALUE)
+    private String payload;
+
+    /**
+     * Snapshots share the id of their order, see {@link Order#isNew()}
+     */
+    @Transient
+    @Builder.Default
+    private boolean newSnapshot = true;
+
+    /**
+     * A snapshot that was already saved, built by the queries that read snapshots without managing them
+     */
+    public OrderSnapshot(UUID id, Date timestamp, String payload) {
+        this(id, timestamp, payload, false);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newSnapshot;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newSnapshot = false;
+    }
+}
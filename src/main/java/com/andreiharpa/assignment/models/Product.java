@@ -1,5 +1,6 @@
 package com.andreiharpa.assignment.models;
 
+import com.andreiharpa.assignment.utils.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -9,7 +10,7 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.Table;
-import java.math.BigDecimal;
+import javax.persistence.Version;
 import java.util.UUID;
 
 @Data
@@ -27,5 +28,17 @@ public class Product {
     private String name;
 
     @Column(nullable = false)
-    private BigDecimal price;
+    private Money price;
+
+    /**
+     * Optimistic locking version, incremented by every update
+     * Null until the product is first persisted, which lets new products be inserted without a lookup by id
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    public Product(UUID id, String name, Money price) {
+        this(id, name, price, null);
+    }
 }
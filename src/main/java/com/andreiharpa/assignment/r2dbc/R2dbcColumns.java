@@ -0,0 +1,36 @@
+package com.andreiharpa.assignment.r2dbc;
+
+import io.r2dbc.spi.Row;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Conversions between the column values read and written over R2DBC and the types of the DTOs
+ *
+ * Ids are stored in binary columns and timestamps as local date-times in the default time zone,
+ * the same way Hibernate writes them for the entities.
+ *
+ * @author Andrei Harpa
+ *
+ */
+public final class R2dbcColumns {
+    private R2dbcColumns() {
+    }
+
+    public static UUID getUuid(Row row, String name) {
+        ByteBuffer bytes = ByteBuffer.wrap(row.get(name, byte[].class));
+        return new UUID(bytes.getLong(), bytes.getLong());
+    }
+
+    public static Date getDate(Row row, String name) {
+        return Date.from(row.get(name, LocalDateTime.class).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    public static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,69 @@
+package com.andreiharpa.assignment.r2dbc;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.r2dbc.connectionfactory.R2dbcTransactionManager;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Pooled R2DBC access to the database, enabled for reactive web applications
+ *
+ * The connection factory is not a bean: Spring Boot skips the JDBC datasource used by JPA and the schema
+ * migrations when one exists, and a second transaction manager bean would make @Transactional ambiguous.
+ * Connections are handed out on a dedicated thread per connection: the embedded H2 driver runs its statements
+ * synchronously on the subscribing thread, which would otherwise be the Netty event loop that released the
+ * previous connection, leaving the requests of that event loop unread while it serves every waiting query.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Log4j2
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class R2dbcDatabase implements DisposableBean {
+    private final Scheduler scheduler;
+
+    private final ConnectionPool connectionPool;
+
+    @Getter
+    private final DatabaseClient databaseClient;
+
+    @Getter
+    private final TransactionalOperator transactionalOperator;
+
+    public R2dbcDatabase(@Value("${reactive.r2dbc.url}") String url,
+                         @Value("${reactive.r2dbc.username:sa}") String username,
+                         @Value("${reactive.r2dbc.password:}") String password,
+                         @Value("${reactive.r2dbc.pool-size:10}") int poolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        scheduler = Schedulers.newParallel("r2dbc", poolSize);
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(poolSize)
+                .maxSize(poolSize)
+                .customizer(pool -> pool.acquisitionScheduler(scheduler))
+                .build());
+        databaseClient = DatabaseClient.create(connectionPool);
+        transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionPool));
+        log.info("R2DBC pool of {} connections to {}", poolSize, url);
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+        scheduler.dispose();
+    }
+}
@@ -1,20 +1,229 @@
 package com.andreiharpa.assignment.repositories;
 
 import com.andreiharpa.assignment.models.Order;
+import com.andreiharpa.assignment.utils.Money;
+import lombok.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Repository for {@link Order} entities
  *
+ * Order items are loaded lazily. Read methods returning entities fetch the order items together with their
+ * products in a single query, so mapping an {@link Order} to its dto does not trigger a query per order item.
+ * Header methods read the orders table only.
+ * Stats methods aggregate inside the database and return projections instead of entities.
+ *
  * @author Andrei Harpa
  *
  */
 @Repository
 public interface OrderRepository extends JpaRepository<Order, UUID> {
-    List<Order> findAllByTimestampBetween(Date startTime, Date endTime);
+    @Override
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.product"})
+    Optional<Order> findById(UUID id);
+
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.product"})
+    List<Order> findDistinctByIdIn(Collection<UUID> ids);
+
+    /**
+     * Retrieves the header of an order without touching its order items
+     */
+    @Query("select new " + OrderHeader.CLASS_NAME + "(o.id, o.customerEmail, o.timestamp, o.totalPrice) " +
+            "from Order o where o.id = :id")
+    Optional<OrderHeader> findHeaderById(@Param("id") UUID id);
+
+    /**
+     * Retrieves the headers of the first orders in a time interval, ordered by (timestamp, id)
+     */
+    @Query("select new " + OrderHeader.CLASS_NAME + "(o.id, o.customerEmail, o.timestamp, o.totalPrice) " +
+            "from Order o where o.timestamp between :startTime and :endTime " +
+            "order by o.timestamp, o.id")
+    List<OrderHeader> findHeadersByTimestampBetween(@Param("startTime") Date startTime,
+                                                    @Param("endTime") Date endTime,
+                                                    Pageable pageable);
+
+    /**
+     * Retrieves the headers of the orders in a time interval that come after the given (timestamp, id) key,
+     * ordered by (timestamp, id)
+     * See {@link OrderSnapshotRepository#findByTimestampBetweenAfter} for the timestamp >= afterTimestamp bound
+     */
+    @Query("select new " + OrderHeader.CLASS_NAME + "(o.id, o.customerEmail, o.timestamp, o.totalPrice) " +
+            "from Order o where o.timestamp between :startTime and :endTime " +
+            "and o.timestamp >= :afterTimestamp and (o.timestamp > :afterTimestamp or o.id > :afterId) " +
+            "order by o.timestamp, o.id")
+    List<OrderHeader> findHeadersByTimestampBetweenAfter(@Param("startTime") Date startTime,
+                                                         @Param("endTime") Date endTime,
+                                                         @Param("afterTimestamp") Date afterTimestamp,
+                                                         @Param("afterId") UUID afterId,
+                                                         Pageable pageable);
+
+    /**
+     * Counts the orders in a time interval and sums their total prices
+     */
+    @Query("select count(o) as orderCount, sum(o.totalPrice) as revenue from Order o " +
+            "where o.timestamp between :startTime and :endTime")
+    OrderTotals findTotalsByTimestampBetween(@Param("startTime") Date startTime,
+                                             @Param("endTime") Date endTime);
+
+    /**
+     * Counts the orders in a time interval and sums their total prices per day, ordered by day
+     */
+    @Query("select year(o.timestamp) as year, month(o.timestamp) as month, day(o.timestamp) as day, " +
+            "0 as hour, 0 as minute, count(o) as orderCount, sum(o.totalPrice) as revenue from Order o " +
+            "where o.timestamp between :startTime and :endTime " +
+            "group by year(o.timestamp), month(o.timestamp), day(o.timestamp) " +
+            "order by year(o.timestamp), month(o.timestamp), day(o.timestamp)")
+    List<PeriodTotals> findDailyTotalsByTimestampBetween(@Param("startTime") Date startTime,
+                                                         @Param("endTime") Date endTime,
+                                                         Pageable pageable);
+
+    /**
+     * Counts the orders in a time interval and sums their total prices per hour, ordered by hour
+     */
+    @Query("select year(o.timestamp) as year, month(o.timestamp) as month, day(o.timestamp) as day, " +
+            "hour(o.timestamp) as hour, 0 as minute, count(o) as orderCount, sum(o.totalPrice) as revenue from Order o " +
+            "where o.timestamp between :startTime and :endTime " +
+            "group by year(o.timestamp), month(o.timestamp), day(o.timestamp), hour(o.timestamp) " +
+            "order by year(o.timestamp), month(o.timestamp), day(o.timestamp), hour(o.timestamp)")
+    List<PeriodTotals> findHourlyTotalsByTimestampBetween(@Param("startTime") Date startTime,
+                                                          @Param("endTime") Date endTime,
+                                                          Pageable pageable);
+
+    /**
+     * Counts the orders in a time interval and sums their total prices per minute, ordered by minute
+     */
+    @Query("select year(o.timestamp) as year, month(o.timestamp) as month, day(o.timestamp) as day, " +
+            "hour(o.timestamp) as hour, minute(o.timestamp) as minute, count(o) as orderCount, " +
+            "sum(o.totalPrice) as revenue from Order o where o.timestamp between :startTime and :endTime " +
+            "group by year(o.timestamp), month(o.timestamp), day(o.timestamp), hour(o.timestamp), minute(o.timestamp) " +
+            "order by year(o.timestamp), month(o.timestamp), day(o.timestamp), hour(o.timestamp), minute(o.timestamp)")
+    List<PeriodTotals> findMinuteTotalsByTimestampBetween(@Param("startTime") Date startTime,
+                                                          @Param("endTime") Date endTime,
+                                                          Pageable pageable);
+
+    /**
+     * Counts the orders in a time interval and sums their total prices per customer,
+     * ordered by revenue, highest first
+     */
+    @Query("select o.customerEmail as customerEmail, count(o) as orderCount, sum(o.totalPrice) as revenue " +
+            "from Order o where o.timestamp between :startTime and :endTime " +
+            "group by o.customerEmail order by sum(o.totalPrice) desc, o.customerEmail")
+    List<CustomerTotals> findCustomerTotalsByTimestampBetween(@Param("startTime") Date startTime,
+                                                              @Param("endTime") Date endTime,
+                                                              Pageable pageable);
+
+    /**
+     * Sums the units sold per product by the orders in a time interval and their amounts,
+     * ordered by units sold, highest first
+     * The price is cast before multiplying, Hibernate would otherwise type the product as the integer quantity
+     */
+    @Query("select i.productId as productId, p.name as name, sum(i.quantity) as unitsSold, " +
+            "sum(cast(i.price as big_decimal) * i.quantity) as revenue " +
+            "from Order o join o.orderItems i join i.product p " +
+            "where o.timestamp between :startTime and :endTime " +
+            "group by i.productId, p.name " +
+            "order by sum(i.quantity) desc, sum(cast(i.price as big_decimal) * i.quantity) desc, i.productId")
+    List<ProductTotals> findProductTotalsByTimestampBetween(@Param("startTime") Date startTime,
+                                                            @Param("endTime") Date endTime,
+                                                            Pageable pageable);
+
+    /**
+     * Streams the timestamp and total price of the orders created since the given date
+     * Has to be consumed inside a transaction
+     */
+    @Query("select o.timestamp as timestamp, o.totalPrice as totalPrice from Order o where o.timestamp >= :since")
+    Stream<OrderAmount> streamAmountsByTimestampSince(@Param("since") Date since);
+
+    /**
+     * Streams the order timestamp, product, price and quantity of the order items of the orders created
+     * since the given date
+     * Has to be consumed inside a transaction
+     */
+    @Query("select o.timestamp as timestamp, i.productId as productId, p.name as name, i.price as price, " +
+            "i.quantity as quantity " +
+            "from Order o join o.orderItems i join i.product p where o.timestamp >= :since")
+    Stream<OrderItemAmount> streamItemAmountsByTimestampSince(@Param("since") Date since);
+
+    /**
+     * The columns of an order without its order items
+     * A class built by the query rather than an interface projection: the proxy and the tuple map behind
+     * an interface projection allocate more per row than the row itself.
+     */
+    @Value
+    class OrderHeader {
+        static final String CLASS_NAME = "com.andreiharpa.assignment.repositories.OrderRepository$OrderHeader";
+
+        UUID id;
+
+        String customerEmail;
+
+        Date timestamp;
+
+        Money totalPrice;
+    }
+
+    interface OrderTotals {
+        long getOrderCount();
+
+        /**
+         * Null when there are no orders
+         */
+        Money getRevenue();
+    }
+
+    interface PeriodTotals extends OrderTotals {
+        int getYear();
+
+        int getMonth();
+
+        int getDay();
+
+        int getHour();
+
+        int getMinute();
+    }
+
+    interface CustomerTotals extends OrderTotals {
+        String getCustomerEmail();
+    }
+
+    interface ProductTotals {
+        UUID getProductId();
+
+        String getName();
+
+        long getUnitsSold();
+
+        Money getRevenue();
+    }
+
+    interface OrderAmount {
+        Date getTimestamp();
+
+        Money getTotalPrice();
+    }
+
+    interface OrderItemAmount {
+        Date getTimestamp();
+
+        UUID getProductId();
+
+        String getName();
+
+        Money getPrice();
+
+        int getQuantity();
+    }
 }
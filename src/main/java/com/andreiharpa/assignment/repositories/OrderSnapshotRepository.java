@@ -0,0 +1,65 @@
+package com.andreiharpa.assignment.repositories;
+
+import com.andreiharpa.assignment.models.OrderSnapshot;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for {@link OrderSnapshot} entities
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Repository
+public interface OrderSnapshotRepository extends JpaRepository<OrderSnapshot, UUID> {
+    /**
+     * Retrieves the first snapshots in a time interval, ordered by (timestamp, id)
+     * The snapshots are built by the query, they are not managed by the persistence context
+     */
+    @Query("select new OrderSnapshot(s.id, s.timestamp, s.payload) from OrderSnapshot s " +
+            "where s.timestamp between :startTime and :endTime " +
+            "order by s.timestamp, s.id")
+    List<OrderSnapshot> findByTimestampBetween(@Param("startTime") Date startTime,
+                                               @Param("endTime") Date endTime,
+                                               Pageable pageable);
+
+    /**
+     * Retrieves the snapshots in a time interval that come after the given (timestamp, id) key,
+     * ordered by (timestamp, id)
+     * The timestamp >= afterTimestamp bound is implied by the key comparison, it lets the index scan start
+     * at the key instead of reading every earlier row of the interval again for each page
+     * The snapshots are built by the query, they are not managed by the persistence context
+     */
+    @Query("select new OrderSnapshot(s.id, s.timestamp, s.payload) from OrderSnapshot s " +
+            "where s.timestamp between :startTime and :endTime " +
+            "and s.timestamp >= :afterTimestamp and (s.timestamp > :afterTimestamp or s.id > :afterId) " +
+            "order by s.timestamp, s.id")
+    List<OrderSnapshot> findByTimestampBetweenAfter(@Param("startTime") Date startTime,
+                                                    @Param("endTime") Date endTime,
+                                                    @Param("afterTimestamp") Date afterTimestamp,
+                                                    @Param("afterId") UUID afterId,
+                                                    Pageable pageable);
+
+    /**
+     * Retrieves the ids of the first orders, by id, that have no snapshot yet
+     */
+    @Query("select o.id from Order o where not exists (select s.id from OrderSnapshot s where s.id = o.id) " +
+            "order by o.id")
+    List<UUID> findOrderIdsWithoutSnapshot(Pageable pageable);
+
+    /**
+     * Retrieves the ids of the orders after the given id, by id, that have no snapshot yet
+     * Each page starts at the last id of the previous one, so the orders already checked are not read again
+     */
+    @Query("select o.id from Order o where o.id > :afterId " +
+            "and not exists (select s.id from OrderSnapshot s where s.id = o.id) " +
+            "order by o.id")
+    List<UUID> findOrderIdsWithoutSnapshotAfter(@Param("afterId") UUID afterId, Pageable pageable);
+}
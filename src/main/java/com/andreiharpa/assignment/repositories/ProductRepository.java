@@ -1,10 +1,18 @@
 package com.andreiharpa.assignment.repositories;
 
 import com.andreiharpa.assignment.models.Product;
+import lombok.Value;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Repository for {@link Product} entities
@@ -14,4 +22,43 @@ import java.util.UUID;
  */
 @Repository
 public interface ProductRepository extends JpaRepository<Product, UUID> {
+    /**
+     * Streams all {@link Product} entities ordered by id, must be consumed inside a transaction
+     */
+    @Query("select p from Product p order by p.id")
+    @org.springframework.data.jpa.repository.QueryHints({
+            @QueryHint(name = QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = QueryHints.HINT_READONLY, value = "true")})
+    Stream<Product> streamAll();
+
+    /**
+     * Retrieves the version of a {@link Product} without loading the entity
+     */
+    @Query("select p.version from Product p where p.id = ?1")
+    Optional<Long> findVersionById(UUID id);
+
+    /**
+     * Retrieves the {@link Product} entities in a page ordered by id, without a count query
+     * The products are built by the query, they are not managed by the persistence context
+     */
+    @Query("select new Product(p.id, p.name, p.price, p.version) from Product p order by p.id")
+    List<Product> findUnmanaged(Pageable pageable);
+
+    /**
+     * Retrieves the id and version of the {@link Product} entities in a page ordered by id
+     */
+    @Query("select new " + ProductVersion.CLASS_NAME + "(p.id, p.version) from Product p order by p.id")
+    List<ProductVersion> findVersions(Pageable pageable);
+
+    /**
+     * Id and version of a {@link Product}, built by the query
+     */
+    @Value
+    class ProductVersion {
+        static final String CLASS_NAME = "com.andreiharpa.assignment.repositories.ProductRepository$ProductVersion";
+
+        UUID id;
+
+        long version;
+    }
 }
@@ -0,0 +1,351 @@
+package com.andreiharpa.assignment.rollups;
+
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderStatsDto;
+import com.andreiharpa.assignment.dtos.OrderStatsGroupDto;
+import com.andreiharpa.assignment.dtos.OrderStatsGrouping;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.dtos.ProductStatsDto;
+import com.andreiharpa.assignment.exceptions.OrderRollupsNotReadyException;
+import com.andreiharpa.assignment.exceptions.UnsupportedStatsGroupingException;
+import com.andreiharpa.assignment.repositories.OrderRepository;
+import com.andreiharpa.assignment.repositories.OrderRepository.OrderAmount;
+import com.andreiharpa.assignment.repositories.OrderRepository.OrderItemAmount;
+import com.andreiharpa.assignment.utils.Money;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory order count, revenue and product unit rollups per minute, hour and day
+ *
+ * Buckets are updated with {@link LongAdder} counters once the transaction creating an order commits, so
+ * concurrent creates never contend on a lock, and are rebuilt from the orders table in the background when the
+ * application starts. Until the rebuild completes the stats are not served.
+ * Revenue is counted in {@link Money} minor units. Buckets older than the retention of their granularity are evicted periodically.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Component
+@Log4j2
+public class OrderRollups implements SmartInitializingSingleton {
+    private static final DateTimeFormatter KEY_FORMATTER = DateTimeFormatter.ofPattern(OrderDto.TIMESTAMP_FORMAT);
+
+    private final OrderRepository orderRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean rebuildOnStartup;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final Map<OrderStatsGrouping, Rollup> rollups = new EnumMap<>(OrderStatsGrouping.class);
+
+    private final Map<UUID, String> productNames = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    public OrderRollups(OrderRepository orderRepository, PlatformTransactionManager transactionManager,
+                        @Value("${orders.rollups.rebuild-on-startup:true}") boolean rebuildOnStartup,
+                        @Value("${orders.rollups.minute-retention:2d}") Duration minuteRetention,
+                        @Value("${orders.rollups.hour-retention:31d}") Duration hourRetention,
+                        @Value("${orders.rollups.day-retention:366d}") Duration dayRetention) {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.ready = !rebuildOnStartup;
+        rollups.put(OrderStatsGrouping.MINUTE, new Rollup(ChronoUnit.MINUTES, minuteRetention));
+        rollups.put(OrderStatsGrouping.HOUR, new Rollup(ChronoUnit.HOURS, hourRetention));
+        rollups.put(OrderStatsGrouping.DAY, new Rollup(ChronoUnit.DAYS, dayRetention));
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (rebuildOnStartup) {
+            // Taken before the web server starts, every order created later is recorded when it commits
+            Date until = new Date();
+            Thread thread = new Thread(() -> rebuild(until), "order-rollups-rebuild");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Adds the orders created before a date to the rollups, within the longest retention, then serves the stats
+     * Later orders are left out, they are recorded as they are created
+     *
+     * @param until the end of the rebuilt interval, exclusive
+     */
+    public void rebuild(Date until) {
+        long maxRetentionMillis = rollups.values().stream()
+                .mapToLong(rollup -> rollup.retention.toMillis())
+                .max()
+                .orElse(0);
+        Date since = new Date(until.getTime() - maxRetentionMillis);
+
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<OrderAmount> amounts = orderRepository.streamAmountsByTimestampSince(since)) {
+                    amounts.filter(amount -> amount.getTimestamp().before(until))
+                            .forEach(amount -> addOrder(amount.getTimestamp(), amount.getTotalPrice()));
+                }
+                try (Stream<OrderItemAmount> itemAmounts = orderRepository.streamItemAmountsByTimestampSince(since)) {
+                    itemAmounts.filter(itemAmount -> itemAmount.getTimestamp().before(until))
+                            .forEach(itemAmount -> addItem(itemAmount.getTimestamp(), itemAmount.getProductId(),
+                                    itemAmount.getName(), itemAmount.getPrice(), itemAmount.getQuantity()));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Could not rebuild the order rollups, the live stats stay unavailable", e);
+            return;
+        }
+        ready = true;
+        log.info("Rebuilt order rollups in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Adds an order to the rollups once the current transaction commits, or immediately if there is none
+     *
+     * @param orderDto the created {@link OrderDto}
+     */
+    public void record(OrderDto orderDto) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    add(orderDto);
+                }
+            });
+        } else {
+            add(orderDto);
+        }
+    }
+
+    /**
+     * Reads the stats of a time interval from the rollups
+     * Every bucket overlapping the interval is counted, so the totals are aligned to whole minutes, hours or days
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @param groupBy the bucket granularity, orders cannot be grouped by customer
+     * @param groupLimit the maximum number of groups returned
+     * @param topProducts the number of best selling products returned, 0 to skip them
+     * @return {@link OrderStatsDto} with the totals, the groups and the best selling products
+     * @throws OrderRollupsNotReadyException while the rollups are rebuilt
+     */
+    public OrderStatsDto getStats(Date startTime, Date endTime, OrderStatsGrouping groupBy,
+                                  int groupLimit, int topProducts) {
+        if (!ready) {
+            throw new OrderRollupsNotReadyException("The order rollups are still being rebuilt");
+        }
+        Rollup rollup = rollups.get(groupBy);
+        if (rollup == null) {
+            throw new UnsupportedStatsGroupingException(
+                    String.format("Order rollups cannot be grouped by %s", groupBy));
+        }
+
+        long orderCount = 0;
+        long revenueCents = 0;
+        List<OrderStatsGroupDto> groups = new ArrayList<>();
+        Map<UUID, long[]> products = new HashMap<>();
+        Map<Long, Bucket> buckets = rollup.buckets.subMap(
+                truncate(startTime.getTime(), rollup.unit), true, endTime.getTime(), true);
+        for (Map.Entry<Long, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            long bucketOrderCount = bucket.orderCount.sum();
+            long bucketRevenueCents = bucket.revenueCents.sum();
+            orderCount += bucketOrderCount;
+            revenueCents += bucketRevenueCents;
+            if (groups.size() < groupLimit) {
+                groups.add(OrderStatsGroupDto.builder()
+                        .key(formatKey(entry.getKey()))
+                        .orderCount(bucketOrderCount)
+                        .revenue(Money.ofMinorUnits(bucketRevenueCents))
+                        .averageOrderValue(getAverage(bucketRevenueCents, bucketOrderCount))
+                        .build());
+            }
+            if (topProducts > 0) {
+                bucket.products.forEach((productId, counters) -> {
+                    long[] totals = products.computeIfAbsent(productId, id -> new long[2]);
+                    totals[0] += counters.unitsSold.sum();
+                    totals[1] += counters.revenueCents.sum();
+                });
+            }
+        }
+
+        return OrderStatsDto.builder()
+                .orderCount(orderCount)
+                .revenue(Money.ofMinorUnits(revenueCents))
+                .averageOrderValue(getAverage(revenueCents, orderCount))
+                .groupBy(groupBy)
+                .groups(groups)
+                .topProducts(getTopProducts(products, topProducts))
+                .build();
+    }
+
+    /**
+     * Drops the buckets older than the retention of their granularity
+     */
+    @Scheduled(fixedDelayString = "${orders.rollups.eviction-interval:PT1M}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        rollups.values().forEach(rollup -> rollup.buckets.headMap(now - rollup.retention.toMillis()).clear());
+    }
+
+    void add(OrderDto orderDto) {
+        long cents = orderDto.getTotalPrice().getMinorUnits();
+        for (Rollup rollup : rollups.values()) {
+            // Resolve the bucket once per granularity and order, not once per order item
+            Bucket bucket = getBucket(rollup, orderDto.getTimestamp());
+            if (bucket != null) {
+                bucket.addOrder(cents);
+                for (ProductDto productDto : orderDto.getProducts()) {
+                    int quantity = productDto.getQuantity() == null ? 1 : productDto.getQuantity();
+                    bucket.addItem(productDto.getId(), quantity, productDto.getPrice().times(quantity).getMinorUnits());
+                }
+            }
+        }
+        for (ProductDto productDto : orderDto.getProducts()) {
+            putProductName(productDto.getId(), productDto.getName());
+        }
+    }
+
+    private void addOrder(Date timestamp, Money totalPrice) {
+        long cents = totalPrice.getMinorUnits();
+        for (Rollup rollup : rollups.values()) {
+            Bucket bucket = getBucket(rollup, timestamp);
+            if (bucket != null) {
+                bucket.addOrder(cents);
+            }
+        }
+    }
+
+    private void addItem(Date timestamp, UUID productId, String name, Money price, int quantity) {
+        putProductName(productId, name);
+        long cents = price.times(quantity).getMinorUnits();
+        for (Rollup rollup : rollups.values()) {
+            Bucket bucket = getBucket(rollup, timestamp);
+            if (bucket != null) {
+                bucket.addItem(productId, quantity, cents);
+            }
+        }
+    }
+
+    private void putProductName(UUID productId, String name) {
+        // Only write on a change, so concurrent creates of the same products do not contend on the map
+        if (!name.equals(productNames.get(productId))) {
+            productNames.put(productId, name);
+        }
+    }
+
+    private Bucket getBucket(Rollup rollup, Date timestamp) {
+        long bucketStart = truncate(timestamp.getTime(), rollup.unit);
+        if (bucketStart < System.currentTimeMillis() - rollup.retention.toMillis()) {
+            return null;
+        }
+        Bucket bucket = rollup.buckets.get(bucketStart);
+        return bucket != null ? bucket : rollup.buckets.computeIfAbsent(bucketStart, start -> new Bucket());
+    }
+
+    private List<ProductStatsDto> getTopProducts(Map<UUID, long[]> products, int topProducts) {
+        return products.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<UUID, long[]>>comparingLong(entry -> entry.getValue()[0])
+                        .thenComparingLong(entry -> entry.getValue()[1])
+                        .reversed())
+                .limit(topProducts)
+                .map(entry -> ProductStatsDto.builder()
+                        .id(entry.getKey())
+                        .name(productNames.get(entry.getKey()))
+                        .unitsSold(entry.getValue()[0])
+                        .revenue(Money.ofMinorUnits(entry.getValue()[1]))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private long truncate(long epochMillis, ChronoUnit unit) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone)
+                .truncatedTo(unit)
+                .atZone(zone)
+                .toInstant()
+                .toEpochMilli();
+    }
+
+    private String formatKey(long bucketStart) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(bucketStart), zone).format(KEY_FORMATTER);
+    }
+
+    private static Money getAverage(long revenueCents, long orderCount) {
+        return orderCount == 0 ? Money.ZERO : Money.ofMinorUnits(revenueCents).dividedBy(orderCount);
+    }
+
+    private static final class Rollup {
+        private final ChronoUnit unit;
+
+        private final Duration retention;
+
+        private final ConcurrentSkipListMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+
+        private Rollup(ChronoUnit unit, Duration retention) {
+            this.unit = unit;
+            this.retention = retention;
+        }
+    }
+
+    private static final class Bucket {
+        private final LongAdder orderCount = new LongAdder();
+
+        private final LongAdder revenueCents = new LongAdder();
+
+        private final Map<UUID, ProductCounters> products = new ConcurrentHashMap<>();
+
+        private void addOrder(long cents) {
+            orderCount.increment();
+            revenueCents.add(cents);
+        }
+
+        private void addItem(UUID productId, int quantity, long cents) {
+            ProductCounters counters = products.get(productId);
+            if (counters == null) {
+                counters = products.computeIfAbsent(productId, id -> new ProductCounters());
+            }
+            counters.unitsSold.add(quantity);
+            counters.revenueCents.add(cents);
+        }
+    }
+
+    private static final class ProductCounters {
+        private final LongAdder unitsSold = new LongAdder();
+
+        private final LongAdder revenueCents = new LongAdder();
+    }
+}
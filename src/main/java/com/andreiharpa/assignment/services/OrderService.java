@@ -1,12 +1,15 @@
 package com.andreiharpa.assignment.services;
 
 import com.andreiharpa.assignment.controllers.OrderController;
+import com.andreiharpa.assignment.dtos.BatchOrderResultDto;
 import com.andreiharpa.assignment.dtos.CreateOrderDto;
 import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderPageDto;
 
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Service used by {@link OrderController}
@@ -18,7 +21,74 @@ public interface OrderService {
 
     OrderDto create(CreateOrderDto createOrderDto);
 
+    /**
+     * Creates several orders in a single transaction, resolving all of their products with one lookup
+     * Orders referencing unknown products are reported in their result instead of failing the whole batch
+     *
+     * @param createOrderDtos the orders to create
+     * @return one {@link BatchOrderResultDto} per requested order, in request order
+     */
+    List<BatchOrderResultDto> createAll(List<CreateOrderDto> createOrderDtos);
+
     OrderDto getById(UUID id);
 
-    List<OrderDto> getAllInTimeInterval(Date startTime, Date endTime);
+    /**
+     * Retrieves the summary of an order, its header without the products, reading the orders table only
+     *
+     * @param id the order id
+     * @return {@link OrderDto} without products
+     */
+    OrderDto getSummaryById(UUID id);
+
+    /**
+     * Retrieves a page of orders in a time interval, ordered by (timestamp, id)
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of orders in the page
+     * @return {@link OrderPageDto} containing the orders and the cursor for the next page, if any
+     */
+    OrderPageDto getPageInTimeInterval(Date startTime, Date endTime, String cursor, int limit);
+
+    /**
+     * Retrieves a page of order summaries in a time interval, ordered by (timestamp, id)
+     * Reads the orders table only, the cursors are interchangeable with {@link #getPageInTimeInterval}
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of orders in the page
+     * @return {@link OrderPageDto} containing the orders without products and the cursor for the next page, if any
+     */
+    OrderPageDto getSummaryPageInTimeInterval(Date startTime, Date endTime, String cursor, int limit);
+
+    /**
+     * Passes every order in a time interval to the consumer, ordered by (timestamp, id),
+     * reading them from the database in bounded chunks
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @param consumer receives each {@link OrderDto}
+     */
+    void forEachInTimeInterval(Date startTime, Date endTime, Consumer<OrderDto> consumer);
+
+    /**
+     * Passes the summary of every order in a time interval to the consumer, ordered by (timestamp, id),
+     * reading the orders table only, in bounded chunks
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @param consumer receives each {@link OrderDto}, without products
+     */
+    void forEachSummaryInTimeInterval(Date startTime, Date endTime, Consumer<OrderDto> consumer);
+
+    /**
+     * Writes the snapshots read by the interval queries for orders created before they existed
+     *
+     * @param afterId only orders with a greater id are snapshotted, null to start with the first order
+     * @param limit the maximum number of orders to snapshot in this call
+     * @return the ids of the orders snapshotted, by id, fewer than limit once every order has a snapshot
+     */
+    List<UUID> backfillSnapshots(UUID afterId, int limit);
 }
@@ -1,27 +1,51 @@
 package com.andreiharpa.assignment.services;
 
+import com.andreiharpa.assignment.cache.ProductCache;
+import com.andreiharpa.assignment.dtos.BatchOrderResultDto;
 import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.CreateOrderLineDto;
 import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderPageDto;
 import com.andreiharpa.assignment.dtos.ProductDto;
 import com.andreiharpa.assignment.exceptions.OrderNotFoundException;
 import com.andreiharpa.assignment.exceptions.OrderProductNotFoundException;
+import com.andreiharpa.assignment.exceptions.OrderQuantityTooLargeException;
+import com.andreiharpa.assignment.exceptions.OrderTotalTooLargeException;
 import com.andreiharpa.assignment.models.Order;
 import com.andreiharpa.assignment.models.OrderItem;
+import com.andreiharpa.assignment.models.OrderSnapshot;
 import com.andreiharpa.assignment.models.Product;
 import com.andreiharpa.assignment.repositories.OrderRepository;
+import com.andreiharpa.assignment.repositories.OrderSnapshotRepository;
 import com.andreiharpa.assignment.repositories.ProductRepository;
+import com.andreiharpa.assignment.rollups.OrderRollups;
+import com.andreiharpa.assignment.utils.Money;
+import com.andreiharpa.assignment.utils.OrderCursor;
 import com.andreiharpa.assignment.utils.UuidGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Default implementation for {@link OrderService}
@@ -31,79 +55,334 @@ import java.util.stream.Collectors;
  */
 @Service
 public class OrderServiceImpl implements OrderService{
+    static final int STREAM_CHUNK_SIZE = 500;
+
     @Autowired
     UuidGenerator uuidGenerator;
 
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderSnapshotRepository orderSnapshotRepository;
+
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderRollups orderRollups;
+
+    @Transactional(readOnly = true)
     public OrderDto getById(UUID orderId) {
         Order order = findOrderById(orderId);
         return toOrderDto(order);
     }
 
+    @Transactional(readOnly = true)
+    public OrderDto getSummaryById(UUID orderId) {
+        return orderRepository.findHeaderById(orderId)
+                .map(OrderServiceImpl::toOrderDto)
+                .orElseThrow(() -> orderNotFound(orderId));
+    }
+
+    @Transactional
     public OrderDto create(CreateOrderDto createOrderDto) {
-        List<Product> orderProducts = getOrderProducts(createOrderDto.getProductIds());
-        List<OrderItem> orderItems = orderProducts.stream()
-                .map(product -> OrderItem.builder()
-                        .price(product.getPrice())
-                        .product(product)
-                        .build())
-                .collect(Collectors.toList());
+        Map<UUID, Integer> quantities = getOrderQuantities(createOrderDto);
+        Map<UUID, Product> orderProducts = getOrderProducts(quantities.keySet(), findProducts(quantities.keySet()));
+        Order order = toOrder(createOrderDto, orderProducts, quantities);
+        OrderDto orderDto = toOrderDto(orderRepository.saveAndFlush(order),
+                orderItem -> orderProducts.get(orderItem.getProductId()));
+        orderSnapshotRepository.save(toOrderSnapshot(orderDto));
+        orderRollups.record(orderDto);
+        return orderDto;
+    }
 
-        BigDecimal orderTotalPrice = orderItems.stream()
-                .map(OrderItem::getPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    @Transactional
+    public List<BatchOrderResultDto> createAll(List<CreateOrderDto> createOrderDtos) {
+        Set<UUID> allProductIds = createOrderDtos.stream()
+                .flatMap(OrderServiceImpl::getOrderProductIds)
+                .collect(Collectors.toSet());
+        Map<UUID, Product> foundProducts = findProducts(allProductIds);
 
-        Order order = Order.builder()
-                .id(uuidGenerator.generate())
-                .totalPrice(orderTotalPrice)
-                .customerEmail(createOrderDto.getCustomerEmail())
-                .orderItems(orderItems)
+        List<BatchOrderResultDto> results = new ArrayList<>(createOrderDtos.size());
+        List<Order> orders = new ArrayList<>(createOrderDtos.size());
+        List<OrderDto> orderDtos = new ArrayList<>(createOrderDtos.size());
+        for (int index = 0; index < createOrderDtos.size(); index++) {
+            CreateOrderDto createOrderDto = createOrderDtos.get(index);
+            try {
+                Map<UUID, Integer> quantities = getOrderQuantities(createOrderDto);
+                Map<UUID, Product> orderProducts = getOrderProducts(quantities.keySet(), foundProducts);
+                Order order = toOrder(createOrderDto, orderProducts, quantities);
+                OrderDto orderDto = toOrderDto(order, orderItem -> orderProducts.get(orderItem.getProductId()));
+                orders.add(order);
+                orderDtos.add(orderDto);
+                results.add(BatchOrderResultDto.builder()
+                        .index(index)
+                        .order(orderDto)
+                        .build());
+            } catch (OrderProductNotFoundException | OrderQuantityTooLargeException | OrderTotalTooLargeException e) {
+                results.add(BatchOrderResultDto.builder()
+                        .index(index)
+                        .error(e.getMessage())
+                        .build());
+            }
+        }
+
+        orderRepository.saveAll(orders);
+        orderRepository.flush();
+        // The creation timestamps are only assigned when the orders get flushed
+        for (int i = 0; i < orders.size(); i++) {
+            orderDtos.get(i).setTimestamp(orders.get(i).getTimestamp());
+        }
+        orderSnapshotRepository.saveAll(orderDtos.stream().map(this::toOrderSnapshot).collect(Collectors.toList()));
+        orderDtos.forEach(orderRollups::record);
+        return results;
+    }
+
+    @Transactional(readOnly = true)
+    public OrderPageDto getPageInTimeInterval(Date startTime, Date endTime, String cursor, int limit) {
+        OrderCursor after = cursor == null ? null : OrderCursor.decode(cursor);
+        List<OrderSnapshot> snapshots = findOrderSnapshots(startTime, endTime, after, limit + 1);
+        boolean hasNextPage = snapshots.size() > limit;
+        if (hasNextPage) {
+            snapshots = snapshots.subList(0, limit);
+        }
+
+        return OrderPageDto.builder()
+                .orders(snapshots.stream().map(this::toOrderDto).collect(Collectors.toList()))
+                .nextCursor(hasNextPage ? OrderCursor.after(snapshots.get(snapshots.size() - 1)).encode() : null)
                 .build();
+    }
 
-        return toOrderDto(orderRepository.save(order));
+    @Transactional(readOnly = true)
+    public OrderPageDto getSummaryPageInTimeInterval(Date startTime, Date endTime, String cursor, int limit) {
+        OrderCursor after = cursor == null ? null : OrderCursor.decode(cursor);
+        List<OrderRepository.OrderHeader> headers = findOrderHeaders(startTime, endTime, after, limit + 1);
+        boolean hasNextPage = headers.size() > limit;
+        if (hasNextPage) {
+            headers = headers.subList(0, limit);
+        }
+
+        return OrderPageDto.builder()
+                .orders(headers.stream().map(OrderServiceImpl::toOrderDto).collect(Collectors.toList()))
+                .nextCursor(hasNextPage ? OrderCursor.after(headers.get(headers.size() - 1)).encode() : null)
+                .build();
     }
 
-    public List<OrderDto> getAllInTimeInterval(Date startTime, Date endTime) {
-        return orderRepository.findAllByTimestampBetween(startTime, endTime)
-                .stream()
-                .map(this::toOrderDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public void forEachInTimeInterval(Date startTime, Date endTime, Consumer<OrderDto> consumer) {
+        OrderCursor after = null;
+        List<OrderSnapshot> snapshots;
+        do {
+            snapshots = findOrderSnapshots(startTime, endTime, after, STREAM_CHUNK_SIZE);
+            snapshots.stream().map(this::toOrderDto).forEach(consumer);
+            if (!snapshots.isEmpty()) {
+                after = OrderCursor.after(snapshots.get(snapshots.size() - 1));
+            }
+        } while (snapshots.size() == STREAM_CHUNK_SIZE);
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachSummaryInTimeInterval(Date startTime, Date endTime, Consumer<OrderDto> consumer) {
+        OrderCursor after = null;
+        List<OrderRepository.OrderHeader> headers;
+        do {
+            headers = findOrderHeaders(startTime, endTime, after, STREAM_CHUNK_SIZE);
+            headers.stream().map(OrderServiceImpl::toOrderDto).forEach(consumer);
+            if (!headers.isEmpty()) {
+                after = OrderCursor.after(headers.get(headers.size() - 1));
+            }
+        } while (headers.size() == STREAM_CHUNK_SIZE);
+    }
+
+    @Transactional
+    public List<UUID> backfillSnapshots(UUID afterId, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+        List<UUID> orderIds = afterId == null
+                ? orderSnapshotRepository.findOrderIdsWithoutSnapshot(pageable)
+                : orderSnapshotRepository.findOrderIdsWithoutSnapshotAfter(afterId, pageable);
+        orderSnapshotRepository.saveAll(findOrdersByIds(orderIds).stream()
+                .map(order -> toOrderSnapshot(toOrderDto(order)))
+                .collect(Collectors.toList()));
+        return orderIds;
     }
 
     private Order findOrderById(UUID id) {
         Optional<Order> order = orderRepository.findById(id);
-        return order.orElseThrow(() -> new OrderNotFoundException(
-                String.format("Order with id: %s could not be found", id)));
+        return order.orElseThrow(() -> orderNotFound(id));
+    }
+
+    private OrderNotFoundException orderNotFound(UUID id) {
+        return new OrderNotFoundException(String.format("Order with id: %s could not be found", id));
+    }
+
+    private List<OrderSnapshot> findOrderSnapshots(Date startTime, Date endTime, OrderCursor after, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+        if (after == null) {
+            return orderSnapshotRepository.findByTimestampBetween(startTime, endTime, pageable);
+        }
+        return orderSnapshotRepository.findByTimestampBetweenAfter(
+                startTime, endTime, after.getTimestamp(), after.getId(), pageable);
+    }
+
+    private List<OrderRepository.OrderHeader> findOrderHeaders(Date startTime, Date endTime, OrderCursor after,
+                                                              int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+        if (after == null) {
+            return orderRepository.findHeadersByTimestampBetween(startTime, endTime, pageable);
+        }
+        return orderRepository.findHeadersByTimestampBetweenAfter(
+                startTime, endTime, after.getTimestamp(), after.getId(), pageable);
+    }
+
+    private List<Order> findOrdersByIds(List<UUID> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<UUID, Order> ordersById = orderRepository.findDistinctByIdIn(orderIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return orderIds.stream().map(ordersById::get).collect(Collectors.toList());
+    }
+
+    private Map<UUID, Product> findProducts(Collection<UUID> productIds) {
+        return productCache.getAll(productIds, productRepository::findAllById);
     }
 
-    private List<Product> getOrderProducts(List<UUID> orderProductIds) {
-        List<Product> foundProducts = productRepository.findAllById(orderProductIds);
-        Set<UUID> orderProductIdsSet = new HashSet<>(orderProductIds);
-        Set<UUID> foundProductIdsSet = foundProducts.stream().map(Product::getId).collect(Collectors.toSet());
+    /**
+     * Merges the product ids and the lines of an order into one quantity per product, in request order.
+     * Repeated products add up instead of becoming separate order items.
+     *
+     * @throws OrderQuantityTooLargeException if the merged quantity of a product exceeds
+     * {@value CreateOrderLineDto#MAX_QUANTITY}
+     */
+    static Map<UUID, Integer> getOrderQuantities(CreateOrderDto createOrderDto) {
+        Map<UUID, Integer> quantities = new LinkedHashMap<>();
+        if (createOrderDto.getProductIds() != null) {
+            createOrderDto.getProductIds().forEach(productId -> addQuantity(quantities, productId, 1));
+        }
+        if (createOrderDto.getLines() != null) {
+            createOrderDto.getLines().forEach(line -> addQuantity(quantities, line.getProductId(), line.getQuantity()));
+        }
+        return quantities;
+    }
+
+    private static Stream<UUID> getOrderProductIds(CreateOrderDto createOrderDto) {
+        Stream<UUID> productIds = createOrderDto.getProductIds() != null
+                ? createOrderDto.getProductIds().stream()
+                : Stream.empty();
+        Stream<UUID> lineProductIds = createOrderDto.getLines() != null
+                ? createOrderDto.getLines().stream().map(CreateOrderLineDto::getProductId)
+                : Stream.empty();
+        return Stream.concat(productIds, lineProductIds);
+    }
 
-        if (orderProductIdsSet.size() != foundProductIdsSet.size()) {
-          Set<UUID> notFoundProductIds = new HashSet<>(orderProductIdsSet);
-          notFoundProductIds.removeAll(foundProductIdsSet);
+    private static void addQuantity(Map<UUID, Integer> quantities, UUID productId, int quantity) {
+        // Every merged quantity is checked, so the sum of two of them cannot overflow
+        int merged = quantities.merge(productId, quantity, Integer::sum);
+        if (merged > CreateOrderLineDto.MAX_QUANTITY) {
+            throw new OrderQuantityTooLargeException(String.format(
+                    "The quantity of product %s must not exceed %d", productId, CreateOrderLineDto.MAX_QUANTITY));
+        }
+    }
+
+    static Map<UUID, Product> getOrderProducts(Set<UUID> orderProductIdsSet, Map<UUID, Product> foundProducts) {
+        Set<UUID> notFoundProductIds = new HashSet<>(orderProductIdsSet);
+        notFoundProductIds.removeAll(foundProducts.keySet());
+
+        if (!notFoundProductIds.isEmpty()) {
           throw new OrderProductNotFoundException(
                   String.format("The products with the following ids do not exist: %s", notFoundProductIds));
         }
-        return foundProducts;
+        Map<UUID, Product> orderProducts = new LinkedHashMap<>();
+        orderProductIdsSet.forEach(productId -> orderProducts.put(productId, foundProducts.get(productId)));
+        return orderProducts;
     }
 
-    private OrderDto toOrderDto(Order order) {
-        List<ProductDto> productDtoList = order.getOrderItems().stream()
-                .map(orderItem -> ProductDto.builder()
-                        .id(orderItem.getProduct().getId())
-                        .name(orderItem.getProduct().getName())
-                        .price(orderItem.getPrice())
+    /**
+     * Sums the price times the quantity of every product of an order
+     *
+     * @throws OrderTotalTooLargeException if the total does not fit in a {@link Money}
+     */
+    static Money getOrderTotal(Map<UUID, Product> orderProducts, Map<UUID, Integer> quantities) {
+        try {
+            // Summed as minor units, so large orders do not allocate a BigDecimal per item
+            return Money.ofMinorUnits(orderProducts.values().stream()
+                    .mapToLong(product -> product.getPrice().times(quantities.get(product.getId())).getMinorUnits())
+                    .reduce(0, Math::addExact));
+        } catch (ArithmeticException e) {
+            throw new OrderTotalTooLargeException("The total price of the order is too large");
+        }
+    }
+
+    Order toOrder(CreateOrderDto createOrderDto, Map<UUID, Product> orderProducts, Map<UUID, Integer> quantities) {
+        List<OrderItem> orderItems = orderProducts.values().stream()
+                .map(product -> OrderItem.builder()
+                        .price(product.getPrice())
+                        .quantity(quantities.get(product.getId()))
+                        .productId(product.getId())
                         .build())
                 .collect(Collectors.toList());
 
+        return Order.builder()
+                .id(uuidGenerator.generate())
+                .totalPrice(getOrderTotal(orderProducts, quantities))
+                .customerEmail(createOrderDto.getCustomerEmail())
+                .orderItems(orderItems)
+                .build();
+    }
+
+    private OrderSnapshot toOrderSnapshot(OrderDto orderDto) {
+        try {
+            return OrderSnapshot.builder()
+                    .id(orderDto.getId())
+                    .timestamp(orderDto.getTimestamp())
+                    .payload(objectMapper.writeValueAsString(orderDto))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private OrderDto toOrderDto(OrderSnapshot orderSnapshot) {
+        try {
+            return objectMapper.readValue(orderSnapshot.getPayload(), OrderDto.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static OrderDto toOrderDto(OrderRepository.OrderHeader orderHeader) {
+        return OrderDto.builder()
+                .id(orderHeader.getId())
+                .customerEmail(orderHeader.getCustomerEmail())
+                .timestamp(orderHeader.getTimestamp())
+                .totalPrice(orderHeader.getTotalPrice())
+                .build();
+    }
+
+    OrderDto toOrderDto(Order order) {
+        return toOrderDto(order, OrderItem::getProduct);
+    }
+
+    private OrderDto toOrderDto(Order order, Function<OrderItem, Product> productResolver) {
+        List<ProductDto> productDtoList = order.getOrderItems().stream()
+                .map(orderItem -> {
+                    Product product = productResolver.apply(orderItem);
+                    return ProductDto.builder()
+                            .id(product.getId())
+                            .name(product.getName())
+                            .price(orderItem.getPrice())
+                            .quantity(orderItem.getQuantity())
+                            .build();
+                })
+                .collect(Collectors.toList());
+
         return OrderDto.builder()
                 .id(order.getId())
                 .customerEmail(order.getCustomerEmail())
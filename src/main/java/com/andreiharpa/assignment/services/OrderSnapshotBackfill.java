@@ -0,0 +1,73 @@
+package com.andreiharpa.assignment.services;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Snapshots the orders created before order snapshots existed, in chunks, when the application starts
+ *
+ * Runs before the web server starts, so interval queries never read an incomplete snapshot table.
+ * Chunks are paged by order id, and once every order has a snapshot the backfill is recorded in
+ * completed_startup_jobs and skipped on later starts: new orders are written with their snapshot.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Component
+@Log4j2
+public class OrderSnapshotBackfill implements SmartInitializingSingleton {
+    static final int CHUNK_SIZE = 500;
+
+    static final String JOB_NAME = "order-snapshots-backfill";
+
+    private final OrderService orderService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final boolean enabled;
+
+    public OrderSnapshotBackfill(OrderService orderService, JdbcTemplate jdbcTemplate,
+                                 @Value("${orders.snapshots.backfill-on-startup:true}") boolean enabled) {
+        this.orderService = orderService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled && !isCompleted()) {
+            backfill();
+        }
+    }
+
+    /**
+     * Snapshots every order that has none yet, then records the backfill as completed
+     */
+    public void backfill() {
+        int total = 0;
+        UUID afterId = null;
+        List<UUID> orderIds;
+        do {
+            orderIds = orderService.backfillSnapshots(afterId, CHUNK_SIZE);
+            total += orderIds.size();
+            if (!orderIds.isEmpty()) {
+                afterId = orderIds.get(orderIds.size() - 1);
+            }
+        } while (orderIds.size() == CHUNK_SIZE);
+        jdbcTemplate.update("insert into completed_startup_jobs (name, completed_at) values (?, ?)",
+                JOB_NAME, new Timestamp(System.currentTimeMillis()));
+        log.info("Backfilled {} order snapshots", total);
+    }
+
+    private boolean isCompleted() {
+        return jdbcTemplate.queryForObject("select count(*) from completed_startup_jobs where name = ?",
+                Integer.class, JOB_NAME) > 0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.andreiharpa.assignment.services;
+
+import com.andreiharpa.assignment.controllers.OrderStatsController;
+import com.andreiharpa.assignment.dtos.OrderStatsDto;
+import com.andreiharpa.assignment.dtos.OrderStatsGrouping;
+
+import java.util.Date;
+
+/**
+ * Service used by {@link OrderStatsController}
+ *
+ * @author Andrei Harpa
+ *
+ */
+public interface OrderStatsService {
+
+    /**
+     * Aggregates the orders in a time interval inside the database
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @param groupBy how the orders are grouped
+     * @param groupLimit the maximum number of groups returned
+     * @param topProducts the number of best selling products returned, 0 to skip them
+     * @return {@link OrderStatsDto} with the totals, the groups and the best selling products
+     */
+    OrderStatsDto getStats(Date startTime, Date endTime, OrderStatsGrouping groupBy, int groupLimit, int topProducts);
+}
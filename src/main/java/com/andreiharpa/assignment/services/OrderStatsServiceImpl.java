@@ -0,0 +1,107 @@
+package com.andreiharpa.assignment.services;
+
+import com.andreiharpa.assignment.dtos.OrderStatsDto;
+import com.andreiharpa.assignment.dtos.OrderStatsGroupDto;
+import com.andreiharpa.assignment.dtos.OrderStatsGrouping;
+import com.andreiharpa.assignment.dtos.ProductStatsDto;
+import com.andreiharpa.assignment.repositories.OrderRepository;
+import com.andreiharpa.assignment.repositories.OrderRepository.OrderTotals;
+import com.andreiharpa.assignment.repositories.OrderRepository.PeriodTotals;
+import com.andreiharpa.assignment.utils.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Default implementation for {@link OrderStatsService}
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Service
+public class OrderStatsServiceImpl implements OrderStatsService {
+    private static final String PERIOD_KEY_FORMAT = "%04d-%02d-%02dT%02d:%02d:00";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Transactional(readOnly = true)
+    public OrderStatsDto getStats(Date startTime, Date endTime, OrderStatsGrouping groupBy,
+                                  int groupLimit, int topProducts) {
+        OrderTotals totals = orderRepository.findTotalsByTimestampBetween(startTime, endTime);
+        Money revenue = getRevenue(totals);
+
+        return OrderStatsDto.builder()
+                .orderCount(totals.getOrderCount())
+                .revenue(revenue)
+                .averageOrderValue(getAverage(revenue, totals.getOrderCount()))
+                .groupBy(groupBy)
+                .groups(getGroups(startTime, endTime, groupBy, PageRequest.of(0, groupLimit)))
+                .topProducts(getTopProducts(startTime, endTime, topProducts))
+                .build();
+    }
+
+    private List<OrderStatsGroupDto> getGroups(Date startTime, Date endTime, OrderStatsGrouping groupBy,
+                                               Pageable pageable) {
+        switch (groupBy) {
+            case MINUTE:
+                return toPeriodGroups(orderRepository.findMinuteTotalsByTimestampBetween(startTime, endTime, pageable));
+            case HOUR:
+                return toPeriodGroups(orderRepository.findHourlyTotalsByTimestampBetween(startTime, endTime, pageable));
+            case CUSTOMER:
+                return orderRepository.findCustomerTotalsByTimestampBetween(startTime, endTime, pageable).stream()
+                        .map(totals -> toOrderStatsGroupDto(totals.getCustomerEmail(), totals))
+                        .collect(Collectors.toList());
+            case DAY:
+            default:
+                return toPeriodGroups(orderRepository.findDailyTotalsByTimestampBetween(startTime, endTime, pageable));
+        }
+    }
+
+    private List<ProductStatsDto> getTopProducts(Date startTime, Date endTime, int topProducts) {
+        if (topProducts == 0) {
+            return Collections.emptyList();
+        }
+        return orderRepository.findProductTotalsByTimestampBetween(startTime, endTime, PageRequest.of(0, topProducts))
+                .stream()
+                .map(totals -> ProductStatsDto.builder()
+                        .id(totals.getProductId())
+                        .name(totals.getName())
+                        .unitsSold(totals.getUnitsSold())
+                        .revenue(totals.getRevenue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private static List<OrderStatsGroupDto> toPeriodGroups(List<PeriodTotals> periodTotals) {
+        return periodTotals.stream()
+                .map(totals -> toOrderStatsGroupDto(String.format(PERIOD_KEY_FORMAT, totals.getYear(),
+                        totals.getMonth(), totals.getDay(), totals.getHour(), totals.getMinute()), totals))
+                .collect(Collectors.toList());
+    }
+
+    private static OrderStatsGroupDto toOrderStatsGroupDto(String key, OrderTotals totals) {
+        Money revenue = getRevenue(totals);
+        return OrderStatsGroupDto.builder()
+                .key(key)
+                .orderCount(totals.getOrderCount())
+                .revenue(revenue)
+                .averageOrderValue(getAverage(revenue, totals.getOrderCount()))
+                .build();
+    }
+
+    private static Money getRevenue(OrderTotals totals) {
+        return totals.getRevenue() == null ? Money.ZERO : totals.getRevenue();
+    }
+
+    static Money getAverage(Money revenue, long orderCount) {
+        return orderCount == 0 ? Money.ZERO : revenue.dividedBy(orderCount);
+    }
+}
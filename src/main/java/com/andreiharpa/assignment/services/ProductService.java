@@ -7,7 +7,9 @@ import com.andreiharpa.assignment.dtos.ProductDto;
 import com.andreiharpa.assignment.dtos.UpdateProductDto;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * CRUD service used by {@link ProductController}
@@ -32,6 +34,30 @@ public interface ProductService {
      */
     ProductDto getById(UUID id);
 
+    /**
+     * Retrieves the version of a {@link Product} entity without loading it from the database
+     *
+     * @param id the {@link Product} id
+     * @return the version, or empty if the product could not be found
+     */
+    Optional<Long> getVersion(UUID id);
+
+    /**
+     * Digests the ids and versions of all {@link Product} entities
+     *
+     * @return a digest that changes whenever a product is created or updated
+     */
+    String getAllVersion();
+
+    /**
+     * Digests the ids and versions of a page of {@link Product} entities ordered by id
+     *
+     * @param page the zero based page index
+     * @param size the page size
+     * @return a digest that changes whenever a product in the page is created or updated
+     */
+    String getPageVersion(int page, int size);
+
     /**
      * Retrieves all {@link Product} entities
      *
@@ -39,12 +65,33 @@ public interface ProductService {
      */
     List<ProductDto> getAll();
 
+    /**
+     * Retrieves a page of {@link Product} entities ordered by id
+     *
+     * @param page the zero based page index
+     * @param size the page size
+     * @return List of {@link ProductDto} representation for the entities in the page
+     */
+    List<ProductDto> getPage(int page, int size);
+
+    /**
+     * Passes every {@link Product} entity to the consumer while reading them from the database
+     *
+     * @param consumer receives the {@link ProductDto} representation of each entity
+     */
+    void forEach(Consumer<ProductDto> consumer);
+
     /**
      * Updates a {@link Product} entity with a certain id
      *
      * @param id the {@link Product} id
      * @param updateProductDto {@link UpdateProductDto}
+     * @param expectedVersion the version the product must have, null to update any version
      * @return {@link ProductDto} representation for the entity
+     * @throws com.andreiharpa.assignment.exceptions.ProductVersionMismatchException if the product does not have
+     * the expected version
+     * @throws com.andreiharpa.assignment.exceptions.ProductVersionConflictException if the product was updated
+     * concurrently
      */
-    ProductDto update(UUID id, UpdateProductDto updateProductDto);
+    ProductDto update(UUID id, UpdateProductDto updateProductDto, Long expectedVersion);
 }
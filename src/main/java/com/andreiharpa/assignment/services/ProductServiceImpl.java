@@ -1,21 +1,32 @@
 package com.andreiharpa.assignment.services;
 
+import com.andreiharpa.assignment.cache.ProductCache;
 import com.andreiharpa.assignment.dtos.CreateProductDto;
 import com.andreiharpa.assignment.dtos.ProductDto;
 import com.andreiharpa.assignment.dtos.UpdateProductDto;
 import com.andreiharpa.assignment.exceptions.ProductNotFoundException;
+import com.andreiharpa.assignment.exceptions.ProductVersionConflictException;
+import com.andreiharpa.assignment.exceptions.ProductVersionMismatchException;
 import com.andreiharpa.assignment.models.Product;
 import com.andreiharpa.assignment.repositories.ProductRepository;
+import com.andreiharpa.assignment.utils.Money;
 import com.andreiharpa.assignment.utils.UuidGenerator;
+import com.andreiharpa.assignment.utils.VersionDigest;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
-import java.util.ArrayList;
+import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Default implementation for {@link ProductService}
@@ -33,56 +44,135 @@ public class ProductServiceImpl implements ProductService{
     @Autowired
     private UuidGenerator uuidGenerator;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductCache productCache;
+
     @Override
     public ProductDto create(CreateProductDto createProductDto) {
         Product product = createProductDtoToProduct(createProductDto);
         product.setId(uuidGenerator.generate());
         Product savedProduct = productRepository.save(product);
+        productCache.put(savedProduct);
         return productToProductDto(savedProduct);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ProductDto getById(UUID id) {
-        Product product = findProductById(id);
+        Product product = productCache.get(id, productRepository::findById)
+                .orElseThrow(() -> productNotFound(id));
         return productToProductDto(product);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> getVersion(UUID id) {
+        Optional<Product> cachedProduct = productCache.getIfPresent(id);
+        if (cachedProduct.isPresent()) {
+            return cachedProduct.map(Product::getVersion);
+        }
+        return productRepository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getAllVersion() {
+        return digest(productRepository.findVersions(Pageable.unpaged()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getPageVersion(int page, int size) {
+        return digest(productRepository.findVersions(PageRequest.of(page, size)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<ProductDto> getAll() {
-        List<ProductDto> products = new ArrayList<>();
-        productRepository.findAll().forEach(product ->
-                products.add(productToProductDto(product)));
-        return products;
+        return productRepository.findUnmanaged(Pageable.unpaged())
+                .stream()
+                .map(this::productToProductDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductDto> getPage(int page, int size) {
+        return productRepository.findUnmanaged(PageRequest.of(page, size))
+                .stream()
+                .map(this::productToProductDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(Consumer<ProductDto> consumer) {
+        try (Stream<Product> products = productRepository.streamAll()) {
+            products.forEach(product -> {
+                consumer.accept(productToProductDto(product));
+                // Keep the persistence context empty so memory stays flat for large catalogs
+                entityManager.detach(product);
+            });
+        }
     }
 
     @Override
     @Transactional
-    public ProductDto update(UUID id, UpdateProductDto updateProductDto) {
+    public ProductDto update(UUID id, UpdateProductDto updateProductDto, Long expectedVersion) {
         Product product = findProductById(id);
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw productVersionMismatch(id, expectedVersion);
+        }
         Optional.ofNullable(updateProductDto.getName()).ifPresent(product::setName);
-        Optional.ofNullable(updateProductDto.getPrice()).ifPresent(product::setPrice);
-        Product updatedProduct = productRepository.save(product);
+        Optional.ofNullable(updateProductDto.getPrice()).map(Money::of).ifPresent(product::setPrice);
+        Product updatedProduct;
+        try {
+            // Flush so the incremented version is returned and a concurrent update is reported here
+            updatedProduct = productRepository.saveAndFlush(product);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new ProductVersionConflictException(
+                    String.format("Product with id: %s was updated concurrently", id));
+        }
+        productCache.put(updatedProduct);
         return productToProductDto(updatedProduct);
     }
 
     private Product findProductById(UUID id) {
         Optional<Product> product = productRepository.findById(id);
-        return product.orElseThrow(() -> new ProductNotFoundException(
-                String.format("Product with id: %s could not be found", id)));
+        return product.orElseThrow(() -> productNotFound(id));
+    }
+
+    private ProductNotFoundException productNotFound(UUID id) {
+        return new ProductNotFoundException(String.format("Product with id: %s could not be found", id));
+    }
+
+    static ProductVersionMismatchException productVersionMismatch(UUID id, long expectedVersion) {
+        return new ProductVersionMismatchException(
+                String.format("Product with id: %s does not have version %d", id, expectedVersion));
+    }
+
+    private String digest(List<ProductRepository.ProductVersion> productVersions) {
+        VersionDigest digest = new VersionDigest();
+        productVersions.forEach(productVersion -> digest.add(productVersion.getId(), productVersion.getVersion()));
+        return digest.digest();
     }
 
     private Product createProductDtoToProduct(CreateProductDto createProductDto) {
         return Product.builder()
                 .name(createProductDto.getName())
-                .price(createProductDto.getPrice())
+                .price(Money.of(createProductDto.getPrice()))
                 .build();
     }
 
-    private ProductDto productToProductDto(Product product) {
+    ProductDto productToProductDto(Product product) {
         return ProductDto.builder()
                 .id(product.getId())
                 .name(product.getName())
                 .price(product.getPrice())
+                .version(product.getVersion())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.andreiharpa.assignment.services;
+
+import com.andreiharpa.assignment.controllers.ReactiveOrderController;
+import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderPageDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Non-blocking variant of {@link OrderService} used by {@link ReactiveOrderController}
+ *
+ * @author Andrei Harpa
+ *
+ */
+public interface ReactiveOrderService {
+
+    /**
+     * Creates an order, its snapshot and records it in the rollups
+     *
+     * @param createOrderDto {@link CreateOrderDto}
+     * @return the created {@link OrderDto}, or an OrderProductNotFoundException error
+     */
+    Mono<OrderDto> create(CreateOrderDto createOrderDto);
+
+    /**
+     * Retrieves an order with its products
+     *
+     * @param id the order id
+     * @return the {@link OrderDto}, or an OrderNotFoundException error
+     */
+    Mono<OrderDto> getById(UUID id);
+
+    /**
+     * Retrieves the summary of an order, its header without the products, reading the orders table only
+     *
+     * @param id the order id
+     * @return the {@link OrderDto} without products, or an OrderNotFoundException error
+     */
+    Mono<OrderDto> getSummaryById(UUID id);
+
+    /**
+     * Retrieves a page of orders in a time interval, ordered by (timestamp, id)
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of orders in the page
+     * @return {@link OrderPageDto} containing the orders and the cursor for the next page, if any
+     */
+    Mono<OrderPageDto> getPageInTimeInterval(Date startTime, Date endTime, String cursor, int limit);
+
+    /**
+     * Retrieves a page of order summaries in a time interval, ordered by (timestamp, id)
+     * Reads the orders table only, the cursors are interchangeable with {@link #getPageInTimeInterval}
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of orders in the page
+     * @return {@link OrderPageDto} containing the orders without products and the cursor for the next page, if any
+     */
+    Mono<OrderPageDto> getSummaryPageInTimeInterval(Date startTime, Date endTime, String cursor, int limit);
+
+    /**
+     * Retrieves every order in a time interval, ordered by (timestamp, id)
+     * Orders are emitted as they are read, the reads follow the demand of the subscriber
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @return the {@link OrderDto}s
+     */
+    Flux<OrderDto> getAllInTimeInterval(Date startTime, Date endTime);
+
+    /**
+     * Retrieves the summary of every order in a time interval, ordered by (timestamp, id), reading the orders
+     * table only
+     *
+     * @param startTime the start date for the requested interval
+     * @param endTime the end date for the requested interval
+     * @return the {@link OrderDto}s, without products
+     */
+    Flux<OrderDto> getAllSummariesInTimeInterval(Date startTime, Date endTime);
+}
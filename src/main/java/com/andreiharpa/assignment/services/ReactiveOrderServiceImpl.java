@@ -0,0 +1,346 @@
+package com.andreiharpa.assignment.services;
+
+import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderPageDto;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.exceptions.OrderNotFoundException;
+import com.andreiharpa.assignment.models.OrderItem;
+import com.andreiharpa.assignment.models.OrderSnapshot;
+import com.andreiharpa.assignment.models.Product;
+import com.andreiharpa.assignment.r2dbc.R2dbcColumns;
+import com.andreiharpa.assignment.r2dbc.R2dbcDatabase;
+import com.andreiharpa.assignment.rollups.OrderRollups;
+import com.andreiharpa.assignment.utils.Money;
+import com.andreiharpa.assignment.utils.OrderCursor;
+import com.andreiharpa.assignment.utils.UuidGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.spi.Row;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * R2DBC implementation for {@link ReactiveOrderService}, enabled for reactive web applications
+ *
+ * Orders are written to the same tables as {@link OrderServiceImpl}, including their snapshots,
+ * which the interval queries read just like the blocking stack does.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOrderServiceImpl implements ReactiveOrderService {
+    private static final String SELECT_ORDER_WITH_ITEMS = "select o.id, o.customer_email, o.timestamp, " +
+            "o.total_price, i.id as item_id, i.price as item_price, i.quantity, p.id as product_id, " +
+            "p.name as product_name from orders o " +
+            "left join order_items i on i.order_id = o.id " +
+            "left join products p on p.id = i.product_id " +
+            "where o.id = :id order by i.id";
+    private static final String SELECT_ORDER_HEADERS = "select id, customer_email, timestamp, total_price from orders";
+
+    private final DatabaseClient databaseClient;
+
+    private final UuidGenerator uuidGenerator;
+
+    private final ObjectMapper objectMapper;
+
+    private final OrderRollups orderRollups;
+
+    private final TransactionalOperator transactionalOperator;
+
+    public ReactiveOrderServiceImpl(R2dbcDatabase database, UuidGenerator uuidGenerator,
+                                    ObjectMapper objectMapper, OrderRollups orderRollups) {
+        this.databaseClient = database.getDatabaseClient();
+        this.transactionalOperator = database.getTransactionalOperator();
+        this.uuidGenerator = uuidGenerator;
+        this.objectMapper = objectMapper;
+        this.orderRollups = orderRollups;
+    }
+
+    @Override
+    public Mono<OrderDto> create(CreateOrderDto createOrderDto) {
+        Mono<OrderDto> created = Mono.defer(() -> {
+            Map<UUID, Integer> quantities = OrderServiceImpl.getOrderQuantities(createOrderDto);
+            return findProducts(quantities.keySet())
+                    .map(foundProducts -> toOrderDto(createOrderDto,
+                            OrderServiceImpl.getOrderProducts(quantities.keySet(), foundProducts), quantities))
+                    .flatMap(orderDto -> insert(orderDto).thenReturn(orderDto));
+        });
+        return transactionalOperator.transactional(created)
+                .doOnNext(orderRollups::record);
+    }
+
+    @Override
+    public Mono<OrderDto> getById(UUID id) {
+        return databaseClient.execute(SELECT_ORDER_WITH_ITEMS)
+                .bind("id", id)
+                .map(this::toOrderRowDto)
+                .all()
+                .collectList()
+                .flatMap(rows -> rows.isEmpty() ? Mono.error(orderNotFound(id)) : Mono.just(mergeOrderRows(rows)));
+    }
+
+    @Override
+    public Mono<OrderDto> getSummaryById(UUID id) {
+        return databaseClient.execute(SELECT_ORDER_HEADERS + " where id = :id")
+                .bind("id", id)
+                .map(ReactiveOrderServiceImpl::toOrderSummaryDto)
+                .one()
+                .switchIfEmpty(Mono.error(() -> orderNotFound(id)));
+    }
+
+    @Override
+    public Mono<OrderPageDto> getPageInTimeInterval(Date startTime, Date endTime, String cursor, int limit) {
+        return Mono.defer(() -> {
+            OrderCursor after = cursor == null ? null : OrderCursor.decode(cursor);
+            return findOrderSnapshots(startTime, endTime, after, limit + 1).collectList();
+        }).map(snapshots -> {
+            boolean hasNextPage = snapshots.size() > limit;
+            List<OrderSnapshot> page = hasNextPage ? snapshots.subList(0, limit) : snapshots;
+            return OrderPageDto.builder()
+                    .orders(page.stream().map(this::toOrderDto).collect(Collectors.toList()))
+                    .nextCursor(hasNextPage ? OrderCursor.after(page.get(page.size() - 1)).encode() : null)
+                    .build();
+        });
+    }
+
+    @Override
+    public Flux<OrderDto> getAllInTimeInterval(Date startTime, Date endTime) {
+        // A single query, R2DBC fetches the rows as the subscriber requests them instead of in chunks
+        return findOrderSnapshots(startTime, endTime, null, null)
+                .map(this::toOrderDto);
+    }
+
+    @Override
+    public Mono<OrderPageDto> getSummaryPageInTimeInterval(Date startTime, Date endTime, String cursor, int limit) {
+        return Mono.defer(() -> {
+            OrderCursor after = cursor == null ? null : OrderCursor.decode(cursor);
+            return findOrderSummaries(startTime, endTime, after, limit + 1).collectList();
+        }).map(orderDtos -> {
+            boolean hasNextPage = orderDtos.size() > limit;
+            List<OrderDto> page = hasNextPage ? orderDtos.subList(0, limit) : orderDtos;
+            OrderDto last = page.isEmpty() ? null : page.get(page.size() - 1);
+            return OrderPageDto.builder()
+                    .orders(page)
+                    .nextCursor(hasNextPage ? new OrderCursor(last.getTimestamp(), last.getId()).encode() : null)
+                    .build();
+        });
+    }
+
+    @Override
+    public Flux<OrderDto> getAllSummariesInTimeInterval(Date startTime, Date endTime) {
+        return findOrderSummaries(startTime, endTime, null, null);
+    }
+
+    private OrderNotFoundException orderNotFound(UUID id) {
+        return new OrderNotFoundException(String.format("Order with id: %s could not be found", id));
+    }
+
+    private Mono<Map<UUID, Product>> findProducts(Collection<UUID> productIds) {
+        return databaseClient.execute("select id, name, price from products where id in (:ids)")
+                .bind("ids", productIds)
+                .map(row -> new Product(R2dbcColumns.getUuid(row, "id"), row.get("name", String.class),
+                        Money.of(row.get("price", BigDecimal.class))))
+                .all()
+                .collectMap(Product::getId, Function.identity());
+    }
+
+    private Flux<OrderSnapshot> findOrderSnapshots(Date startTime, Date endTime, OrderCursor after, Integer limit) {
+        return intervalQuery("select id, timestamp, payload from order_snapshots", startTime, endTime, after, limit)
+                .map(row -> OrderSnapshot.builder()
+                        .id(R2dbcColumns.getUuid(row, "id"))
+                        .timestamp(R2dbcColumns.getDate(row, "timestamp"))
+                        .payload(row.get("payload", String.class))
+                        .build())
+                .all();
+    }
+
+    private Flux<OrderDto> findOrderSummaries(Date startTime, Date endTime, OrderCursor after, Integer limit) {
+        return intervalQuery(SELECT_ORDER_HEADERS, startTime, endTime, after, limit)
+                .map(ReactiveOrderServiceImpl::toOrderSummaryDto)
+                .all();
+    }
+
+    /**
+     * Selects the rows of a table in a time interval after the cursor, ordered by (timestamp, id)
+     */
+    private DatabaseClient.GenericExecuteSpec intervalQuery(String select, Date startTime, Date endTime,
+                                                            OrderCursor after, Integer limit) {
+        StringBuilder sql = new StringBuilder(select).append(" where timestamp between :startTime and :endTime");
+        if (after != null) {
+            // The redundant lower bound starts the index scan at the cursor
+            sql.append(" and timestamp >= :afterTimestamp and (timestamp > :afterTimestamp or id > :afterId)");
+        }
+        sql.append(" order by timestamp, id");
+        if (limit != null) {
+            sql.append(" limit :limit");
+        }
+
+        DatabaseClient.GenericExecuteSpec query = databaseClient.execute(sql.toString())
+                .bind("startTime", R2dbcColumns.toLocalDateTime(startTime))
+                .bind("endTime", R2dbcColumns.toLocalDateTime(endTime));
+        if (after != null) {
+            query = query.bind("afterTimestamp", R2dbcColumns.toLocalDateTime(after.getTimestamp()))
+                    .bind("afterId", after.getId());
+        }
+        if (limit != null) {
+            query = query.bind("limit", limit);
+        }
+        return query;
+    }
+
+    private Mono<Void> insert(OrderDto orderDto) {
+        List<ProductDto> productDtos = orderDto.getProducts();
+        return allocateOrderItemIds(productDtos.size())
+                .collectList()
+                .flatMap(orderItemIds -> databaseClient.execute("insert into orders " +
+                                "(id, customer_email, timestamp, total_price) " +
+                                "values (:id, :customerEmail, :timestamp, :totalPrice)")
+                        .bind("id", orderDto.getId())
+                        .bind("customerEmail", orderDto.getCustomerEmail())
+                        .bind("timestamp", R2dbcColumns.toLocalDateTime(orderDto.getTimestamp()))
+                        .bind("totalPrice", orderDto.getTotalPrice().toBigDecimal())
+                        .fetch()
+                        .rowsUpdated()
+                        .thenMany(Flux.range(0, productDtos.size())
+                                .concatMap(index -> insertOrderItem(orderDto.getId(), orderItemIds.get(index),
+                                        productDtos.get(index))))
+                        .then(databaseClient.execute("insert into order_snapshots (id, timestamp, payload) " +
+                                        "values (:id, :timestamp, :payload)")
+                                .bind("id", orderDto.getId())
+                                .bind("timestamp", R2dbcColumns.toLocalDateTime(orderDto.getTimestamp()))
+                                .bind("payload", toPayload(orderDto))
+                                .fetch()
+                                .rowsUpdated()))
+                .then();
+    }
+
+    private Mono<Integer> insertOrderItem(UUID orderId, long orderItemId, ProductDto productDto) {
+        return databaseClient.execute("insert into order_items (id, order_id, price, quantity, product_id) " +
+                        "values (:id, :orderId, :price, :quantity, :productId)")
+                .bind("id", orderItemId)
+                .bind("orderId", orderId)
+                .bind("price", productDto.getPrice().toBigDecimal())
+                .bind("quantity", productDto.getQuantity())
+                .bind("productId", productDto.getId())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Draws order item ids from the sequence the way Hibernate's pooled optimizer does,
+     * each sequence value reserves the {@value OrderItem#ID_ALLOCATION_SIZE} ids up to and including it,
+     * so ids allocated here never collide with the ones allocated for the entities
+     */
+    private Flux<Long> allocateOrderItemIds(int count) {
+        if (count == 0) {
+            return Flux.empty();
+        }
+        int blocks = (count + OrderItem.ID_ALLOCATION_SIZE - 1) / OrderItem.ID_ALLOCATION_SIZE;
+        return databaseClient.execute("select next value for " + OrderItem.ID_SEQUENCE + " as hi " +
+                        "from system_range(1, :blocks)")
+                .bind("blocks", blocks)
+                .map(row -> row.get("hi", Long.class))
+                .all()
+                .repeat()
+                // The first value of the sequence only reserves itself
+                .flatMapIterable(hi -> LongStream.rangeClosed(Math.max(1, hi - OrderItem.ID_ALLOCATION_SIZE + 1), hi)
+                        .boxed()
+                        .collect(Collectors.toList()))
+                .take(count);
+    }
+
+    private OrderDto toOrderDto(CreateOrderDto createOrderDto, Map<UUID, Product> orderProducts,
+                                Map<UUID, Integer> quantities) {
+        List<ProductDto> productDtos = orderProducts.values().stream()
+                .map(product -> ProductDto.builder()
+                        .id(product.getId())
+                        .name(product.getName())
+                        .price(product.getPrice())
+                        .quantity(quantities.get(product.getId()))
+                        .build())
+                .collect(Collectors.toList());
+
+        return OrderDto.builder()
+                .id(uuidGenerator.generate())
+                .customerEmail(createOrderDto.getCustomerEmail())
+                .timestamp(new Date())
+                .totalPrice(OrderServiceImpl.getOrderTotal(orderProducts, quantities))
+                .products(productDtos)
+                .build();
+    }
+
+    /**
+     * Maps one row of {@link #SELECT_ORDER_HEADERS}, an order without its products
+     */
+    private static OrderDto toOrderSummaryDto(Row row) {
+        return OrderDto.builder()
+                .id(R2dbcColumns.getUuid(row, "id"))
+                .customerEmail(row.get("customer_email", String.class))
+                .timestamp(R2dbcColumns.getDate(row, "timestamp"))
+                .totalPrice(Money.of(row.get("total_price", BigDecimal.class)))
+                .build();
+    }
+
+    /**
+     * Maps one row of {@link #SELECT_ORDER_WITH_ITEMS}, an order with at most one of its products
+     */
+    private OrderDto toOrderRowDto(Row row) {
+        List<ProductDto> productDtos = new ArrayList<>(1);
+        if (row.get("item_id") != null) {
+            productDtos.add(ProductDto.builder()
+                    .id(R2dbcColumns.getUuid(row, "product_id"))
+                    .name(row.get("product_name", String.class))
+                    .price(Money.of(row.get("item_price", BigDecimal.class)))
+                    .quantity(row.get("quantity", Integer.class))
+                    .build());
+        }
+        return OrderDto.builder()
+                .id(R2dbcColumns.getUuid(row, "id"))
+                .customerEmail(row.get("customer_email", String.class))
+                .timestamp(R2dbcColumns.getDate(row, "timestamp"))
+                .totalPrice(Money.of(row.get("total_price", BigDecimal.class)))
+                .products(productDtos)
+                .build();
+    }
+
+    private static OrderDto mergeOrderRows(List<OrderDto> rows) {
+        OrderDto orderDto = rows.get(0);
+        rows.subList(1, rows.size()).forEach(row -> orderDto.getProducts().addAll(row.getProducts()));
+        return orderDto;
+    }
+
+    private String toPayload(OrderDto orderDto) {
+        try {
+            return objectMapper.writeValueAsString(orderDto);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private OrderDto toOrderDto(OrderSnapshot orderSnapshot) {
+        try {
+            return objectMapper.readValue(orderSnapshot.getPayload(), OrderDto.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.andreiharpa.assignment.services;
+
+import com.andreiharpa.assignment.controllers.ReactiveProductController;
+import com.andreiharpa.assignment.dtos.CreateProductDto;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.dtos.UpdateProductDto;
+import com.andreiharpa.assignment.models.Product;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Non-blocking variant of {@link ProductService} used by {@link ReactiveProductController}
+ *
+ * @author Andrei Harpa
+ *
+ */
+public interface ReactiveProductService {
+    /**
+     * Creates {@link Product} entities
+     *
+     * @param createProductDto {@link CreateProductDto}
+     * @return {@link ProductDto} representation for the created entity
+     */
+    Mono<ProductDto> create(CreateProductDto createProductDto);
+
+    /**
+     * Retrieves {@link Product} entities by id
+     *
+     * @param id the {@link Product} id
+     * @return {@link ProductDto} representation for the entity, or a ProductNotFoundException error
+     */
+    Mono<ProductDto> getById(UUID id);
+
+    /**
+     * Retrieves the version of a {@link Product} entity without loading it
+     *
+     * @param id the {@link Product} id
+     * @return the version, or empty if the product could not be found
+     */
+    Mono<Long> getVersion(UUID id);
+
+    /**
+     * Digests the ids and versions of all {@link Product} entities
+     *
+     * @return a digest that changes whenever a product is created or updated
+     */
+    Mono<String> getAllVersion();
+
+    /**
+     * Digests the ids and versions of a page of {@link Product} entities ordered by id
+     *
+     * @param page the zero based page index
+     * @param size the page size
+     * @return a digest that changes whenever a product in the page is created or updated
+     */
+    Mono<String> getPageVersion(int page, int size);
+
+    /**
+     * Retrieves all {@link Product} entities, emitted as they are read
+     *
+     * @return {@link ProductDto} representation for the entities
+     */
+    Flux<ProductDto> getAll();
+
+    /**
+     * Retrieves a page of {@link Product} entities ordered by id
+     *
+     * @param page the zero based page index
+     * @param size the page size
+     * @return {@link ProductDto} representation for the entities in the page
+     */
+    Flux<ProductDto> getPage(int page, int size);
+
+    /**
+     * Updates a {@link Product} entity with a certain id
+     *
+     * @param id the {@link Product} id
+     * @param updateProductDto {@link UpdateProductDto}
+     * @param expectedVersion the version the product must have, null to update any version
+     * @return {@link ProductDto} representation for the entity, or a ProductNotFoundException error,
+     * or a ProductVersionMismatchException error if the product does not have the expected version,
+     * or a ProductVersionConflictException error if the product was updated concurrently
+     */
+    Mono<ProductDto> update(UUID id, UpdateProductDto updateProductDto, Long expectedVersion);
+}
@@ -0,0 +1,167 @@
+package com.andreiharpa.assignment.services;
+
+import com.andreiharpa.assignment.dtos.CreateProductDto;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.dtos.UpdateProductDto;
+import com.andreiharpa.assignment.exceptions.ProductNotFoundException;
+import com.andreiharpa.assignment.exceptions.ProductVersionConflictException;
+import com.andreiharpa.assignment.r2dbc.R2dbcColumns;
+import com.andreiharpa.assignment.r2dbc.R2dbcDatabase;
+import com.andreiharpa.assignment.utils.Money;
+import com.andreiharpa.assignment.utils.UuidGenerator;
+import com.andreiharpa.assignment.utils.VersionDigest;
+import io.r2dbc.spi.Row;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * R2DBC implementation for {@link ReactiveProductService}, enabled for reactive web applications
+ *
+ * The product cache of the blocking stack is not used, every read goes to the database.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+    private static final String SELECT_PRODUCTS = "select id, name, price, version from products";
+    private static final String SELECT_VERSIONS = "select id, version from products order by id";
+
+    private final DatabaseClient databaseClient;
+
+    private final UuidGenerator uuidGenerator;
+
+    private final TransactionalOperator transactionalOperator;
+
+    public ReactiveProductServiceImpl(R2dbcDatabase database, UuidGenerator uuidGenerator) {
+        this.databaseClient = database.getDatabaseClient();
+        this.transactionalOperator = database.getTransactionalOperator();
+        this.uuidGenerator = uuidGenerator;
+    }
+
+    @Override
+    public Mono<ProductDto> create(CreateProductDto createProductDto) {
+        return Mono.defer(() -> {
+            ProductDto productDto = ProductDto.builder()
+                    .id(uuidGenerator.generate())
+                    .name(createProductDto.getName())
+                    .price(Money.of(createProductDto.getPrice()))
+                    .version(0L)
+                    .build();
+            return databaseClient.execute("insert into products (id, name, price, version) "
+                    + "values (:id, :name, :price, :version)")
+                    .bind("id", productDto.getId())
+                    .bind("name", productDto.getName())
+                    .bind("price", productDto.getPrice().toBigDecimal())
+                    .bind("version", productDto.getVersion())
+                    .fetch()
+                    .rowsUpdated()
+                    .thenReturn(productDto);
+        });
+    }
+
+    @Override
+    public Mono<ProductDto> getById(UUID id) {
+        return databaseClient.execute(SELECT_PRODUCTS + " where id = :id")
+                .bind("id", id)
+                .map(ReactiveProductServiceImpl::toProductDto)
+                .one()
+                .switchIfEmpty(Mono.error(() -> productNotFound(id)));
+    }
+
+    @Override
+    public Mono<Long> getVersion(UUID id) {
+        return databaseClient.execute("select version from products where id = :id")
+                .bind("id", id)
+                .map(row -> row.get("version", Long.class))
+                .one();
+    }
+
+    @Override
+    public Mono<String> getAllVersion() {
+        return digest(databaseClient.execute(SELECT_VERSIONS));
+    }
+
+    @Override
+    public Mono<String> getPageVersion(int page, int size) {
+        return digest(databaseClient.execute(SELECT_VERSIONS + " limit :limit offset :offset")
+                .bind("limit", size)
+                .bind("offset", (long) page * size));
+    }
+
+    @Override
+    public Flux<ProductDto> getAll() {
+        return databaseClient.execute(SELECT_PRODUCTS + " order by id")
+                .map(ReactiveProductServiceImpl::toProductDto)
+                .all();
+    }
+
+    @Override
+    public Flux<ProductDto> getPage(int page, int size) {
+        return databaseClient.execute(SELECT_PRODUCTS + " order by id limit :limit offset :offset")
+                .bind("limit", size)
+                .bind("offset", (long) page * size)
+                .map(ReactiveProductServiceImpl::toProductDto)
+                .all();
+    }
+
+    @Override
+    public Mono<ProductDto> update(UUID id, UpdateProductDto updateProductDto, Long expectedVersion) {
+        Mono<ProductDto> updated = getById(id)
+                .flatMap(productDto -> {
+                    if (expectedVersion != null && !expectedVersion.equals(productDto.getVersion())) {
+                        return Mono.error(ProductServiceImpl.productVersionMismatch(id, expectedVersion));
+                    }
+                    Optional.ofNullable(updateProductDto.getName()).ifPresent(productDto::setName);
+                    Optional.ofNullable(updateProductDto.getPrice()).map(Money::of).ifPresent(productDto::setPrice);
+                    return databaseClient.execute("update products set name = :name, price = :price, "
+                            + "version = version + 1 where id = :id and version = :version")
+                            .bind("id", id)
+                            .bind("name", productDto.getName())
+                            .bind("price", productDto.getPrice().toBigDecimal())
+                            .bind("version", productDto.getVersion())
+                            .fetch()
+                            .rowsUpdated()
+                            .flatMap(rowsUpdated -> {
+                                if (rowsUpdated == 0) {
+                                    return Mono.error(new ProductVersionConflictException(
+                                            String.format("Product with id: %s was updated concurrently", id)));
+                                }
+                                productDto.setVersion(productDto.getVersion() + 1);
+                                return Mono.just(productDto);
+                            });
+                });
+        return transactionalOperator.transactional(updated);
+    }
+
+    private Mono<String> digest(DatabaseClient.GenericExecuteSpec versionsQuery) {
+        return versionsQuery
+                .map(row -> Tuples.of(R2dbcColumns.getUuid(row, "id"), row.get("version", Long.class)))
+                .all()
+                .reduceWith(VersionDigest::new, (digest, version) -> digest.add(version.getT1(), version.getT2()))
+                .map(VersionDigest::digest);
+    }
+
+    private ProductNotFoundException productNotFound(UUID id) {
+        return new ProductNotFoundException(String.format("Product with id: %s could not be found", id));
+    }
+
+    static ProductDto toProductDto(Row row) {
+        return ProductDto.builder()
+                .id(R2dbcColumns.getUuid(row, "id"))
+                .name(row.get("name", String.class))
+                .price(Money.of(row.get("price", BigDecimal.class)))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
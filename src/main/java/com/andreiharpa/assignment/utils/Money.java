@@ -0,0 +1,199 @@
+package com.andreiharpa.assignment.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point monetary amount, kept as a long number of minor units (cents)
+ *
+ * Prices and totals are summed and aggregated as longs, they are only converted to {@link BigDecimal}
+ * when read from or written to the database. JSON numbers are written directly from the minor units.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public final class Money implements Comparable<Money> {
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+    private static final long MINOR_UNITS_PER_UNIT = 100;
+    private static final int MAX_FORMATTED_LENGTH = 21;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinorUnits(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * Converts a decimal amount, rounding it half up to {@value #SCALE} decimals like the price columns do
+     *
+     * @param amount the amount
+     * @return the {@link Money}
+     * @throws ArithmeticException if the amount does not fit in a long number of minor units
+     */
+    public static Money of(BigDecimal amount) {
+        return ofMinorUnits(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Money plus(Money other) {
+        return ofMinorUnits(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money times(long factor) {
+        return ofMinorUnits(Math.multiplyExact(minorUnits, factor));
+    }
+
+    /**
+     * Divides the amount, rounding half up to the nearest minor unit
+     */
+    public Money dividedBy(long divisor) {
+        long quotient = minorUnits / divisor;
+        long remainder = minorUnits % divisor;
+        if (Math.abs(remainder) * 2 >= Math.abs(divisor)) {
+            quotient += Long.signum(minorUnits) * Long.signum(divisor);
+        }
+        return ofMinorUnits(quotient);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money && ((Money) other).minorUnits == minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    /**
+     * Formats the amount as a plain decimal number with {@value #SCALE} decimals, e.g. 12.50
+     */
+    @Override
+    public String toString() {
+        char[] buffer = new char[MAX_FORMATTED_LENGTH];
+        int start = format(buffer);
+        return new String(buffer, start, buffer.length - start);
+    }
+
+    /**
+     * Writes the formatted amount right aligned at the end of the buffer
+     *
+     * @return the index of the first written character
+     */
+    private int format(char[] buffer) {
+        int position = buffer.length;
+        // Digits are taken from the signed remainder, so Long.MIN_VALUE needs no special case
+        long remaining = minorUnits;
+        for (int digits = 0; digits < SCALE; digits++) {
+            buffer[--position] = (char) ('0' + Math.abs(remaining % 10));
+            remaining /= 10;
+        }
+        buffer[--position] = '.';
+        do {
+            buffer[--position] = (char) ('0' + Math.abs(remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        if (minorUnits < 0) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+
+    static class Serializer extends JsonSerializer<Money> {
+        private static final ThreadLocal<char[]> BUFFERS = ThreadLocal.withInitial(() -> new char[MAX_FORMATTED_LENGTH]);
+
+        @Override
+        public void serialize(Money money, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            char[] buffer = BUFFERS.get();
+            int start = money.format(buffer);
+            generator.writeNumber(buffer, start, buffer.length - start);
+        }
+    }
+
+    static class Deserializer extends JsonDeserializer<Money> {
+        private static final long UNPARSEABLE = Long.MIN_VALUE;
+        private static final int MAX_UNIT_DIGITS = 15;
+
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.hasToken(JsonToken.VALUE_STRING)) {
+                return of(new BigDecimal(parser.getText().trim()));
+            }
+            if (!parser.hasToken(JsonToken.VALUE_NUMBER_INT) && !parser.hasToken(JsonToken.VALUE_NUMBER_FLOAT)) {
+                return (Money) context.handleUnexpectedToken(Money.class, parser);
+            }
+            // Plain decimals are parsed straight from the token characters, without an intermediate BigDecimal
+            long minorUnits = parseMinorUnits(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            return minorUnits == UNPARSEABLE ? of(parser.getDecimalValue()) : ofMinorUnits(minorUnits);
+        }
+
+        private static long parseMinorUnits(char[] chars, int offset, int length) {
+            int end = offset + length;
+            int i = offset;
+            boolean negative = i < end && chars[i] == '-';
+            if (negative) {
+                i++;
+            }
+            long units = 0;
+            int unitDigits = 0;
+            for (; i < end && isDigit(chars[i]); i++) {
+                if (++unitDigits > MAX_UNIT_DIGITS) {
+                    return UNPARSEABLE;
+                }
+                units = units * 10 + (chars[i] - '0');
+            }
+            long fraction = 0;
+            int fractionDigits = 0;
+            if (i < end && chars[i] == '.') {
+                for (i++; i < end && isDigit(chars[i]); i++) {
+                    if (++fractionDigits > SCALE) {
+                        return UNPARSEABLE;
+                    }
+                    fraction = fraction * 10 + (chars[i] - '0');
+                }
+            }
+            if (i != end || unitDigits == 0) {
+                return UNPARSEABLE;
+            }
+            for (; fractionDigits < SCALE; fractionDigits++) {
+                fraction *= 10;
+            }
+            long minorUnits = units * MINOR_UNITS_PER_UNIT + fraction;
+            return negative ? -minorUnits : minorUnits;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.andreiharpa.assignment.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.CodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+/**
+ * Lets the reactive controllers stream a {@link reactor.core.publisher.Flux} as newline delimited json,
+ * writing every value as soon as it is emitted instead of collecting them in a json array
+ *
+ * Unordered, so it runs after the Jackson customizer of Spring Boot it replaces the encoder of.
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class NdjsonCodecCustomizer implements CodecCustomizer {
+    private final ObjectMapper objectMapper;
+
+    public NdjsonCodecCustomizer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void customize(CodecConfigurer configurer) {
+        Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(objectMapper,
+                MediaType.APPLICATION_JSON, new MediaType("application", "*+json"), NdjsonWriter.APPLICATION_NDJSON);
+        encoder.setStreamingMediaTypes(Collections.singletonList(NdjsonWriter.APPLICATION_NDJSON));
+        configurer.defaultCodecs().jackson2JsonEncoder(encoder);
+    }
+}
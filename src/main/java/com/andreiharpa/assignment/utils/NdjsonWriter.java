@@ -0,0 +1,47 @@
+package com.andreiharpa.assignment.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes values as newline delimited json, one value per line
+ *
+ * Serializes with the given {@link ObjectMapper}, so the lines match the json array responses.
+ *
+ * @author Andrei Harpa
+ *
+ */
+public class NdjsonWriter {
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final MediaType APPLICATION_NDJSON = MediaType.valueOf(APPLICATION_NDJSON_VALUE);
+
+    private final ObjectWriter objectWriter;
+
+    private final OutputStream outputStream;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream outputStream) {
+        this.objectWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Writes a single value followed by a new line
+     *
+     * @param value the value to serialize
+     * @throws UncheckedIOException if writing to the underlying stream fails
+     */
+    public void write(Object value) {
+        try {
+            objectWriter.writeValue(outputStream, value);
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.andreiharpa.assignment.utils;
+
+import com.andreiharpa.assignment.exceptions.InvalidCursorException;
+import com.andreiharpa.assignment.models.Order;
+import com.andreiharpa.assignment.models.OrderSnapshot;
+import com.andreiharpa.assignment.repositories.OrderRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Keyset position inside a time interval of orders, ordered by (timestamp, id)
+ *
+ * @author Andrei Harpa
+ *
+ */
+@Data
+@AllArgsConstructor
+public class OrderCursor {
+    private static final String SEPARATOR = ":";
+
+    private final Date timestamp;
+
+    private final UUID id;
+
+    /**
+     * Creates a cursor pointing right after the given order
+     *
+     * @param order the last {@link Order} that was returned
+     * @return the {@link OrderCursor}
+     */
+    public static OrderCursor after(Order order) {
+        return new OrderCursor(order.getTimestamp(), order.getId());
+    }
+
+    /**
+     * Creates a cursor pointing right after the given order snapshot
+     *
+     * @param orderSnapshot the last {@link OrderSnapshot} that was returned
+     * @return the {@link OrderCursor}
+     */
+    public static OrderCursor after(OrderSnapshot orderSnapshot) {
+        return new OrderCursor(orderSnapshot.getTimestamp(), orderSnapshot.getId());
+    }
+
+    /**
+     * Creates a cursor pointing right after the given order header
+     *
+     * @param orderHeader the last {@link OrderRepository.OrderHeader} that was returned
+     * @return the {@link OrderCursor}
+     */
+    public static OrderCursor after(OrderRepository.OrderHeader orderHeader) {
+        return new OrderCursor(orderHeader.getTimestamp(), orderHeader.getId());
+    }
+
+    /**
+     * Decodes an opaque cursor token
+     *
+     * @param token the token returned by {@link #encode()}
+     * @return the {@link OrderCursor}
+     * @throws InvalidCursorException if the token is malformed
+     */
+    public static OrderCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(SEPARATOR, 2);
+            return new OrderCursor(new Date(Long.parseLong(parts[0])), UUID.fromString(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new InvalidCursorException(String.format("Invalid cursor: %s", token));
+        }
+    }
+
+    /**
+     * Encodes the cursor as an opaque, url safe token
+     *
+     * @return the token
+     */
+    public String encode() {
+        String raw = timestamp.getTime() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
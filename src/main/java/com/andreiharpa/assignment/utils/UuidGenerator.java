@@ -1,23 +1,62 @@
 package com.andreiharpa.assignment.utils;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Wrapper class for UUID generation
  *
+ * The generation mode is selected with the "uuid.generator.mode" property:
+ * <ul>
+ *     <li>random - random (version 4) UUIDs drawn from the shared {@link java.security.SecureRandom}</li>
+ *     <li>time-ordered - UUIDv7 style UUIDs, a millisecond timestamp followed by random bits from
+ *     {@link ThreadLocalRandom}. Consecutive ids land next to each other in the primary key indexes and
+ *     generating them does not contend on a shared random source, but they are not suitable as secrets.</li>
+ * </ul>
+ *
  * @author Andrei Harpa
  *
  */
 @Component
 public class UuidGenerator {
+    public enum Mode {
+        RANDOM,
+        TIME_ORDERED
+    }
+
+    private static final long VERSION_7 = 0x7000L;
+    private static final long RAND_A_MASK = 0x0FFFL;
+    private static final long IETF_VARIANT = 0x8000000000000000L;
+    private static final long RAND_B_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private final Mode mode;
+
+    public UuidGenerator(@Value("${uuid.generator.mode:random}") Mode mode) {
+        this.mode = mode;
+    }
+
     /**
-     * Generates random {@link UUID}
+     * Generates a {@link UUID} according to the configured mode
      *
      * @return the generated {@link UUID}
      */
     public UUID generate() {
-        return UUID.randomUUID();
+        return mode == Mode.TIME_ORDERED ? generateTimeOrdered() : UUID.randomUUID();
+    }
+
+    /**
+     * Generates a time ordered {@link UUID}: 48 bits of unix epoch milliseconds, the version,
+     * 12 random bits, the variant and 62 random bits
+     *
+     * @return the generated {@link UUID}
+     */
+    public static UUID generateTimeOrdered() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (System.currentTimeMillis() << 16) | VERSION_7 | (random.nextLong() & RAND_A_MASK);
+        long leastSigBits = IETF_VARIANT | (random.nextLong() & RAND_B_MASK);
+        return new UUID(mostSigBits, leastSigBits);
     }
 }
@@ -0,0 +1,56 @@
+package com.andreiharpa.assignment.utils;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+/**
+ * MD5 digest of the ids and versions of a list of entities
+ *
+ * The digest changes whenever an entity is added, removed or updated, which makes it usable as the ETag of the list
+ * while reading only the id and version columns.
+ *
+ * @author Andrei Harpa
+ *
+ */
+public class VersionDigest {
+    private final MessageDigest messageDigest;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(3 * Long.BYTES);
+
+    public VersionDigest() {
+        try {
+            messageDigest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not supported", e);
+        }
+    }
+
+    /**
+     * Adds an entity to the digest
+     *
+     * @param id the entity id
+     * @param version the entity version
+     * @return this digest
+     */
+    public VersionDigest add(UUID id, long version) {
+        buffer.clear();
+        buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).putLong(version);
+        messageDigest.update(buffer.array());
+        return this;
+    }
+
+    /**
+     * Completes the digest, no entities can be added afterwards
+     *
+     * @return the hex encoded digest
+     */
+    public String digest() {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : messageDigest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
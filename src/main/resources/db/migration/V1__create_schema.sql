@@ -0,0 +1,32 @@
+-- Schema previously created by hibernate ddl-auto=update, before the order item id sequence (V9)
+
+create table products (
+    id binary not null,
+    name varchar(50) not null,
+    price decimal(19,2) not null,
+    primary key (id)
+);
+
+create table orders (
+    id binary not null,
+    customer_email varchar(255) not null,
+    timestamp date,
+    total_price decimal(19,2),
+    primary key (id)
+);
+
+create table order_items (
+    id bigint generated by default as identity,
+    price decimal(19,2),
+    product_id binary,
+    primary key (id),
+    constraint fk_order_items_product foreign key (product_id) references products
+);
+
+create table orders_order_items (
+    order_id binary not null,
+    order_items_id bigint not null,
+    constraint uk_orders_order_items_order_item unique (order_items_id),
+    constraint fk_orders_order_items_order foreign key (order_id) references orders,
+    constraint fk_orders_order_items_order_item foreign key (order_items_id) references order_items
+);
@@ -0,0 +1,5 @@
+-- Store the full creation instant instead of the date only, interval queries are second precise
+alter table orders alter column timestamp timestamp;
+
+-- Supports interval queries and the (timestamp, id) keyset pagination
+create index idx_orders_timestamp_id on orders (timestamp, id);
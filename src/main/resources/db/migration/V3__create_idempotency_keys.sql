@@ -0,0 +1,10 @@
+-- Orders created per idempotency key, used when orders.idempotency.store=jdbc
+create table idempotency_keys (
+    idempotency_key varchar(255) not null,
+    request_hash varchar(32) not null,
+    response clob,
+    created_at timestamp not null,
+    primary key (idempotency_key)
+);
+
+create index idx_idempotency_keys_created_at on idempotency_keys (created_at);
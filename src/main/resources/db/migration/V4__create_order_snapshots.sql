@@ -0,0 +1,9 @@
+-- Serialized orders read by the interval queries, filled for existing orders on startup
+create table order_snapshots (
+    id binary not null,
+    timestamp timestamp not null,
+    payload varchar not null,
+    primary key (id)
+);
+
+create index idx_order_snapshots_timestamp_id on order_snapshots (timestamp, id);
@@ -0,0 +1,2 @@
+-- Order items become order lines, existing items each stand for a single unit
+alter table order_items add column quantity int default 1 not null;
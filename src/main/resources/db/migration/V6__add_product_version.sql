@@ -0,0 +1,2 @@
+-- Optimistic locking version of products, also sent to clients as the product ETag
+alter table products add column version bigint default 0 not null;
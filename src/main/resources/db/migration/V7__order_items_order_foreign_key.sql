@@ -0,0 +1,17 @@
+-- Order items reference their order directly instead of through the orders_order_items join table
+alter table order_items add column order_id binary;
+
+update order_items i set order_id = (
+    select oi.order_id from orders_order_items oi where oi.order_items_id = i.id);
+
+-- Items that were never linked to an order cannot be read through any order
+delete from order_items where order_id is null;
+
+alter table order_items alter column order_id set not null;
+
+-- Created before the foreign key so H2 uses it for the constraint instead of adding its own index
+create index idx_order_items_order_id on order_items (order_id);
+
+alter table order_items add constraint fk_order_items_order foreign key (order_id) references orders;
+
+drop table orders_order_items;
@@ -0,0 +1,6 @@
+-- One-off startup jobs that finished, so later starts skip them
+create table completed_startup_jobs (
+    name varchar(64) not null,
+    completed_at timestamp not null,
+    primary key (name)
+);
@@ -0,0 +1,7 @@
+-- Order item ids are drawn from a pooled sequence (allocation size 50) instead of the identity column, so the
+-- items of an order can be inserted as a JDBC batch. Each sequence value reserves the 50 ids up to and including
+-- it, so the first one is placed 50 past the highest existing id. A database created by ddl-auto=update after the
+-- sequence was introduced already has it.
+create sequence if not exists order_items_seq start with 1 increment by 50;
+
+alter sequence order_items_seq restart with (select coalesce(max(id), 0) + 50 from order_items);
@@ -0,0 +1,90 @@
+package com.andreiharpa.assignment.cache;
+
+import com.andreiharpa.assignment.models.Product;
+import com.andreiharpa.assignment.utils.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProductCacheTests {
+    private static final UUID TEST_PRODUCT_ID = UUID.fromString("b2abf4cd-7498-4ee0-a6d6-13c4060266ef");
+    private static final Product TEST_STALE_PRODUCT =
+            new Product(TEST_PRODUCT_ID, "test-product", Money.of(BigDecimal.TEN), 1L);
+    private static final Product TEST_UPDATED_PRODUCT =
+            new Product(TEST_PRODUCT_ID, "test-product", Money.of(BigDecimal.ONE), 2L);
+
+    private final ProductCache productCache =
+            new ProductCache(true, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testLoadDoesNotOverwriteConcurrentUpdate() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        Future<Map<UUID, Product>> load = executor.submit(() -> productCache.getAll(
+                Collections.singleton(TEST_PRODUCT_ID), ids -> {
+                    // Reads the product, then finishes loading after the update was stored
+                    loadStarted.countDown();
+                    awaitQuietly(updated);
+                    return Collections.singletonList(TEST_STALE_PRODUCT);
+                }));
+
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        productCache.put(TEST_UPDATED_PRODUCT);
+        updated.countDown();
+
+        assertEquals(TEST_UPDATED_PRODUCT, load.get(5, TimeUnit.SECONDS).get(TEST_PRODUCT_ID));
+        assertEquals(TEST_UPDATED_PRODUCT, productCache.getIfPresent(TEST_PRODUCT_ID).get());
+    }
+
+    @Test
+    public void testPutDoesNotReplaceNewerVersion() {
+        productCache.put(TEST_UPDATED_PRODUCT);
+        productCache.put(TEST_STALE_PRODUCT);
+
+        assertEquals(TEST_UPDATED_PRODUCT, productCache.getIfPresent(TEST_PRODUCT_ID).get());
+    }
+
+    @Test
+    public void testGetAllLoadsOnlyMisses() {
+        productCache.put(TEST_UPDATED_PRODUCT);
+        UUID missingId = UUID.randomUUID();
+
+        Map<UUID, Product> products = productCache.getAll(
+                Arrays.asList(TEST_PRODUCT_ID, missingId), ids -> {
+                    assertEquals(Collections.singleton(missingId), ids);
+                    return Collections.emptyList();
+                });
+
+        assertEquals(Collections.singletonMap(TEST_PRODUCT_ID, TEST_UPDATED_PRODUCT), products);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package com.andreiharpa.assignment.controllers;
 
+import com.andreiharpa.assignment.dtos.BatchOrderResultDto;
 import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.CreateOrderLineDto;
 import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderPageDto;
 import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.exceptions.IdempotencyKeyReusedException;
+import com.andreiharpa.assignment.exceptions.InvalidCursorException;
 import com.andreiharpa.assignment.exceptions.OrderNotFoundException;
 import com.andreiharpa.assignment.exceptions.OrderProductNotFoundException;
+import com.andreiharpa.assignment.exceptions.OrderQuantityTooLargeException;
+import com.andreiharpa.assignment.exceptions.OrderTotalTooLargeException;
+import com.andreiharpa.assignment.idempotency.IdempotencyStore;
 import com.andreiharpa.assignment.services.OrderService;
+import com.andreiharpa.assignment.utils.Money;
+import com.andreiharpa.assignment.utils.NdjsonWriter;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -15,23 +25,36 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
@@ -39,13 +62,16 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 public class OrderControllerTests {
     private static final String API_URL = "/v1/orders/";
     private static final UUID TEST_ORDER_ID = UUID.fromString("b2abf4cd-7498-4ee0-a6d6-13c4060266ef");
-    private static final BigDecimal TEST_ORDER_TOTAL_PRICE = BigDecimal.TEN;
+    private static final Money TEST_ORDER_TOTAL_PRICE = Money.of(BigDecimal.TEN);
     private static final String TEST_ORDER_CUSTOMER_EMAIL = "contact@andreiharpa.dev";
     private static final UUID TEST_ORDER_PRODUCT_ID = UUID.fromString("a2aaa4aa-7498-4ee0-a6d6-13c4060266ef");
     private static final String TEST_ORDER_PRODUCT_NAME = "test-product-name";
-    private static final BigDecimal TEST_ORDER_PRODUCT_PRICE = BigDecimal.TEN;
+    private static final Money TEST_ORDER_PRODUCT_PRICE = Money.of(BigDecimal.TEN);
     private static final String START_TIME_STRING = "2020-11-09T00:00:00";
     private static final String END_TIME_STRING = "2020-11-09T01:00:00";
+    private static final String TEST_CURSOR = "test-cursor";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String TEST_IDEMPOTENCY_KEY = "test-idempotency-key";
 
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat(OrderDto.TIMESTAMP_FORMAT);
@@ -54,6 +80,12 @@ public class OrderControllerTests {
     @Mock
     private OrderService orderServiceMock;
 
+    @Mock
+    private IdempotencyStore idempotencyStoreMock;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private OrderController orderController;
 
@@ -78,6 +110,31 @@ public class OrderControllerTests {
         assertEquals(orderDto, readOrderDto(response.getContentAsString()));
     }
 
+    @Test
+    public void GIVEN_orderServiceReturnsOrderDto_WHEN_getOrderById_THEN_ReturnPrivateCacheControl() throws Exception {
+        when(orderServiceMock.getById(TEST_ORDER_ID)).thenReturn(getTestOrderDto());
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL + TEST_ORDER_ID))
+                .andReturn().getResponse();
+
+        assertEquals("max-age=60, private", response.getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    public void GIVEN_summaryView_WHEN_getOrderById_THEN_ReturnOrderWithoutProducts() throws Exception {
+        OrderDto orderDto = getTestOrderSummaryDto();
+        when(orderServiceMock.getSummaryById(TEST_ORDER_ID)).thenReturn(orderDto);
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL + TEST_ORDER_ID)
+                .param("view", OrderController.SUMMARY_VIEW)).andReturn().getResponse();
+
+        verify(orderServiceMock).getSummaryById(TEST_ORDER_ID);
+        verify(orderServiceMock, never()).getById(any());
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(orderDto, readOrderDto(response.getContentAsString()));
+        assertFalse(response.getContentAsString().contains("products"));
+    }
+
     @Test
     public void GIVEN_orderServiceThrowsOrderNotFoundException_WHEN_getOrderById_THEN_ReturnNotFound() throws Exception {
         when(orderServiceMock.getById(TEST_ORDER_ID)).thenThrow(OrderNotFoundException.class);
@@ -103,6 +160,85 @@ public class OrderControllerTests {
         assertEquals(orderDto, readOrderDto(response.getContentAsString()));
     }
 
+    @Test
+    public void GIVEN_orderLinesWithQuantity_WHEN_createOrder_THEN_ReturnCreated() throws Exception {
+        CreateOrderDto testCreateOrderDto = CreateOrderDto.builder()
+                .customerEmail(TEST_ORDER_CUSTOMER_EMAIL)
+                .lines(Collections.singletonList(new CreateOrderLineDto(TEST_ORDER_PRODUCT_ID, 200)))
+                .build();
+        OrderDto orderDto = getTestOrderDto();
+
+        when(orderServiceMock.create(testCreateOrderDto)).thenReturn(orderDto);
+        MockHttpServletResponse response = mvc.perform(post(API_URL)
+                .content(OBJECT_MAPPER.writeValueAsString(testCreateOrderDto))
+                .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        verify(orderServiceMock).create(testCreateOrderDto);
+        assertEquals(HttpStatus.CREATED.value(), response.getStatus());
+    }
+
+    @Test
+    public void GIVEN_neitherProductIdsNorLines_WHEN_createOrder_THEN_ReturnBadRequest() throws Exception {
+        CreateOrderDto testCreateOrderDto = CreateOrderDto.builder()
+                .customerEmail(TEST_ORDER_CUSTOMER_EMAIL)
+                .productIds(Collections.emptyList())
+                .build();
+
+        MockHttpServletResponse response = mvc.perform(post(API_URL)
+                .content(OBJECT_MAPPER.writeValueAsString(testCreateOrderDto))
+                .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        verify(orderServiceMock, times(0)).create(any());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+    }
+
+    @Test
+    public void GIVEN_orderLineWithoutPositiveQuantity_WHEN_createOrder_THEN_ReturnBadRequest() throws Exception {
+        CreateOrderDto testCreateOrderDto = CreateOrderDto.builder()
+                .customerEmail(TEST_ORDER_CUSTOMER_EMAIL)
+                .lines(Collections.singletonList(new CreateOrderLineDto(TEST_ORDER_PRODUCT_ID, 0)))
+                .build();
+
+        MockHttpServletResponse response = mvc.perform(post(API_URL)
+                .content(OBJECT_MAPPER.writeValueAsString(testCreateOrderDto))
+                .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        verify(orderServiceMock, times(0)).create(any());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+    }
+
+    @Test
+    public void GIVEN_idempotencyKey_WHEN_createOrder_THEN_ReturnOrderFromIdempotencyStore() throws Exception {
+        CreateOrderDto testCreateOrderDto = getTestCreateOrderDto();
+        OrderDto orderDto = getTestOrderDto();
+
+        when(idempotencyStoreMock.createOnce(eq(TEST_IDEMPOTENCY_KEY), eq(testCreateOrderDto), any()))
+                .thenReturn(orderDto);
+        MockHttpServletResponse response = mvc.perform(post(API_URL)
+                .header(IdempotencyStore.IDEMPOTENCY_KEY_HEADER, TEST_IDEMPOTENCY_KEY)
+                .content(OBJECT_MAPPER.writeValueAsString(testCreateOrderDto))
+                .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        verify(idempotencyStoreMock).createOnce(eq(TEST_IDEMPOTENCY_KEY), eq(testCreateOrderDto), any());
+        assertEquals(HttpStatus.CREATED.value(), response.getStatus());
+        assertEquals(orderDto, readOrderDto(response.getContentAsString()));
+    }
+
+    @Test
+    public void GIVEN_idempotencyStoreThrowsIdempotencyKeyReusedException_WHEN_createOrder_THEN_ReturnUnprocessableEntity()
+            throws Exception {
+        CreateOrderDto testCreateOrderDto = getTestCreateOrderDto();
+
+        when(idempotencyStoreMock.createOnce(eq(TEST_IDEMPOTENCY_KEY), eq(testCreateOrderDto), any()))
+                .thenThrow(IdempotencyKeyReusedException.class);
+        MockHttpServletResponse response = mvc.perform(post(API_URL)
+                .header(IdempotencyStore.IDEMPOTENCY_KEY_HEADER, TEST_IDEMPOTENCY_KEY)
+                .content(OBJECT_MAPPER.writeValueAsString(testCreateOrderDto))
+                .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), response.getStatus());
+    }
+
     @Test
     public void GIVEN_orderServiceThrowsOrderProductNotFoundException_WHEN_createOrder_THEN_ReturnUnprocessableEntity()
             throws Exception {
@@ -117,40 +253,175 @@ public class OrderControllerTests {
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), response.getStatus());
     }
 
+    @Test
+    public void GIVEN_orderServiceThrowsOrderTotalTooLargeException_WHEN_createOrder_THEN_ReturnUnprocessableEntity()
+            throws Exception {
+        CreateOrderDto testCreateOrderDto = getTestCreateOrderDto();
+
+        when(orderServiceMock.create(testCreateOrderDto)).thenThrow(OrderTotalTooLargeException.class);
+        MockHttpServletResponse response = mvc.perform(post(API_URL)
+                .content(OBJECT_MAPPER.writeValueAsString(testCreateOrderDto))
+                .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), response.getStatus());
+    }
+
+    @Test
+    public void GIVEN_orderServiceThrowsOrderQuantityTooLargeException_WHEN_createOrder_THEN_ReturnBadRequest()
+            throws Exception {
+        CreateOrderDto testCreateOrderDto = getTestCreateOrderDto();
+
+        when(orderServiceMock.create(testCreateOrderDto)).thenThrow(OrderQuantityTooLargeException.class);
+        MockHttpServletResponse response = mvc.perform(post(API_URL)
+                .content(OBJECT_MAPPER.writeValueAsString(testCreateOrderDto))
+                .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+    }
+
+    @Test
+    public void GIVEN_orderServiceReturnsBatchResults_WHEN_createOrders_THEN_ReturnOk() throws Exception {
+        List<CreateOrderDto> createOrderDtos = Arrays.asList(getTestCreateOrderDto(), getTestCreateOrderDto());
+        List<BatchOrderResultDto> results = Arrays.asList(
+                BatchOrderResultDto.builder().index(0).order(getTestOrderDto()).build(),
+                BatchOrderResultDto.builder().index(1).error("test-error").build());
+
+        when(orderServiceMock.createAll(createOrderDtos)).thenReturn(results);
+        MockHttpServletResponse response = mvc.perform(post(API_URL + "batch")
+                .content(OBJECT_MAPPER.writeValueAsString(createOrderDtos))
+                .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        verify(orderServiceMock).createAll(createOrderDtos);
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(results, OBJECT_MAPPER.readValue(response.getContentAsString(),
+                new TypeReference<List<BatchOrderResultDto>>() {}));
+    }
+
     @Test
     public void GIVEN_orderServiceReturnsNonEmptyList_WHEN_getOrdersWithTimeInterval_THEN_ReturnOk()
             throws Exception {
 
         List<OrderDto> orderDtoList = Collections.singletonList(getTestOrderDto());
-        when(orderServiceMock.getAllInTimeInterval(any(), any())).thenReturn(orderDtoList);
+        when(orderServiceMock.getPageInTimeInterval(any(), any(), any(), anyInt()))
+                .thenReturn(new OrderPageDto(orderDtoList, null));
 
         MockHttpServletResponse response = mvc.perform(get(API_URL)
                     .param("startTime", START_TIME_STRING)
                     .param("endTime", END_TIME_STRING)).andReturn().getResponse();
 
-        verify(orderServiceMock).getAllInTimeInterval(
+        verify(orderServiceMock).getPageInTimeInterval(
+                DATE_FORMAT.parse(START_TIME_STRING),
+                DATE_FORMAT.parse(END_TIME_STRING),
+                null,
+                DEFAULT_PAGE_SIZE);
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(orderDtoList, readOrderDtoList(response.getContentAsString()));
+        assertNull(response.getHeader(OrderController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void GIVEN_summaryView_WHEN_getOrdersWithTimeInterval_THEN_ReturnOrdersWithoutProducts() throws Exception {
+        List<OrderDto> orderDtoList = Collections.singletonList(getTestOrderSummaryDto());
+        when(orderServiceMock.getSummaryPageInTimeInterval(any(), any(), any(), anyInt()))
+                .thenReturn(new OrderPageDto(orderDtoList, null));
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL)
+                .param("startTime", START_TIME_STRING)
+                .param("endTime", END_TIME_STRING)
+                .param("view", OrderController.SUMMARY_VIEW)).andReturn().getResponse();
+
+        verify(orderServiceMock).getSummaryPageInTimeInterval(
                 DATE_FORMAT.parse(START_TIME_STRING),
-                DATE_FORMAT.parse(END_TIME_STRING));
+                DATE_FORMAT.parse(END_TIME_STRING),
+                null,
+                DEFAULT_PAGE_SIZE);
+        verify(orderServiceMock, never()).getPageInTimeInterval(any(), any(), any(), anyInt());
         assertEquals(HttpStatus.OK.value(), response.getStatus());
         assertEquals(orderDtoList, readOrderDtoList(response.getContentAsString()));
     }
 
+    @Test
+    public void GIVEN_orderServiceReturnsPageWithNextCursor_WHEN_getOrdersWithTimeInterval_THEN_ReturnCursorHeader()
+            throws Exception {
+
+        List<OrderDto> orderDtoList = Collections.singletonList(getTestOrderDto());
+        when(orderServiceMock.getPageInTimeInterval(any(), any(), any(), anyInt()))
+                .thenReturn(new OrderPageDto(orderDtoList, TEST_CURSOR));
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL)
+                .param("startTime", START_TIME_STRING)
+                .param("endTime", END_TIME_STRING)
+                .param("cursor", TEST_CURSOR)
+                .param("limit", "1")).andReturn().getResponse();
+
+        verify(orderServiceMock).getPageInTimeInterval(
+                DATE_FORMAT.parse(START_TIME_STRING),
+                DATE_FORMAT.parse(END_TIME_STRING),
+                TEST_CURSOR,
+                1);
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(TEST_CURSOR, response.getHeader(OrderController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void GIVEN_orderServiceThrowsInvalidCursorException_WHEN_getOrdersWithTimeInterval_THEN_ReturnBadRequest()
+            throws Exception {
+
+        when(orderServiceMock.getPageInTimeInterval(any(), any(), any(), anyInt()))
+                .thenThrow(InvalidCursorException.class);
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL)
+                .param("startTime", START_TIME_STRING)
+                .param("endTime", END_TIME_STRING)
+                .param("cursor", TEST_CURSOR)).andReturn().getResponse();
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+    }
+
     @Test
     public void GIVEN_orderServiceReturnsEmptyList_WHEN_getOrdersWithTimeInterval_THEN_ReturnNoContent()
             throws Exception {
 
-        when(orderServiceMock.getAllInTimeInterval(any(), any())).thenReturn(Collections.emptyList());
+        when(orderServiceMock.getPageInTimeInterval(any(), any(), any(), anyInt()))
+                .thenReturn(new OrderPageDto(Collections.emptyList(), null));
 
         MockHttpServletResponse response = mvc.perform(get(API_URL)
                 .param("startTime", START_TIME_STRING)
                 .param("endTime", END_TIME_STRING)).andReturn().getResponse();
 
-        verify(orderServiceMock).getAllInTimeInterval(
+        verify(orderServiceMock).getPageInTimeInterval(
                 DATE_FORMAT.parse(START_TIME_STRING),
-                DATE_FORMAT.parse(END_TIME_STRING));
+                DATE_FORMAT.parse(END_TIME_STRING),
+                null,
+                DEFAULT_PAGE_SIZE);
         assertEquals(HttpStatus.NO_CONTENT.value(), response.getStatus());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void GIVEN_ndjsonRequested_WHEN_getOrdersWithTimeInterval_THEN_StreamOrders() throws Exception {
+        OrderDto orderDto = getTestOrderDto();
+        doAnswer(invocation -> {
+            Consumer<OrderDto> consumer = invocation.getArgument(2);
+            consumer.accept(orderDto);
+            consumer.accept(orderDto);
+            return null;
+        }).when(orderServiceMock).forEachInTimeInterval(any(), any(), any());
+
+        MvcResult result = mvc.perform(get(API_URL)
+                .accept(NdjsonWriter.APPLICATION_NDJSON)
+                .param("startTime", START_TIME_STRING)
+                .param("endTime", END_TIME_STRING)).andReturn();
+        MockHttpServletResponse response = mvc.perform(asyncDispatch(result)).andReturn().getResponse();
+
+        String[] lines = response.getContentAsString().split("\n");
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        verify(objectMapper).writer();
+        assertEquals(2, lines.length);
+        assertEquals(orderDto, readOrderDto(lines[0]));
+        assertEquals(orderDto, readOrderDto(lines[1]));
+    }
+
     private OrderDto readOrderDto(String jsonString) throws JsonProcessingException {
         return OBJECT_MAPPER.readValue(jsonString, OrderDto.class);
     }
@@ -173,6 +444,15 @@ public class OrderControllerTests {
                 .build();
     }
 
+    private OrderDto getTestOrderSummaryDto() {
+        return OrderDto
+                .builder()
+                .id(TEST_ORDER_ID)
+                .customerEmail(TEST_ORDER_CUSTOMER_EMAIL)
+                .totalPrice(TEST_ORDER_TOTAL_PRICE)
+                .build();
+    }
+
     private CreateOrderDto getTestCreateOrderDto() {
         return CreateOrderDto
                 .builder()
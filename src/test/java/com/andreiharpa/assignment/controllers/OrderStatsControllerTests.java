@@ -0,0 +1,171 @@
+package com.andreiharpa.assignment.controllers;
+
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderStatsDto;
+import com.andreiharpa.assignment.dtos.OrderStatsGroupDto;
+import com.andreiharpa.assignment.dtos.OrderStatsGrouping;
+import com.andreiharpa.assignment.dtos.ProductStatsDto;
+import com.andreiharpa.assignment.exceptions.OrderRollupsNotReadyException;
+import com.andreiharpa.assignment.exceptions.UnsupportedStatsGroupingException;
+import com.andreiharpa.assignment.rollups.OrderRollups;
+import com.andreiharpa.assignment.services.OrderStatsService;
+import com.andreiharpa.assignment.utils.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@ExtendWith(SpringExtension.class)
+public class OrderStatsControllerTests {
+    private static final String API_URL = "/v1/orders/stats";
+    private static final String START_TIME_STRING = "2020-11-09T00:00:00";
+    private static final String END_TIME_STRING = "2020-11-10T00:00:00";
+    private static final int DEFAULT_GROUPS = 100;
+    private static final int DEFAULT_TOP_PRODUCTS = 10;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat(OrderDto.TIMESTAMP_FORMAT);
+    private MockMvc mvc;
+
+    @Mock
+    private OrderStatsService orderStatsServiceMock;
+
+    @Mock
+    private OrderRollups orderRollupsMock;
+
+    @InjectMocks
+    private OrderStatsController orderStatsController;
+
+    @Before
+    public void before(){
+        MockitoAnnotations.initMocks(this);
+        mvc = MockMvcBuilders
+                .standaloneSetup(orderStatsController)
+                .build();
+    }
+
+    @Test
+    public void GIVEN_orderStatsServiceReturnsStats_WHEN_getStatsWithTimeInterval_THEN_ReturnOk() throws Exception {
+        OrderStatsDto orderStats = getTestOrderStatsDto();
+        when(orderStatsServiceMock.getStats(any(), any(), any(), anyInt(), anyInt())).thenReturn(orderStats);
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL)
+                .param("startTime", START_TIME_STRING)
+                .param("endTime", END_TIME_STRING)).andReturn().getResponse();
+
+        verify(orderStatsServiceMock).getStats(
+                DATE_FORMAT.parse(START_TIME_STRING),
+                DATE_FORMAT.parse(END_TIME_STRING),
+                OrderStatsGrouping.DAY,
+                DEFAULT_GROUPS,
+                DEFAULT_TOP_PRODUCTS);
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(orderStats, OBJECT_MAPPER.readValue(response.getContentAsString(), OrderStatsDto.class));
+    }
+
+    @Test
+    public void GIVEN_groupByCustomer_WHEN_getStatsWithTimeInterval_THEN_PassGroupingToService() throws Exception {
+        when(orderStatsServiceMock.getStats(any(), any(), any(), anyInt(), anyInt())).thenReturn(getTestOrderStatsDto());
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL)
+                .param("startTime", START_TIME_STRING)
+                .param("endTime", END_TIME_STRING)
+                .param("groupBy", OrderStatsGrouping.CUSTOMER.name())
+                .param("top", "0")).andReturn().getResponse();
+
+        verify(orderStatsServiceMock).getStats(any(), any(), eq(OrderStatsGrouping.CUSTOMER), eq(DEFAULT_GROUPS), eq(0));
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+    }
+
+    @Test
+    public void GIVEN_unknownGrouping_WHEN_getStatsWithTimeInterval_THEN_ReturnBadRequest() throws Exception {
+        MockHttpServletResponse response = mvc.perform(get(API_URL)
+                .param("startTime", START_TIME_STRING)
+                .param("endTime", END_TIME_STRING)
+                .param("groupBy", "week")).andReturn().getResponse();
+
+        verifyNoInteractions(orderStatsServiceMock);
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+    }
+
+    @Test
+    public void GIVEN_orderRollupsReturnStats_WHEN_getLiveStatsWithTimeInterval_THEN_ReturnOk() throws Exception {
+        OrderStatsDto orderStats = getTestOrderStatsDto();
+        when(orderRollupsMock.getStats(any(), any(), any(), anyInt(), anyInt())).thenReturn(orderStats);
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL + "/live")
+                .param("startTime", START_TIME_STRING)
+                .param("endTime", END_TIME_STRING)).andReturn().getResponse();
+
+        verify(orderRollupsMock).getStats(
+                DATE_FORMAT.parse(START_TIME_STRING),
+                DATE_FORMAT.parse(END_TIME_STRING),
+                OrderStatsGrouping.MINUTE,
+                DEFAULT_GROUPS,
+                DEFAULT_TOP_PRODUCTS);
+        verifyNoInteractions(orderStatsServiceMock);
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(orderStats, OBJECT_MAPPER.readValue(response.getContentAsString(), OrderStatsDto.class));
+    }
+
+    @Test
+    public void GIVEN_orderRollupsThrowUnsupportedStatsGroupingException_WHEN_getLiveStatsWithTimeInterval_THEN_ReturnBadRequest()
+            throws Exception {
+        when(orderRollupsMock.getStats(any(), any(), eq(OrderStatsGrouping.CUSTOMER), anyInt(), anyInt()))
+                .thenThrow(new UnsupportedStatsGroupingException("test"));
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL + "/live")
+                .param("startTime", START_TIME_STRING)
+                .param("endTime", END_TIME_STRING)
+                .param("groupBy", OrderStatsGrouping.CUSTOMER.name())).andReturn().getResponse();
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+    }
+
+    @Test
+    public void GIVEN_orderRollupsThrowOrderRollupsNotReadyException_WHEN_getLiveStatsWithTimeInterval_THEN_ReturnServiceUnavailable()
+            throws Exception {
+        when(orderRollupsMock.getStats(any(), any(), any(), anyInt(), anyInt()))
+                .thenThrow(new OrderRollupsNotReadyException("test"));
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL + "/live")
+                .param("startTime", START_TIME_STRING)
+                .param("endTime", END_TIME_STRING)).andReturn().getResponse();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+    }
+
+    private OrderStatsDto getTestOrderStatsDto() {
+        return OrderStatsDto.builder()
+                .orderCount(2)
+                .revenue(Money.ofMinorUnits(1000))
+                .averageOrderValue(Money.ofMinorUnits(500))
+                .groupBy(OrderStatsGrouping.DAY)
+                .groups(Collections.singletonList(new OrderStatsGroupDto(
+                        "2020-11-09T00:00:00", 2, Money.ofMinorUnits(1000), Money.ofMinorUnits(500))))
+                .topProducts(Collections.singletonList(new ProductStatsDto(
+                        UUID.fromString("a2aaa4aa-7498-4ee0-a6d6-13c4060266ef"), "test-product-name", 2, Money.ofMinorUnits(1000))))
+                .build();
+    }
+}
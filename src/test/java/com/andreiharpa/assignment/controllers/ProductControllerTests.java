@@ -4,7 +4,12 @@ import com.andreiharpa.assignment.dtos.CreateProductDto;
 import com.andreiharpa.assignment.dtos.ProductDto;
 import com.andreiharpa.assignment.dtos.UpdateProductDto;
 import com.andreiharpa.assignment.exceptions.ProductNotFoundException;
+import com.andreiharpa.assignment.exceptions.ProductVersionConflictException;
+import com.andreiharpa.assignment.exceptions.ProductVersionMismatchException;
 import com.andreiharpa.assignment.services.ProductService;
+import com.andreiharpa.assignment.utils.Money;
+import com.andreiharpa.assignment.utils.NdjsonWriter;
+import com.andreiharpa.assignment.utils.VersionDigest;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -14,22 +19,32 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
@@ -40,6 +55,8 @@ public class ProductControllerTests {
     private static final UUID TEST_PRODUCT_ID = UUID.fromString("b2abf4cd-7498-4ee0-a6d6-13c4060266ef");
     private static final String TEST_PRODUCT_NAME = "test-product-name";
     private static final BigDecimal TEST_PRODUCT_PRICE = BigDecimal.TEN;
+    private static final long TEST_PRODUCT_VERSION = 3L;
+    private static final String TEST_CATALOG_VERSION = "0123456789abcdef";
 
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private MockMvc mvc;
@@ -47,6 +64,9 @@ public class ProductControllerTests {
     @Mock
     private ProductService productServiceMock;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private ProductController productController;
 
@@ -76,10 +96,78 @@ public class ProductControllerTests {
         MockHttpServletResponse response = mvc.perform(get(API_URL)).andReturn().getResponse();
 
         verify(productServiceMock).getAll();
+        verify(productServiceMock, never()).getAllVersion();
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(getTestProductETag(), response.getHeader(HttpHeaders.ETAG));
+        assertEquals(productDtos, readProductDtoList(response.getContentAsString()));
+    }
+
+    @Test
+    public void GIVEN_pageRequested_WHEN_getAllProducts_THEN_ReturnPage() throws Exception {
+        List<ProductDto> productDtos = Collections.singletonList(getTestProduct());
+        when(productServiceMock.getPage(2, 10)).thenReturn(productDtos);
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL)
+                .param("page", "2")
+                .param("size", "10")).andReturn().getResponse();
+
+        verify(productServiceMock).getPage(2, 10);
+        verify(productServiceMock, never()).getPageVersion(anyInt(), anyInt());
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(getTestProductETag(), response.getHeader(HttpHeaders.ETAG));
+        assertEquals(productDtos, readProductDtoList(response.getContentAsString()));
+    }
+
+    @Test
+    public void GIVEN_productsVersionMatches_WHEN_getAllProducts_THEN_ReturnNotModified() throws Exception {
+        when(productServiceMock.getAllVersion()).thenReturn(TEST_CATALOG_VERSION);
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + TEST_CATALOG_VERSION + "\""))
+                .andReturn().getResponse();
+
+        verify(productServiceMock, never()).getAll();
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        assertEquals("\"" + TEST_CATALOG_VERSION + "\"", response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void GIVEN_productsVersionChanged_WHEN_getAllProducts_THEN_ReturnOkWithNewETag() throws Exception {
+        List<ProductDto> productDtos = Collections.singletonList(getTestProduct());
+        when(productServiceMock.getAllVersion()).thenReturn(TEST_CATALOG_VERSION);
+        when(productServiceMock.getAll()).thenReturn(productDtos);
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"fedcba9876543210\""))
+                .andReturn().getResponse();
+
         assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(getTestProductETag(), response.getHeader(HttpHeaders.ETAG));
         assertEquals(productDtos, readProductDtoList(response.getContentAsString()));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void GIVEN_ndjsonRequested_WHEN_getAllProducts_THEN_StreamProducts() throws Exception {
+        ProductDto productDto = getTestProduct();
+        doAnswer(invocation -> {
+            Consumer<ProductDto> consumer = invocation.getArgument(0);
+            consumer.accept(productDto);
+            consumer.accept(productDto);
+            return null;
+        }).when(productServiceMock).forEach(any());
+
+        MvcResult result = mvc.perform(get(API_URL).accept(NdjsonWriter.APPLICATION_NDJSON)).andReturn();
+        MockHttpServletResponse response = mvc.perform(asyncDispatch(result)).andReturn().getResponse();
+
+        String[] lines = response.getContentAsString().split("\n");
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        verify(objectMapper).writer();
+        assertEquals(2, lines.length);
+        assertEquals(productDto, readProductDto(lines[0]));
+        assertEquals(productDto, readProductDto(lines[1]));
+    }
+
     @Test
     public void GIVEN_productServiceSucceeds_WHEN_getProductById_THEN_ReturnOk() throws Exception {
         ProductDto productDto = getTestProduct();
@@ -93,6 +181,61 @@ public class ProductControllerTests {
         assertEquals(productDto, readProductDto(response.getContentAsString()));
     }
 
+    @Test
+    public void GIVEN_productServiceSucceeds_WHEN_getProductById_THEN_ReturnVersionETag() throws Exception {
+        ProductDto productDto = getTestProduct();
+        productDto.setVersion(3L);
+        when(productServiceMock.getById(TEST_PRODUCT_ID)).thenReturn(productDto);
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL + TEST_PRODUCT_ID))
+                .andReturn().getResponse();
+
+        verify(productServiceMock, never()).getVersion(any());
+        assertEquals("\"3\"", response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void GIVEN_productVersionMatches_WHEN_getProductById_THEN_ReturnNotModified() throws Exception {
+        when(productServiceMock.getVersion(TEST_PRODUCT_ID)).thenReturn(Optional.of(3L));
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL + TEST_PRODUCT_ID)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andReturn().getResponse();
+
+        verify(productServiceMock, never()).getById(any());
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        assertEquals("\"3\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("", response.getContentAsString());
+    }
+
+    @Test
+    public void GIVEN_productVersionChanged_WHEN_getProductById_THEN_ReturnOk() throws Exception {
+        ProductDto productDto = getTestProduct();
+        productDto.setVersion(4L);
+        when(productServiceMock.getVersion(TEST_PRODUCT_ID)).thenReturn(Optional.of(4L));
+        when(productServiceMock.getById(TEST_PRODUCT_ID)).thenReturn(productDto);
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL + TEST_PRODUCT_ID)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andReturn().getResponse();
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals("\"4\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals(TEST_PRODUCT_NAME, readProductDto(response.getContentAsString()).getName());
+    }
+
+    @Test
+    public void GIVEN_productNotFoundWithIfNoneMatch_WHEN_getProductById_THEN_ReturnNotFound() throws Exception {
+        when(productServiceMock.getVersion(TEST_PRODUCT_ID)).thenReturn(Optional.empty());
+        when(productServiceMock.getById(TEST_PRODUCT_ID)).thenThrow(ProductNotFoundException.class);
+
+        MockHttpServletResponse response = mvc.perform(get(API_URL + TEST_PRODUCT_ID)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andReturn().getResponse();
+
+        assertEquals(HttpStatus.NOT_FOUND.value(), response.getStatus());
+    }
+
     @Test
     public void GIVEN_productServiceThrowsProductNotFoundException_WHEN_getProductById_THEN_ReturnNotFound() throws Exception {
         when(productServiceMock.getById(TEST_PRODUCT_ID)).thenThrow(ProductNotFoundException.class);
@@ -118,12 +261,27 @@ public class ProductControllerTests {
         assertEquals(testProduct, readProductDto(response.getContentAsString()));
     }
 
+    @Test
+    public void GIVEN_priceWithTooManyDigits_WHEN_createProduct_THEN_ReturnBadRequest() throws Exception {
+        CreateProductDto testCreateProductDto = CreateProductDto.builder()
+                .name(TEST_PRODUCT_NAME)
+                .price(new BigDecimal("1000000000000000"))
+                .build();
+
+        MockHttpServletResponse response = mvc.perform(post(API_URL)
+                .content(OBJECT_MAPPER.writeValueAsString(testCreateProductDto))
+                .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        verify(productServiceMock, never()).create(any());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+    }
+
     @Test
     public void GIVEN_productServiceSucceeds_WHEN_updateProduct_Then_ReturnOk() throws Exception {
         UpdateProductDto testUpdateProducDto = getTestUpdateProducDto();
         ProductDto testProduct = getTestProduct();
 
-        when(productServiceMock.update(TEST_PRODUCT_ID, testUpdateProducDto)).thenReturn(testProduct);
+        when(productServiceMock.update(TEST_PRODUCT_ID, testUpdateProducDto, null)).thenReturn(testProduct);
         MockHttpServletResponse response = mvc.perform(put(API_URL + TEST_PRODUCT_ID)
                 .content(OBJECT_MAPPER.writeValueAsString(testUpdateProducDto))
                 .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
@@ -138,7 +296,7 @@ public class ProductControllerTests {
             throws Exception {
         UpdateProductDto testUpdateProducDto = getTestUpdateProducDto();
 
-        when(productServiceMock.update(TEST_PRODUCT_ID, testUpdateProducDto)).thenThrow(ProductNotFoundException.class);
+        when(productServiceMock.update(TEST_PRODUCT_ID, testUpdateProducDto, null)).thenThrow(ProductNotFoundException.class);
         MockHttpServletResponse response = mvc.perform(put(API_URL + TEST_PRODUCT_ID)
                 .content(OBJECT_MAPPER.writeValueAsString(testUpdateProducDto))
                 .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
@@ -147,14 +305,79 @@ public class ProductControllerTests {
         assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), response.getStatus());
     }
 
+    @Test
+    public void GIVEN_productServiceThrowsProductVersionConflictException_WHEN_updateProduct_Then_ReturnConflict()
+            throws Exception {
+        UpdateProductDto testUpdateProducDto = getTestUpdateProducDto();
+
+        when(productServiceMock.update(TEST_PRODUCT_ID, testUpdateProducDto, null))
+                .thenThrow(new ProductVersionConflictException("conflict"));
+        MockHttpServletResponse response = mvc.perform(put(API_URL + TEST_PRODUCT_ID)
+                .content(OBJECT_MAPPER.writeValueAsString(testUpdateProducDto))
+                .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        assertEquals(HttpStatus.CONFLICT.value(), response.getStatus());
+    }
+
+    @Test
+    public void GIVEN_ifMatchVersion_WHEN_updateProduct_Then_UpdateExpectedVersion() throws Exception {
+        UpdateProductDto testUpdateProducDto = getTestUpdateProducDto();
+        ProductDto testProduct = getTestProduct();
+
+        when(productServiceMock.update(TEST_PRODUCT_ID, testUpdateProducDto, TEST_PRODUCT_VERSION))
+                .thenReturn(testProduct);
+        MockHttpServletResponse response = mvc.perform(put(API_URL + TEST_PRODUCT_ID)
+                .header(HttpHeaders.IF_MATCH, "\"" + TEST_PRODUCT_VERSION + "\"")
+                .content(OBJECT_MAPPER.writeValueAsString(testUpdateProducDto))
+                .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        verify(productServiceMock).update(TEST_PRODUCT_ID, testUpdateProducDto, TEST_PRODUCT_VERSION);
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+    }
+
+    @Test
+    public void GIVEN_productServiceThrowsProductVersionMismatchException_WHEN_updateProduct_Then_ReturnPreconditionFailed()
+            throws Exception {
+        UpdateProductDto testUpdateProducDto = getTestUpdateProducDto();
+
+        when(productServiceMock.update(TEST_PRODUCT_ID, testUpdateProducDto, 2L))
+                .thenThrow(new ProductVersionMismatchException("mismatch"));
+        MockHttpServletResponse response = mvc.perform(put(API_URL + TEST_PRODUCT_ID)
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .content(OBJECT_MAPPER.writeValueAsString(testUpdateProducDto))
+                .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED.value(), response.getStatus());
+    }
+
+    @Test
+    public void GIVEN_weakIfMatch_WHEN_updateProduct_Then_ExpectNoVersion() throws Exception {
+        UpdateProductDto testUpdateProducDto = getTestUpdateProducDto();
+
+        when(productServiceMock.update(TEST_PRODUCT_ID, testUpdateProducDto, -1L))
+                .thenThrow(new ProductVersionMismatchException("mismatch"));
+        MockHttpServletResponse response = mvc.perform(put(API_URL + TEST_PRODUCT_ID)
+                .header(HttpHeaders.IF_MATCH, "W/\"" + TEST_PRODUCT_VERSION + "\"")
+                .content(OBJECT_MAPPER.writeValueAsString(testUpdateProducDto))
+                .contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        verify(productServiceMock).update(TEST_PRODUCT_ID, testUpdateProducDto, -1L);
+        assertEquals(HttpStatus.PRECONDITION_FAILED.value(), response.getStatus());
+    }
+
     private ProductDto getTestProduct() {
         return ProductDto.builder()
                 .id(TEST_PRODUCT_ID)
                 .name(TEST_PRODUCT_NAME)
-                .price(TEST_PRODUCT_PRICE)
+                .price(Money.of(TEST_PRODUCT_PRICE))
+                .version(TEST_PRODUCT_VERSION)
                 .build();
     }
 
+    private String getTestProductETag() {
+        return "\"" + new VersionDigest().add(TEST_PRODUCT_ID, TEST_PRODUCT_VERSION).digest() + "\"";
+    }
+
     private CreateProductDto getTestCreateProductDto() {
         return CreateProductDto.builder()
                 .name(TEST_PRODUCT_NAME)
@@ -0,0 +1,237 @@
+package com.andreiharpa.assignment.controllers;
+
+import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderPageDto;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.exceptions.InvalidCursorException;
+import com.andreiharpa.assignment.exceptions.OrderNotFoundException;
+import com.andreiharpa.assignment.exceptions.OrderProductNotFoundException;
+import com.andreiharpa.assignment.services.ReactiveOrderService;
+import com.andreiharpa.assignment.utils.Money;
+import com.andreiharpa.assignment.utils.NdjsonCodecCustomizer;
+import com.andreiharpa.assignment.utils.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class ReactiveOrderControllerTests {
+    private static final String API_URL = "/v1/orders/";
+    private static final String INTERVAL_QUERY = "?startTime=2020-11-11T00:00:00&endTime=2020-11-12T00:00:00";
+    private static final UUID TEST_ORDER_ID = UUID.fromString("a2aaa4aa-7498-4ee0-a6d6-13c4060266ef");
+    private static final UUID TEST_PRODUCT_ID = UUID.fromString("b2abf4cd-7498-4ee0-a6d6-13c4060266ef");
+    private static final String TEST_EMAIL = "contact@andreiharpa.dev";
+
+    private WebTestClient client;
+
+    @Mock
+    private ReactiveOrderService orderServiceMock;
+
+    @InjectMocks
+    private ReactiveOrderController orderController;
+
+    @Before
+    public void before() {
+        MockitoAnnotations.initMocks(this);
+        client = WebTestClient.bindToController(orderController)
+                .controllerAdvice(new ValidationErrorsControllerAdvice())
+                .httpMessageCodecs(new NdjsonCodecCustomizer(new ObjectMapper())::customize)
+                .build();
+    }
+
+    @Test
+    public void GIVEN_validOrder_WHEN_createOrder_THEN_ReturnCreated() {
+        OrderDto orderDto = getTestOrder();
+        when(orderServiceMock.create(any())).thenReturn(Mono.just(orderDto));
+
+        client.post().uri(API_URL)
+                .bodyValue(new CreateOrderDto(TEST_EMAIL, Collections.singletonList(TEST_PRODUCT_ID)))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(OrderDto.class).isEqualTo(orderDto);
+    }
+
+    @Test
+    public void GIVEN_orderWithoutProducts_WHEN_createOrder_THEN_ReturnBadRequest() {
+        client.post().uri(API_URL)
+                .bodyValue(new CreateOrderDto(TEST_EMAIL, Collections.emptyList()))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(orderServiceMock);
+    }
+
+    @Test
+    public void GIVEN_orderServiceReturnsProductNotFound_WHEN_createOrder_THEN_ReturnUnprocessableEntity() {
+        when(orderServiceMock.create(any())).thenReturn(Mono.error(new OrderProductNotFoundException("not found")));
+
+        client.post().uri(API_URL)
+                .bodyValue(new CreateOrderDto(TEST_EMAIL, Collections.singletonList(TEST_PRODUCT_ID)))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @Test
+    public void GIVEN_orderServiceReturnsOrder_WHEN_getOrderById_THEN_ReturnPrivateCacheControl() {
+        OrderDto orderDto = getTestOrder();
+        when(orderServiceMock.getById(TEST_ORDER_ID)).thenReturn(Mono.just(orderDto));
+
+        client.get().uri(API_URL + TEST_ORDER_ID)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, OrderController.ORDER_CACHE_CONTROL)
+                .expectBody(OrderDto.class).isEqualTo(orderDto);
+    }
+
+    @Test
+    public void GIVEN_summaryView_WHEN_getOrderById_THEN_ReturnOrderWithoutProducts() {
+        OrderDto orderDto = getTestOrderSummary(TEST_ORDER_ID);
+        when(orderServiceMock.getSummaryById(TEST_ORDER_ID)).thenReturn(Mono.just(orderDto));
+
+        client.get().uri(API_URL + TEST_ORDER_ID + "?view=" + OrderController.SUMMARY_VIEW)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(TEST_ORDER_ID.toString())
+                .jsonPath("$.products").doesNotExist();
+        verify(orderServiceMock, never()).getById(any());
+    }
+
+    @Test
+    public void GIVEN_orderServiceReturnsOrderNotFound_WHEN_getOrderById_THEN_ReturnNotFound() {
+        when(orderServiceMock.getById(TEST_ORDER_ID)).thenReturn(Mono.error(new OrderNotFoundException("not found")));
+
+        client.get().uri(API_URL + TEST_ORDER_ID)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void GIVEN_statsRequested_WHEN_getOrderStats_THEN_ReturnNotImplemented() {
+        client.get().uri(API_URL + "stats")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+        client.get().uri(API_URL + "stats/live")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+        verify(orderServiceMock, never()).getById(any());
+    }
+
+    @Test
+    public void GIVEN_orderServiceReturnsPageWithCursor_WHEN_getOrdersWithTimeInterval_THEN_ReturnNextCursorHeader() {
+        OrderDto orderDto = getTestOrder();
+        when(orderServiceMock.getPageInTimeInterval(any(), any(), isNull(), eq(1)))
+                .thenReturn(Mono.just(new OrderPageDto(Collections.singletonList(orderDto), "next")));
+
+        client.get().uri(API_URL + INTERVAL_QUERY + "&limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(OrderController.NEXT_CURSOR_HEADER, "next")
+                .expectBodyList(OrderDto.class).contains(orderDto).hasSize(1);
+    }
+
+    @Test
+    public void GIVEN_orderServiceReturnsEmptyPage_WHEN_getOrdersWithTimeInterval_THEN_ReturnNoContent() {
+        when(orderServiceMock.getPageInTimeInterval(any(), any(), isNull(), anyInt()))
+                .thenReturn(Mono.just(new OrderPageDto(Collections.emptyList(), null)));
+
+        client.get().uri(API_URL + INTERVAL_QUERY)
+                .exchange()
+                .expectStatus().isNoContent()
+                .expectHeader().doesNotExist(OrderController.NEXT_CURSOR_HEADER);
+    }
+
+    @Test
+    public void GIVEN_orderServiceReturnsInvalidCursor_WHEN_getOrdersWithTimeInterval_THEN_ReturnBadRequest() {
+        when(orderServiceMock.getPageInTimeInterval(any(), any(), eq("bad"), anyInt()))
+                .thenReturn(Mono.error(new InvalidCursorException("Invalid cursor: bad")));
+
+        client.get().uri(API_URL + INTERVAL_QUERY + "&cursor=bad")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void GIVEN_ndjsonAccepted_WHEN_getOrdersWithTimeInterval_THEN_StreamOneOrderPerLine() {
+        OrderDto first = getTestOrder();
+        OrderDto second = getTestOrder(UUID.randomUUID());
+        when(orderServiceMock.getAllInTimeInterval(any(), any())).thenReturn(Flux.just(first, second));
+
+        String body = client.get().uri(API_URL + INTERVAL_QUERY)
+                .accept(NdjsonWriter.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(NdjsonWriter.APPLICATION_NDJSON)
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertEquals(2, body.trim().split("\n").length);
+    }
+
+    @Test
+    public void GIVEN_summaryView_WHEN_getOrdersWithTimeInterval_THEN_StreamOrderSummaries() {
+        when(orderServiceMock.getAllSummariesInTimeInterval(any(), any()))
+                .thenReturn(Flux.just(getTestOrderSummary(TEST_ORDER_ID), getTestOrderSummary(UUID.randomUUID())));
+
+        String body = client.get().uri(API_URL + INTERVAL_QUERY + "&view=" + OrderController.SUMMARY_VIEW)
+                .accept(NdjsonWriter.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertEquals(2, body.trim().split("\n").length);
+        assertFalse(body.contains("products"));
+        verify(orderServiceMock, never()).getAllInTimeInterval(any(), any());
+    }
+
+    private OrderDto getTestOrderSummary(UUID id) {
+        return OrderDto.builder()
+                .id(id)
+                .customerEmail(TEST_EMAIL)
+                .timestamp(new Date(1605052800000L))
+                .totalPrice(Money.of(BigDecimal.TEN))
+                .build();
+    }
+
+    private OrderDto getTestOrder() {
+        return getTestOrder(TEST_ORDER_ID);
+    }
+
+    private OrderDto getTestOrder(UUID id) {
+        return OrderDto.builder()
+                .id(id)
+                .customerEmail(TEST_EMAIL)
+                .timestamp(new Date(1605052800000L))
+                .totalPrice(Money.of(BigDecimal.TEN))
+                .products(Collections.singletonList(ProductDto.builder()
+                        .id(TEST_PRODUCT_ID)
+                        .name("test-product-name")
+                        .price(Money.of(BigDecimal.TEN))
+                        .quantity(1)
+                        .build()))
+                .build();
+    }
+}
@@ -0,0 +1,235 @@
+package com.andreiharpa.assignment.controllers;
+
+import com.andreiharpa.assignment.dtos.CreateProductDto;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.dtos.UpdateProductDto;
+import com.andreiharpa.assignment.exceptions.ProductNotFoundException;
+import com.andreiharpa.assignment.exceptions.ProductVersionMismatchException;
+import com.andreiharpa.assignment.services.ReactiveProductService;
+import com.andreiharpa.assignment.utils.Money;
+import com.andreiharpa.assignment.utils.NdjsonCodecCustomizer;
+import com.andreiharpa.assignment.utils.NdjsonWriter;
+import com.andreiharpa.assignment.utils.VersionDigest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class ReactiveProductControllerTests {
+    private static final String API_URL = "/v1/products/";
+    private static final UUID TEST_PRODUCT_ID = UUID.fromString("b2abf4cd-7498-4ee0-a6d6-13c4060266ef");
+    private static final String TEST_PRODUCT_NAME = "test-product-name";
+    private static final BigDecimal TEST_PRODUCT_PRICE = BigDecimal.TEN;
+    private static final long TEST_PRODUCT_VERSION = 3L;
+    private static final String TEST_CATALOG_VERSION = "0123456789abcdef";
+
+    private WebTestClient client;
+
+    @Mock
+    private ReactiveProductService productServiceMock;
+
+    @InjectMocks
+    private ReactiveProductController productController;
+
+    @Before
+    public void before() {
+        MockitoAnnotations.initMocks(this);
+        client = WebTestClient.bindToController(productController)
+                .controllerAdvice(new ValidationErrorsControllerAdvice())
+                .httpMessageCodecs(new NdjsonCodecCustomizer(new ObjectMapper())::customize)
+                .build();
+    }
+
+    @Test
+    public void GIVEN_productServiceReturnsNoProducts_WHEN_getAllProducts_THEN_ReturnNoContent() {
+        when(productServiceMock.getAll()).thenReturn(Flux.empty());
+
+        client.get().uri(API_URL)
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    public void GIVEN_pageRequested_WHEN_getAllProducts_THEN_ReturnPage() {
+        ProductDto productDto = getTestProduct();
+        when(productServiceMock.getPage(2, 10)).thenReturn(Flux.just(productDto));
+
+        client.get().uri(API_URL + "?page=2&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, getTestProductETag())
+                .expectBodyList(ProductDto.class).contains(productDto).hasSize(1);
+
+        verify(productServiceMock).getPage(2, 10);
+        verify(productServiceMock, never()).getPageVersion(anyInt(), anyInt());
+    }
+
+    @Test
+    public void GIVEN_productsVersionMatches_WHEN_getAllProducts_THEN_ReturnNotModified() {
+        when(productServiceMock.getAllVersion()).thenReturn(Mono.just(TEST_CATALOG_VERSION));
+
+        client.get().uri(API_URL)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + TEST_CATALOG_VERSION + "\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + TEST_CATALOG_VERSION + "\"");
+
+        verify(productServiceMock, never()).getAll();
+    }
+
+    @Test
+    public void GIVEN_productsVersionChanged_WHEN_getAllProducts_THEN_ReturnOkWithLoadedProductsETag() {
+        ProductDto productDto = getTestProduct();
+        when(productServiceMock.getAllVersion()).thenReturn(Mono.just(TEST_CATALOG_VERSION));
+        when(productServiceMock.getAll()).thenReturn(Flux.just(productDto));
+
+        client.get().uri(API_URL)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"fedcba9876543210\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, getTestProductETag())
+                .expectBodyList(ProductDto.class).contains(productDto).hasSize(1);
+    }
+
+    @Test
+    public void GIVEN_ndjsonAccepted_WHEN_getAllProducts_THEN_StreamOneProductPerLine() {
+        when(productServiceMock.getAll()).thenReturn(Flux.just(getTestProduct(), getTestProduct()));
+
+        String body = client.get().uri(API_URL)
+                .accept(NdjsonWriter.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertEquals(2, body.trim().split("\n").length);
+    }
+
+    @Test
+    public void GIVEN_productVersionMatches_WHEN_getProductById_THEN_ReturnNotModified() {
+        when(productServiceMock.getVersion(TEST_PRODUCT_ID)).thenReturn(Mono.just(3L));
+
+        client.get().uri(API_URL + TEST_PRODUCT_ID)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"");
+
+        verify(productServiceMock, never()).getById(any());
+    }
+
+    @Test
+    public void GIVEN_productVersionChanged_WHEN_getProductById_THEN_ReturnOk() {
+        ProductDto productDto = getTestProduct();
+        productDto.setVersion(4L);
+        when(productServiceMock.getVersion(TEST_PRODUCT_ID)).thenReturn(Mono.just(4L));
+        when(productServiceMock.getById(TEST_PRODUCT_ID)).thenReturn(Mono.just(productDto));
+
+        client.get().uri(API_URL + TEST_PRODUCT_ID)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"4\"");
+    }
+
+    @Test
+    public void GIVEN_productServiceReturnsProductNotFound_WHEN_getProductById_THEN_ReturnNotFound() {
+        when(productServiceMock.getById(TEST_PRODUCT_ID))
+                .thenReturn(Mono.error(new ProductNotFoundException("not found")));
+
+        client.get().uri(API_URL + TEST_PRODUCT_ID)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void GIVEN_validProduct_WHEN_createProduct_THEN_ReturnCreated() {
+        ProductDto productDto = getTestProduct();
+        when(productServiceMock.create(any())).thenReturn(Mono.just(productDto));
+
+        client.post().uri(API_URL)
+                .bodyValue(new CreateProductDto(TEST_PRODUCT_NAME, TEST_PRODUCT_PRICE))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(ProductDto.class).isEqualTo(productDto);
+    }
+
+    @Test
+    public void GIVEN_productWithoutPrice_WHEN_createProduct_THEN_ReturnBadRequest() {
+        client.post().uri(API_URL)
+                .bodyValue(new CreateProductDto(TEST_PRODUCT_NAME, null))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(productServiceMock);
+    }
+
+    @Test
+    public void GIVEN_productServiceReturnsProductNotFound_WHEN_updateProduct_THEN_ReturnUnprocessableEntity() {
+        when(productServiceMock.update(eq(TEST_PRODUCT_ID), any(), isNull()))
+                .thenReturn(Mono.error(new ProductNotFoundException("not found")));
+
+        client.put().uri(API_URL + TEST_PRODUCT_ID)
+                .bodyValue(new UpdateProductDto(null, TEST_PRODUCT_PRICE))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @Test
+    public void GIVEN_ifMatchVersion_WHEN_updateProduct_THEN_UpdateExpectedVersion() {
+        ProductDto productDto = getTestProduct();
+        when(productServiceMock.update(eq(TEST_PRODUCT_ID), any(), eq(TEST_PRODUCT_VERSION)))
+                .thenReturn(Mono.just(productDto));
+
+        client.put().uri(API_URL + TEST_PRODUCT_ID)
+                .header(HttpHeaders.IF_MATCH, "\"" + TEST_PRODUCT_VERSION + "\"")
+                .bodyValue(new UpdateProductDto(null, TEST_PRODUCT_PRICE))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + TEST_PRODUCT_VERSION + "\"");
+    }
+
+    @Test
+    public void GIVEN_productServiceReturnsProductVersionMismatch_WHEN_updateProduct_THEN_ReturnPreconditionFailed() {
+        when(productServiceMock.update(eq(TEST_PRODUCT_ID), any(), eq(2L)))
+                .thenReturn(Mono.error(new ProductVersionMismatchException("mismatch")));
+
+        client.put().uri(API_URL + TEST_PRODUCT_ID)
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .bodyValue(new UpdateProductDto(null, TEST_PRODUCT_PRICE))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    private ProductDto getTestProduct() {
+        return ProductDto.builder()
+                .id(TEST_PRODUCT_ID)
+                .name(TEST_PRODUCT_NAME)
+                .price(Money.of(TEST_PRODUCT_PRICE))
+                .version(TEST_PRODUCT_VERSION)
+                .build();
+    }
+
+    private String getTestProductETag() {
+        return "\"" + new VersionDigest().add(TEST_PRODUCT_ID, TEST_PRODUCT_VERSION).digest() + "\"";
+    }
+}
@@ -0,0 +1,69 @@
+package com.andreiharpa.assignment.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReadWriteDataSourceTests {
+    private static final String PRIMARY_URL = "jdbc:h2:mem:read-write-primary;DB_CLOSE_DELAY=-1";
+    private static final String READ_URL = "jdbc:h2:mem:read-write-replica;DB_CLOSE_DELAY=-1";
+
+    private ReadWriteDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Before
+    public void before() {
+        createDatabase(PRIMARY_URL, "primary");
+        createDatabase(READ_URL, "replica");
+
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl(PRIMARY_URL);
+        dataSource = new ReadWriteDataSource(properties, new SimpleMeterRegistry(), 2, READ_URL, 2);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @After
+    public void after() {
+        dataSource.destroy();
+    }
+
+    @Test
+    public void testReadOnlyTransactionUsesReadPool() {
+        transactionTemplate.setReadOnly(true);
+
+        assertEquals("replica", transactionTemplate.execute(status -> readDatabaseName()));
+    }
+
+    @Test
+    public void testReadWriteTransactionUsesPrimaryPool() {
+        assertEquals("primary", transactionTemplate.execute(status -> readDatabaseName()));
+    }
+
+    @Test
+    public void testNoTransactionUsesPrimaryPool() {
+        assertEquals("primary", readDatabaseName());
+    }
+
+    private String readDatabaseName() {
+        return jdbcTemplate.queryForObject("select name from database_name", String.class);
+    }
+
+    private static void createDatabase(String url, String name) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        jdbcTemplate.execute("create table if not exists database_name (name varchar(16))");
+        jdbcTemplate.update("delete from database_name");
+        jdbcTemplate.update("insert into database_name values (?)", name);
+    }
+}
@@ -0,0 +1,27 @@
+package com.andreiharpa.assignment.execution;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ExecutionModeCheckTests {
+    @Test
+    public void testSupportedModes() {
+        ExecutionModeCheck.MODES.forEach(ExecutionModeCheck::checkMode);
+    }
+
+    @Test
+    public void testVirtualModeRejected() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> ExecutionModeCheck.checkMode("virtual"));
+        assertTrue(e.getMessage().contains("Java 21"));
+    }
+
+    @Test
+    public void testUnknownModeRejected() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> ExecutionModeCheck.checkMode("threads"));
+        assertTrue(e.getMessage().contains("web.execution.mode=threads"));
+    }
+}
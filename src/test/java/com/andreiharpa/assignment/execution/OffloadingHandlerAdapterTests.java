@@ -0,0 +1,97 @@
+package com.andreiharpa.assignment.execution;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OffloadingHandlerAdapterTests {
+    private static final String TEST_NAME = "test-name";
+
+    private MockHttpServletRequest request;
+
+    @Before
+    public void before() {
+        request = new MockHttpServletRequest("GET", "/test/" + TEST_NAME);
+        request.setAsyncSupported(true);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Collections.singletonMap("name", TEST_NAME));
+    }
+
+    @Test
+    public void testOnlySynchronousApplicationHandlersAreOffloaded() throws NoSuchMethodException {
+        TestController testController = new TestController();
+
+        assertTrue(OffloadingHandlerAdapter.isOffloaded(new HandlerMethod(testController, "getName", String.class)));
+        assertFalse(OffloadingHandlerAdapter.isOffloaded(new HandlerMethod(testController, "streamNames")));
+        assertFalse(OffloadingHandlerAdapter.isOffloaded(new HandlerMethod(testController, "getNameLater")));
+        assertFalse(OffloadingHandlerAdapter.isOffloaded(
+                new HandlerMethod(Collections.emptyList(), List.class.getMethod("size"))));
+    }
+
+    @Test
+    public void testHandlerResultIsCompletedOnTheExecutor() throws Exception {
+        OffloadingHandlerAdapter handlerAdapter = newHandlerAdapter(Runnable::run);
+
+        handlerAdapter.handle(request, new MockHttpServletResponse(),
+                new HandlerMethod(new TestController(), "getName", String.class));
+
+        assertTrue(request.isAsyncStarted());
+        assertEquals(ResponseEntity.ok(TEST_NAME), WebAsyncUtils.getAsyncManager(request).getConcurrentResult());
+    }
+
+    @Test
+    public void testRejectedHandlerIsServiceUnavailable() throws Exception {
+        OffloadingHandlerAdapter handlerAdapter = newHandlerAdapter(command -> {
+            throw new RejectedExecutionException();
+        });
+
+        try {
+            handlerAdapter.handle(request, new MockHttpServletResponse(),
+                    new HandlerMethod(new TestController(), "getName", String.class));
+            fail();
+        } catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        }
+    }
+
+    private static OffloadingHandlerAdapter newHandlerAdapter(Executor executor) {
+        OffloadingHandlerAdapter handlerAdapter = new OffloadingHandlerAdapter(executor);
+        handlerAdapter.setApplicationContext(new StaticWebApplicationContext());
+        handlerAdapter.afterPropertiesSet();
+        return handlerAdapter;
+    }
+
+    static class TestController {
+        public ResponseEntity<String> getName(@PathVariable("name") String name) {
+            return ResponseEntity.ok(name);
+        }
+
+        public ResponseEntity<StreamingResponseBody> streamNames() {
+            return ResponseEntity.ok(outputStream -> outputStream.write(TEST_NAME.getBytes()));
+        }
+
+        public CompletableFuture<String> getNameLater() {
+            return CompletableFuture.completedFuture(TEST_NAME);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.andreiharpa.assignment.idempotency;
+
+import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.exceptions.IdempotencyKeyInProgressException;
+import com.andreiharpa.assignment.exceptions.IdempotencyKeyReusedException;
+import com.andreiharpa.assignment.exceptions.OrderProductNotFoundException;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class InMemoryIdempotencyStoreTests {
+    private static final String TEST_KEY = "test-idempotency-key";
+    private static final CreateOrderDto TEST_CREATE_ORDER_DTO = new CreateOrderDto(
+            "contact@andreiharpa.dev", Collections.singletonList(UUID.fromString("a2aaa4aa-7498-4ee0-a6d6-13c4060266ef")));
+    private static final int CONCURRENT_REQUESTS = 8;
+
+    private final InMemoryIdempotencyStore idempotencyStore =
+            new InMemoryIdempotencyStore(100, Duration.ofMinutes(1), Duration.ofSeconds(5));
+
+    @Test
+    public void testRetryReturnsOriginalOrder() {
+        OrderDto orderDto = OrderDto.builder().id(UUID.randomUUID()).build();
+        AtomicInteger creates = new AtomicInteger();
+
+        OrderDto first = idempotencyStore.createOnce(TEST_KEY, TEST_CREATE_ORDER_DTO, () -> {
+            creates.incrementAndGet();
+            return orderDto;
+        });
+        OrderDto retried = idempotencyStore.createOnce(TEST_KEY, TEST_CREATE_ORDER_DTO, () -> {
+            creates.incrementAndGet();
+            return OrderDto.builder().id(UUID.randomUUID()).build();
+        });
+
+        assertEquals(1, creates.get());
+        assertSame(first, retried);
+    }
+
+    @Test(expected = IdempotencyKeyReusedException.class)
+    public void testKeyReusedForDifferentRequest() {
+        idempotencyStore.createOnce(TEST_KEY, TEST_CREATE_ORDER_DTO, OrderDto::new);
+        idempotencyStore.createOnce(TEST_KEY,
+                new CreateOrderDto("other@andreiharpa.dev", TEST_CREATE_ORDER_DTO.getProductIds()), OrderDto::new);
+    }
+
+    @Test
+    public void testFailedRequestReleasesKey() {
+        OrderDto orderDto = OrderDto.builder().id(UUID.randomUUID()).build();
+        try {
+            idempotencyStore.createOnce(TEST_KEY, TEST_CREATE_ORDER_DTO, () -> {
+                throw new OrderProductNotFoundException("test");
+            });
+            fail();
+        } catch (OrderProductNotFoundException e) {
+            assertSame(orderDto, idempotencyStore.createOnce(TEST_KEY, TEST_CREATE_ORDER_DTO, () -> orderDto));
+        }
+    }
+
+    @Test
+    public void testFailedRequestWithErrorReleasesKey() {
+        OrderDto orderDto = OrderDto.builder().id(UUID.randomUUID()).build();
+        try {
+            idempotencyStore.createOnce(TEST_KEY, TEST_CREATE_ORDER_DTO, () -> {
+                throw new StackOverflowError();
+            });
+            fail();
+        } catch (StackOverflowError e) {
+            assertSame(orderDto, idempotencyStore.createOnce(TEST_KEY, TEST_CREATE_ORDER_DTO, () -> orderDto));
+        }
+    }
+
+    @Test
+    public void testConcurrentRequestsCreateOnce() throws Exception {
+        CountDownLatch createStarted = new CountDownLatch(1);
+        CountDownLatch releaseCreate = new CountDownLatch(1);
+        AtomicInteger creates = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+        try {
+            List<Future<OrderDto>> results = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                results.add(executor.submit(() -> idempotencyStore.createOnce(TEST_KEY, TEST_CREATE_ORDER_DTO, () -> {
+                    creates.incrementAndGet();
+                    createStarted.countDown();
+                    awaitQuietly(releaseCreate);
+                    return OrderDto.builder().id(UUID.randomUUID()).build();
+                })));
+            }
+            createStarted.await(5, TimeUnit.SECONDS);
+            releaseCreate.countDown();
+
+            OrderDto first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<OrderDto> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, creates.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IdempotencyKeyInProgressException.class)
+    public void testWaitTimesOutWhileFirstRequestInProgress() throws Exception {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(100, Duration.ofMinutes(1), Duration.ofMillis(50));
+        CountDownLatch createStarted = new CountDownLatch(1);
+        CountDownLatch releaseCreate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> store.createOnce(TEST_KEY, TEST_CREATE_ORDER_DTO, () -> {
+                createStarted.countDown();
+                awaitQuietly(releaseCreate);
+                return new OrderDto();
+            }));
+            createStarted.await(5, TimeUnit.SECONDS);
+
+            store.createOnce(TEST_KEY, TEST_CREATE_ORDER_DTO, OrderDto::new);
+        } finally {
+            releaseCreate.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
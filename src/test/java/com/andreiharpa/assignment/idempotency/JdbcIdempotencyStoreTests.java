@@ -0,0 +1,180 @@
+package com.andreiharpa.assignment.idempotency;
+
+import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.exceptions.IdempotencyKeyInProgressException;
+import com.andreiharpa.assignment.exceptions.IdempotencyKeyReusedException;
+import com.andreiharpa.assignment.exceptions.OrderProductNotFoundException;
+import com.andreiharpa.assignment.utils.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith(SpringRunner.class)
+@JdbcTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class JdbcIdempotencyStoreTests {
+    private static final CreateOrderDto TEST_CREATE_ORDER_DTO = new CreateOrderDto(
+            "contact@andreiharpa.dev", Collections.singletonList(UUID.fromString("a2aaa4aa-7498-4ee0-a6d6-13c4060266ef")));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcIdempotencyStore idempotencyStore;
+
+    private String key;
+
+    @Before
+    public void before() {
+        idempotencyStore = new JdbcIdempotencyStore(jdbcTemplate, transactionManager, new ObjectMapper(),
+                Duration.ofMinutes(1), Duration.ofMillis(200), Duration.ofSeconds(1));
+        key = UUID.randomUUID().toString();
+    }
+
+    @Test
+    public void testRetryReturnsOriginalOrder() {
+        OrderDto orderDto = getTestOrderDto();
+        AtomicInteger creates = new AtomicInteger();
+
+        idempotencyStore.createOnce(key, TEST_CREATE_ORDER_DTO, () -> {
+            creates.incrementAndGet();
+            return orderDto;
+        });
+        OrderDto retried = idempotencyStore.createOnce(key, TEST_CREATE_ORDER_DTO, () -> {
+            creates.incrementAndGet();
+            return getTestOrderDto();
+        });
+
+        assertEquals(1, creates.get());
+        assertEquals(orderDto, retried);
+    }
+
+    @Test(expected = IdempotencyKeyReusedException.class)
+    public void testKeyReusedForDifferentRequest() {
+        idempotencyStore.createOnce(key, TEST_CREATE_ORDER_DTO, this::getTestOrderDto);
+        idempotencyStore.createOnce(key,
+                new CreateOrderDto("other@andreiharpa.dev", TEST_CREATE_ORDER_DTO.getProductIds()),
+                this::getTestOrderDto);
+    }
+
+    @Test
+    public void testFailedRequestReleasesKey() {
+        OrderDto orderDto = getTestOrderDto();
+        try {
+            idempotencyStore.createOnce(key, TEST_CREATE_ORDER_DTO, () -> {
+                throw new OrderProductNotFoundException("test");
+            });
+            fail();
+        } catch (OrderProductNotFoundException e) {
+            assertEquals(orderDto, idempotencyStore.createOnce(key, TEST_CREATE_ORDER_DTO, () -> orderDto));
+        }
+    }
+
+    @Test
+    public void testAbandonedKeyIsTakenOver() {
+        String completedKey = UUID.randomUUID().toString();
+        idempotencyStore.createOnce(completedKey, TEST_CREATE_ORDER_DTO, this::getTestOrderDto);
+        jdbcTemplate.update("insert into idempotency_keys (idempotency_key, request_hash, created_at) "
+                        + "select ?, request_hash, ? from idempotency_keys where idempotency_key = ?",
+                key, new Timestamp(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(2)), completedKey);
+        OrderDto orderDto = getTestOrderDto();
+
+        assertEquals(orderDto, idempotencyStore.createOnce(key, TEST_CREATE_ORDER_DTO, () -> orderDto));
+    }
+
+    @Test
+    public void testSlowCreateOutlivingWaitTimeoutIsNotTakenOver() throws Exception {
+        OrderDto orderDto = getTestOrderDto();
+        AtomicInteger creates = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<OrderDto> slowCreate = executor.submit(() -> idempotencyStore.createOnce(key, TEST_CREATE_ORDER_DTO,
+                    () -> {
+                        creates.incrementAndGet();
+                        started.countDown();
+                        sleep(500);
+                        return orderDto;
+                    }));
+            started.await();
+            try {
+                idempotencyStore.createOnce(key, TEST_CREATE_ORDER_DTO, () -> {
+                    creates.incrementAndGet();
+                    return getTestOrderDto();
+                });
+                fail();
+            } catch (IdempotencyKeyInProgressException e) {
+                assertEquals(orderDto, slowCreate.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, creates.get());
+        assertEquals(orderDto, idempotencyStore.createOnce(key, TEST_CREATE_ORDER_DTO, this::getTestOrderDto));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClaimLeaseShorterThanWaitTimeoutIsRejected() {
+        new JdbcIdempotencyStore(jdbcTemplate, transactionManager, new ObjectMapper(),
+                Duration.ofMinutes(1), Duration.ofSeconds(10), Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void testPurgeExpiredDeletesOldKeys() {
+        idempotencyStore.createOnce(key, TEST_CREATE_ORDER_DTO, this::getTestOrderDto);
+        jdbcTemplate.update("update idempotency_keys set created_at = ? where idempotency_key = ?",
+                new Timestamp(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)), key);
+
+        idempotencyStore.purgeExpired();
+
+        assertEquals(0, (int) jdbcTemplate.queryForObject(
+                "select count(*) from idempotency_keys where idempotency_key = ?", Integer.class, key));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private OrderDto getTestOrderDto() {
+        return OrderDto.builder()
+                .id(UUID.randomUUID())
+                .customerEmail(TEST_CREATE_ORDER_DTO.getCustomerEmail())
+                .timestamp(new Date(TimeUnit.SECONDS.toMillis(System.currentTimeMillis() / 1000)))
+                .totalPrice(Money.ofMinorUnits(1000))
+                .products(Collections.singletonList(new ProductDto(
+                        TEST_CREATE_ORDER_DTO.getProductIds().get(0), "test-product-name", Money.ofMinorUnits(1000))))
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.andreiharpa.assignment.logging;
+
+import com.andreiharpa.assignment.utils.NdjsonWriter;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AccessLogFilterTests {
+    private static final String TEST_PAYLOAD = "{\"id\":\"b2abf4cd-7498-4ee0-a6d6-13c4060266ef\"}";
+
+    @Test
+    public void testSampledPayloadStillReachesClient() throws Exception {
+        AccessLogFilter accessLogFilter = new AccessLogFilter(true, true, 1.0, 10);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        accessLogFilter.doFilter(new MockHttpServletRequest("GET", "/v1/products"), response,
+                new MockFilterChain(new PayloadServlet()));
+
+        assertEquals(TEST_PAYLOAD, response.getContentAsString());
+    }
+
+    @Test
+    public void testStreamedResponseIsNotCaptured() throws Exception {
+        AccessLogFilter accessLogFilter = new AccessLogFilter(true, true, 1.0, 10);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/orders");
+        request.addHeader(HttpHeaders.ACCEPT, NdjsonWriter.APPLICATION_NDJSON_VALUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain(new PayloadServlet());
+
+        accessLogFilter.doFilter(request, response, filterChain);
+
+        assertSame(response, filterChain.getResponse());
+        assertEquals(TEST_PAYLOAD, response.getContentAsString());
+    }
+
+    @Test
+    public void testSampledPayloadWrittenOnAsyncDispatchReachesClient() throws Exception {
+        AccessLogFilter accessLogFilter = new AccessLogFilter(true, true, 1.0, 10);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/orders");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain(new AsyncServlet());
+
+        accessLogFilter.doFilter(request, response, filterChain);
+        assertEquals("", response.getContentAsString());
+
+        request.setAsyncStarted(false);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        accessLogFilter.doFilter(request, filterChain.getResponse(), new MockFilterChain(new PayloadServlet()));
+        request.getAsyncContext().complete();
+
+        assertEquals(TEST_PAYLOAD, response.getContentAsString());
+    }
+
+    private static class AsyncServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+            assertTrue(response instanceof ContentCachingResponseWrapper);
+            request.startAsync(request, response);
+        }
+    }
+
+    private static class PayloadServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            response.getWriter().write(TEST_PAYLOAD);
+        }
+    }
+}
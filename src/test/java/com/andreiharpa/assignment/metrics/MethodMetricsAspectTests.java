@@ -0,0 +1,87 @@
+package com.andreiharpa.assignment.metrics;
+
+import com.andreiharpa.assignment.cache.ProductCache;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.exceptions.ProductNotFoundException;
+import com.andreiharpa.assignment.models.Product;
+import com.andreiharpa.assignment.repositories.ProductRepository;
+import com.andreiharpa.assignment.services.ProductService;
+import com.andreiharpa.assignment.services.ProductServiceImpl;
+import com.andreiharpa.assignment.utils.Money;
+import com.andreiharpa.assignment.utils.UuidGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MethodMetricsAspectTests {
+    private static final UUID TEST_PRODUCT_ID = UUID.fromString("b2abf4cd-7498-4ee0-a6d6-13c4060266ef");
+    private static final UUID TEST_MISSING_PRODUCT_ID = UUID.fromString("b3abf4cd-1234-4ee0-a6d6-13c4060266ef");
+    private static final String TEST_PRODUCT_NAME = "test-product-name";
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private UuidGenerator uuidGenerator;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ProductService productService;
+
+    @Before
+    public void before() {
+        meterRegistry = new SimpleMeterRegistry();
+        ProductCache productCache = new ProductCache(false, 0, Duration.ZERO, meterRegistry);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(
+                new ProductServiceImpl(productRepository, uuidGenerator, entityManager, productCache));
+        proxyFactory.addAspect(new MethodMetricsAspect(meterRegistry));
+        productService = proxyFactory.getProxy();
+    }
+
+    @Test
+    public void testServiceCallsAreTimed() {
+        when(productRepository.findById(TEST_PRODUCT_ID)).thenReturn(
+                Optional.of(new Product(TEST_PRODUCT_ID, TEST_PRODUCT_NAME, Money.ofMinorUnits(1000))));
+
+        ProductDto productDto = productService.getById(TEST_PRODUCT_ID);
+
+        assertEquals(TEST_PRODUCT_ID, productDto.getId());
+        assertEquals(1, meterRegistry.get(MethodMetricsAspect.SERVICE_TIMER)
+                .tags("class", "ProductServiceImpl", "method", "getById", "exception", "none")
+                .timer().count());
+    }
+
+    @Test
+    public void testServiceExceptionsAreCounted() {
+        when(productRepository.findById(TEST_MISSING_PRODUCT_ID)).thenReturn(Optional.empty());
+
+        try {
+            productService.getById(TEST_MISSING_PRODUCT_ID);
+            fail();
+        } catch (ProductNotFoundException e) {
+            assertEquals(1, meterRegistry.get(MethodMetricsAspect.SERVICE_EXCEPTION_COUNTER)
+                    .tags("class", "ProductServiceImpl", "exception", "ProductNotFoundException")
+                    .counter().count(), 0);
+            assertEquals(1, meterRegistry.get(MethodMetricsAspect.SERVICE_TIMER)
+                    .tags("method", "getById", "exception", "ProductNotFoundException")
+                    .timer().count());
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.andreiharpa.assignment.repositories;
+
+import com.andreiharpa.assignment.models.Order;
+import com.andreiharpa.assignment.models.OrderItem;
+import com.andreiharpa.assignment.models.Product;
+import com.andreiharpa.assignment.utils.Money;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class OrderRepositoryTests {
+    private static final int TEST_ORDER_COUNT = 10;
+    private static final int TEST_ITEMS_PER_ORDER = 5;
+    private static final String TEST_CUSTOMER_EMAIL = "contact@andreiharpa.dev";
+    private static final Money TEST_PRODUCT_PRICE = Money.ofMinorUnits(100);
+    private static final int LARGE_ORDER_ITEM_COUNT = 200;
+    private static final int LARGE_ORDER_MAX_STATEMENTS = 20;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Statistics statistics;
+
+    private Product testProduct;
+
+    private List<UUID> orderIds;
+
+    private UUID firstOrderId;
+
+    @Before
+    public void before() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < TEST_ITEMS_PER_ORDER; i++) {
+            products.add(testEntityManager.persist(
+                    new Product(UUID.randomUUID(), "test-product-" + i, TEST_PRODUCT_PRICE)));
+        }
+        testProduct = products.get(0);
+        orderIds = new ArrayList<>();
+        for (int i = 0; i < TEST_ORDER_COUNT; i++) {
+            List<OrderItem> orderItems = products.stream()
+                    .map(product -> OrderItem.builder()
+                            .price(product.getPrice())
+                            .productId(product.getId())
+                            .build())
+                    .collect(Collectors.toList());
+            Order order = testEntityManager.persist(Order.builder()
+                    .id(UUID.randomUUID())
+                    .customerEmail(TEST_CUSTOMER_EMAIL)
+                    .totalPrice(TEST_PRODUCT_PRICE.times(TEST_ITEMS_PER_ORDER))
+                    .orderItems(orderItems)
+                    .build());
+            orderIds.add(order.getId());
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+        firstOrderId = orderIds.get(0);
+
+        statistics = testEntityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testFindByIdLoadsItemsAndProductsInOneQuery() {
+        Order order = orderRepository.findById(firstOrderId).orElseThrow(IllegalStateException::new);
+        List<String> productNames = getProductNames(order);
+
+        assertEquals(TEST_ITEMS_PER_ORDER, productNames.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindDistinctByIdInLoadsItemsAndProductsInOneQuery() {
+        List<Order> orders = orderRepository.findDistinctByIdIn(orderIds);
+        long productNameCount = orders.stream()
+                .mapToLong(order -> getProductNames(order).size())
+                .sum();
+
+        assertEquals(TEST_ORDER_COUNT, orders.size());
+        assertEquals(TEST_ORDER_COUNT * TEST_ITEMS_PER_ORDER, productNameCount);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindHeaderByIdReadsOrdersTableOnly() {
+        OrderRepository.OrderHeader header = orderRepository.findHeaderById(firstOrderId)
+                .orElseThrow(IllegalStateException::new);
+
+        assertEquals(firstOrderId, header.getId());
+        assertEquals(TEST_CUSTOMER_EMAIL, header.getCustomerEmail());
+        assertEquals(TEST_PRODUCT_PRICE.times(TEST_ITEMS_PER_ORDER), header.getTotalPrice());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void testHeaderPagesCoverIntervalInOrder() {
+        int pageSize = 3;
+        List<UUID> pagedOrderIds = new ArrayList<>();
+        List<OrderRepository.OrderHeader> page = orderRepository.findHeadersByTimestampBetween(
+                getStartTime(), getEndTime(), PageRequest.of(0, pageSize));
+        while (!page.isEmpty()) {
+            page.forEach(header -> pagedOrderIds.add(header.getId()));
+            OrderRepository.OrderHeader last = page.get(page.size() - 1);
+            page = orderRepository.findHeadersByTimestampBetweenAfter(getStartTime(), getEndTime(),
+                    last.getTimestamp(), last.getId(), PageRequest.of(0, pageSize));
+        }
+
+        assertEquals(orderRepository.findHeadersByTimestampBetween(
+                getStartTime(), getEndTime(), PageRequest.of(0, TEST_ORDER_COUNT + 1)).stream()
+                .map(OrderRepository.OrderHeader::getId)
+                .collect(Collectors.toList()), pagedOrderIds);
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void testTimestampKeepsTimeOfDay() {
+        Date now = new Date();
+        List<OrderRepository.OrderHeader> headers = orderRepository.findHeadersByTimestampBetween(
+                new Date(now.getTime() - TimeUnit.MINUTES.toMillis(1)),
+                new Date(now.getTime() + TimeUnit.MINUTES.toMillis(1)),
+                PageRequest.of(0, TEST_ORDER_COUNT + 1));
+
+        assertEquals(TEST_ORDER_COUNT, headers.size());
+    }
+
+    @Test
+    public void testSaveLargeOrderBatchesItemInserts() {
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (int i = 0; i < LARGE_ORDER_ITEM_COUNT; i++) {
+            orderItems.add(OrderItem.builder()
+                    .price(testProduct.getPrice())
+                    .productId(testProduct.getId())
+                    .build());
+        }
+        Order order = Order.builder()
+                .id(UUID.randomUUID())
+                .customerEmail(TEST_CUSTOMER_EMAIL)
+                .totalPrice(TEST_PRODUCT_PRICE.times(LARGE_ORDER_ITEM_COUNT))
+                .orderItems(orderItems)
+                .build();
+
+        orderRepository.save(order);
+        testEntityManager.flush();
+
+        assertTrue(statistics.getPrepareStatementCount() <= LARGE_ORDER_MAX_STATEMENTS);
+        assertEquals(LARGE_ORDER_ITEM_COUNT, testEntityManager.getEntityManager()
+                .createQuery("select count(i) from OrderItem i", Long.class)
+                .getSingleResult() - TEST_ORDER_COUNT * TEST_ITEMS_PER_ORDER);
+    }
+
+    @Test
+    public void testSaveWritesOrderForeignKeyWithItemInserts() {
+        Order order = Order.builder()
+                .id(UUID.randomUUID())
+                .customerEmail(TEST_CUSTOMER_EMAIL)
+                .totalPrice(TEST_PRODUCT_PRICE)
+                .orderItems(new ArrayList<>(Collections.singletonList(OrderItem.builder()
+                        .price(testProduct.getPrice())
+                        .productId(testProduct.getId())
+                        .build())))
+                .build();
+
+        orderRepository.save(order);
+        testEntityManager.flush();
+
+        assertEquals(0, statistics.getEntityUpdateCount());
+        assertEquals(1, ((Number) testEntityManager.getEntityManager()
+                .createNativeQuery("select count(*) from order_items where order_id = ?1")
+                .setParameter(1, order.getId())
+                .getSingleResult()).intValue());
+    }
+
+    @Test
+    public void testTotalsAggregateInDatabase() {
+        OrderRepository.OrderTotals totals = orderRepository.findTotalsByTimestampBetween(getStartTime(), getEndTime());
+
+        assertEquals(TEST_ORDER_COUNT, totals.getOrderCount());
+        assertEquals(TEST_PRODUCT_PRICE.times(TEST_ORDER_COUNT * TEST_ITEMS_PER_ORDER), totals.getRevenue());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testDailyTotalsGroupOrdersByDay() {
+        List<OrderRepository.PeriodTotals> totals = orderRepository.findDailyTotalsByTimestampBetween(
+                getStartTime(), getEndTime(), PageRequest.of(0, 10));
+
+        assertEquals(1, totals.size());
+        assertEquals(TEST_ORDER_COUNT, totals.get(0).getOrderCount());
+        assertEquals(Calendar.getInstance().get(Calendar.DAY_OF_MONTH), totals.get(0).getDay());
+        assertEquals(0, totals.get(0).getHour());
+    }
+
+    @Test
+    public void testHourlyTotalsGroupOrdersByHour() {
+        List<OrderRepository.PeriodTotals> totals = orderRepository.findHourlyTotalsByTimestampBetween(
+                getStartTime(), getEndTime(), PageRequest.of(0, 10));
+
+        assertEquals(1, totals.size());
+        assertEquals(TEST_ORDER_COUNT, totals.get(0).getOrderCount());
+        assertEquals(Calendar.getInstance().get(Calendar.HOUR_OF_DAY), totals.get(0).getHour());
+    }
+
+    @Test
+    public void testCustomerTotalsGroupOrdersByCustomer() {
+        List<OrderRepository.CustomerTotals> totals = orderRepository.findCustomerTotalsByTimestampBetween(
+                getStartTime(), getEndTime(), PageRequest.of(0, 10));
+
+        assertEquals(1, totals.size());
+        assertEquals(TEST_CUSTOMER_EMAIL, totals.get(0).getCustomerEmail());
+        assertEquals(TEST_ORDER_COUNT, totals.get(0).getOrderCount());
+    }
+
+    @Test
+    public void testProductTotalsCountUnitsSold() {
+        List<OrderRepository.ProductTotals> totals = orderRepository.findProductTotalsByTimestampBetween(
+                getStartTime(), getEndTime(), PageRequest.of(0, 2));
+
+        assertEquals(2, totals.size());
+        for (OrderRepository.ProductTotals productTotals : totals) {
+            assertEquals(TEST_ORDER_COUNT, productTotals.getUnitsSold());
+            assertEquals(TEST_PRODUCT_PRICE.times(TEST_ORDER_COUNT), productTotals.getRevenue());
+            assertTrue(productTotals.getName().startsWith("test-product-"));
+        }
+    }
+
+    @Test
+    public void testProductTotalsMultiplyPricesByQuantity() {
+        int quantity = 20;
+        Money price = Money.ofMinorUnits(150);
+        testEntityManager.persist(Order.builder()
+                .id(UUID.randomUUID())
+                .customerEmail(TEST_CUSTOMER_EMAIL)
+                .totalPrice(price.times(quantity))
+                .orderItems(Collections.singletonList(OrderItem.builder()
+                        .price(price)
+                        .quantity(quantity)
+                        .productId(testProduct.getId())
+                        .build()))
+                .build());
+        testEntityManager.flush();
+
+        OrderRepository.ProductTotals productTotals = orderRepository.findProductTotalsByTimestampBetween(
+                getStartTime(), getEndTime(), PageRequest.of(0, 1)).get(0);
+
+        assertEquals(testProduct.getId(), productTotals.getProductId());
+        assertEquals(TEST_ORDER_COUNT + quantity, productTotals.getUnitsSold());
+        assertEquals(TEST_PRODUCT_PRICE.times(TEST_ORDER_COUNT).plus(price.times(quantity)), productTotals.getRevenue());
+    }
+
+    @Test
+    public void testStreamAmountsSince() {
+        try (Stream<OrderRepository.OrderAmount> amounts = orderRepository.streamAmountsByTimestampSince(getStartTime())) {
+            assertEquals(TEST_ORDER_COUNT, amounts
+                    .filter(amount -> TEST_PRODUCT_PRICE.times(TEST_ITEMS_PER_ORDER).equals(amount.getTotalPrice()))
+                    .count());
+        }
+        try (Stream<OrderRepository.OrderItemAmount> itemAmounts =
+                     orderRepository.streamItemAmountsByTimestampSince(getStartTime())) {
+            assertEquals(TEST_ORDER_COUNT * TEST_ITEMS_PER_ORDER, itemAmounts
+                    .filter(itemAmount -> itemAmount.getName().startsWith("test-product-"))
+                    .count());
+        }
+        try (Stream<OrderRepository.OrderAmount> amounts = orderRepository.streamAmountsByTimestampSince(getEndTime())) {
+            assertEquals(0, amounts.count());
+        }
+    }
+
+    private Date getStartTime() {
+        return new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+    }
+
+    private Date getEndTime() {
+        return new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+    }
+
+    private List<String> getProductNames(Order order) {
+        return order.getOrderItems().stream()
+                .map(orderItem -> orderItem.getProduct().getName())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,135 @@
+package com.andreiharpa.assignment.repositories;
+
+import com.andreiharpa.assignment.models.Order;
+import com.andreiharpa.assignment.models.OrderSnapshot;
+import com.andreiharpa.assignment.utils.Money;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class OrderSnapshotRepositoryTests {
+    private static final int TEST_SNAPSHOT_COUNT = 10;
+    private static final String TEST_CUSTOMER_EMAIL = "contact@andreiharpa.dev";
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private OrderSnapshotRepository orderSnapshotRepository;
+
+    private long baseTime;
+
+    @Before
+    public void before() {
+        baseTime = System.currentTimeMillis();
+        for (int i = 0; i < TEST_SNAPSHOT_COUNT; i++) {
+            // Pairs of snapshots share a timestamp, so pages have to be split on the id as well
+            testEntityManager.persist(OrderSnapshot.builder()
+                    .id(UUID.randomUUID())
+                    .timestamp(new Date(baseTime + i / 2))
+                    .payload("{}")
+                    .build());
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+    }
+
+    @Test
+    public void testKeysetPagesCoverIntervalInOrder() {
+        int pageSize = 3;
+        List<UUID> pagedIds = new ArrayList<>();
+        List<OrderSnapshot> page = orderSnapshotRepository.findByTimestampBetween(
+                getStartTime(), getEndTime(), PageRequest.of(0, pageSize));
+        while (!page.isEmpty()) {
+            page.forEach(snapshot -> pagedIds.add(snapshot.getId()));
+            OrderSnapshot last = page.get(page.size() - 1);
+            page = orderSnapshotRepository.findByTimestampBetweenAfter(getStartTime(), getEndTime(),
+                    last.getTimestamp(), last.getId(), PageRequest.of(0, pageSize));
+        }
+
+        List<UUID> allIds = orderSnapshotRepository.findByTimestampBetween(
+                getStartTime(), getEndTime(), PageRequest.of(0, TEST_SNAPSHOT_COUNT + 1)).stream()
+                .map(OrderSnapshot::getId)
+                .collect(Collectors.toList());
+        assertEquals(TEST_SNAPSHOT_COUNT, allIds.size());
+        assertEquals(allIds, pagedIds);
+    }
+
+    @Test
+    public void testIntervalSnapshotsAreNotManaged() {
+        List<OrderSnapshot> snapshots = orderSnapshotRepository.findByTimestampBetween(
+                getStartTime(), getEndTime(), PageRequest.of(0, TEST_SNAPSHOT_COUNT));
+
+        assertEquals(TEST_SNAPSHOT_COUNT, snapshots.size());
+        snapshots.forEach(snapshot -> {
+            assertEquals("{}", snapshot.getPayload());
+            assertFalse(snapshot.isNew());
+            assertFalse(testEntityManager.getEntityManager().contains(snapshot));
+        });
+    }
+
+    @Test
+    public void testFindOrderIdsWithoutSnapshot() {
+        Order order = testEntityManager.persist(Order.builder()
+                .id(UUID.randomUUID())
+                .customerEmail(TEST_CUSTOMER_EMAIL)
+                .totalPrice(Money.ZERO)
+                .orderItems(Collections.emptyList())
+                .build());
+        testEntityManager.flush();
+
+        assertEquals(Collections.singletonList(order.getId()),
+                orderSnapshotRepository.findOrderIdsWithoutSnapshot(PageRequest.of(0, 10)));
+    }
+
+    @Test
+    public void testFindOrderIdsWithoutSnapshotAfter() {
+        List<UUID> orderIds = Stream.generate(UUID::randomUUID)
+                .limit(3)
+                .map(id -> testEntityManager.persist(Order.builder()
+                        .id(id)
+                        .customerEmail(TEST_CUSTOMER_EMAIL)
+                        .totalPrice(Money.ZERO)
+                        .orderItems(Collections.emptyList())
+                        .build()).getId())
+                .collect(Collectors.toList());
+        testEntityManager.flush();
+
+        List<UUID> firstPage = orderSnapshotRepository.findOrderIdsWithoutSnapshot(PageRequest.of(0, 2));
+        List<UUID> secondPage = orderSnapshotRepository.findOrderIdsWithoutSnapshotAfter(
+                firstPage.get(firstPage.size() - 1), PageRequest.of(0, 2));
+
+        assertEquals(2, firstPage.size());
+        assertEquals(1, secondPage.size());
+        assertEquals(new HashSet<>(orderIds), Stream.concat(firstPage.stream(), secondPage.stream())
+                .collect(Collectors.toSet()));
+    }
+
+    private Date getStartTime() {
+        return new Date(baseTime - TimeUnit.MINUTES.toMillis(1));
+    }
+
+    private Date getEndTime() {
+        return new Date(baseTime + TimeUnit.MINUTES.toMillis(1));
+    }
+}
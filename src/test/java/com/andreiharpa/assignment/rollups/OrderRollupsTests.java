@@ -0,0 +1,193 @@
+package com.andreiharpa.assignment.rollups;
+
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderStatsDto;
+import com.andreiharpa.assignment.dtos.OrderStatsGrouping;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.dtos.ProductStatsDto;
+import com.andreiharpa.assignment.exceptions.OrderRollupsNotReadyException;
+import com.andreiharpa.assignment.exceptions.UnsupportedStatsGroupingException;
+import com.andreiharpa.assignment.repositories.OrderRepository;
+import com.andreiharpa.assignment.repositories.OrderRepository.OrderAmount;
+import com.andreiharpa.assignment.repositories.OrderRepository.OrderItemAmount;
+import com.andreiharpa.assignment.utils.Money;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OrderRollupsTests {
+    private static final UUID TEST_PRODUCT_ID_1 = UUID.fromString("a2aaa4aa-7498-4ee0-a6d6-13c4060266ef");
+    private static final UUID TEST_PRODUCT_ID_2 = UUID.fromString("c2ccc4aa-7498-4ee0-a6d6-13c4060266ef");
+    private static final String TEST_PRODUCT_NAME = "test-product-name";
+    private static final String TEST_CUSTOMER_EMAIL = "contact@andreiharpa.dev";
+    private static final int CONCURRENT_WRITERS = 8;
+    private static final int ORDERS_PER_WRITER = 1000;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderRollups orderRollups;
+
+    private Date now;
+
+    @Before
+    public void before() {
+        orderRollups = new OrderRollups(orderRepository, transactionManager, false,
+                Duration.ofHours(1), Duration.ofDays(1), Duration.ofDays(7));
+        now = new Date();
+    }
+
+    @Test
+    public void testRecordedOrdersAreServedFromEveryGranularity() {
+        orderRollups.record(getTestOrderDto(now, Money.ofMinorUnits(150), TEST_PRODUCT_ID_1));
+        orderRollups.record(getTestOrderDto(now, Money.ofMinorUnits(200), TEST_PRODUCT_ID_1, TEST_PRODUCT_ID_2));
+
+        for (OrderStatsGrouping groupBy : Arrays.asList(
+                OrderStatsGrouping.MINUTE, OrderStatsGrouping.HOUR, OrderStatsGrouping.DAY)) {
+            OrderStatsDto stats = orderRollups.getStats(now, now, groupBy, 10, 10);
+
+            assertEquals(2, stats.getOrderCount());
+            assertEquals(Money.ofMinorUnits(350), stats.getRevenue());
+            assertEquals(Money.ofMinorUnits(175), stats.getAverageOrderValue());
+            assertEquals(1, stats.getGroups().size());
+            assertEquals(2, stats.getGroups().get(0).getOrderCount());
+            ProductStatsDto topProduct = stats.getTopProducts().get(0);
+            assertEquals(TEST_PRODUCT_ID_1, topProduct.getId());
+            assertEquals(TEST_PRODUCT_NAME, topProduct.getName());
+            assertEquals(2, topProduct.getUnitsSold());
+        }
+    }
+
+    @Test
+    public void testRecordedQuantitiesCountAsUnits() {
+        OrderDto orderDto = getTestOrderDto(now, Money.ofMinorUnits(500), TEST_PRODUCT_ID_1);
+        orderDto.getProducts().get(0).setQuantity(5);
+        orderRollups.record(orderDto);
+
+        OrderStatsDto stats = orderRollups.getStats(now, now, OrderStatsGrouping.MINUTE, 10, 10);
+
+        assertEquals(Collections.singletonList(new ProductStatsDto(
+                TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, 5, Money.ofMinorUnits(500))), stats.getTopProducts());
+    }
+
+    @Test
+    public void testIntervalWithoutOrders() {
+        orderRollups.record(getTestOrderDto(now, Money.ofMinorUnits(100), TEST_PRODUCT_ID_1));
+        Date later = new Date(now.getTime() + TimeUnit.MINUTES.toMillis(5));
+
+        OrderStatsDto stats = orderRollups.getStats(later, later, OrderStatsGrouping.MINUTE, 10, 10);
+
+        assertEquals(0, stats.getOrderCount());
+        assertEquals(Money.ZERO, stats.getAverageOrderValue());
+        assertTrue(stats.getGroups().isEmpty());
+        assertTrue(stats.getTopProducts().isEmpty());
+    }
+
+    @Test
+    public void testOrdersOlderThanRetentionAreNotKept() {
+        Date twoHoursAgo = new Date(now.getTime() - TimeUnit.HOURS.toMillis(2));
+        orderRollups.record(getTestOrderDto(twoHoursAgo, Money.ofMinorUnits(100), TEST_PRODUCT_ID_1));
+
+        assertEquals(0, orderRollups.getStats(twoHoursAgo, now, OrderStatsGrouping.MINUTE, 10, 0).getOrderCount());
+        assertEquals(1, orderRollups.getStats(twoHoursAgo, now, OrderStatsGrouping.HOUR, 10, 0).getOrderCount());
+    }
+
+    @Test
+    public void testConcurrentRecordsAreAllCounted() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_WRITERS);
+        try {
+            for (int i = 0; i < CONCURRENT_WRITERS; i++) {
+                executor.submit(() -> {
+                    for (int j = 0; j < ORDERS_PER_WRITER; j++) {
+                        orderRollups.record(getTestOrderDto(now, Money.ofMinorUnits(100), TEST_PRODUCT_ID_1));
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        OrderStatsDto stats = orderRollups.getStats(now, now, OrderStatsGrouping.MINUTE, 10, 1);
+        assertEquals(CONCURRENT_WRITERS * ORDERS_PER_WRITER, stats.getOrderCount());
+        assertEquals(CONCURRENT_WRITERS * ORDERS_PER_WRITER, stats.getTopProducts().get(0).getUnitsSold());
+    }
+
+    @Test
+    public void testRebuildReadsOrdersFromRepository() {
+        orderRollups = new OrderRollups(orderRepository, transactionManager, true,
+                Duration.ofHours(1), Duration.ofDays(1), Duration.ofDays(7));
+        Date rebuiltUntil = new Date(now.getTime() + 1);
+        OrderAmount amount = mock(OrderAmount.class);
+        when(amount.getTimestamp()).thenReturn(now);
+        OrderAmount recordedAmount = mock(OrderAmount.class);
+        when(recordedAmount.getTimestamp()).thenReturn(rebuiltUntil);
+        when(amount.getTotalPrice()).thenReturn(Money.ofMinorUnits(1000));
+        OrderItemAmount itemAmount = mock(OrderItemAmount.class);
+        when(itemAmount.getTimestamp()).thenReturn(now);
+        when(itemAmount.getProductId()).thenReturn(TEST_PRODUCT_ID_2);
+        when(itemAmount.getName()).thenReturn(TEST_PRODUCT_NAME);
+        when(itemAmount.getPrice()).thenReturn(Money.ofMinorUnits(1000));
+        when(itemAmount.getQuantity()).thenReturn(1);
+        when(orderRepository.streamAmountsByTimestampSince(any())).thenReturn(Stream.of(amount, recordedAmount));
+        when(orderRepository.streamItemAmountsByTimestampSince(any())).thenReturn(Stream.of(itemAmount));
+        // Created once the rebuild started, read by the rebuild and recorded on commit, but counted once
+        orderRollups.record(getTestOrderDto(rebuiltUntil, Money.ofMinorUnits(100), TEST_PRODUCT_ID_1));
+
+        orderRollups.rebuild(rebuiltUntil);
+
+        OrderStatsDto stats = orderRollups.getStats(now, rebuiltUntil, OrderStatsGrouping.DAY, 10, 1);
+        assertEquals(2, stats.getOrderCount());
+        assertEquals(Money.ofMinorUnits(1100), stats.getRevenue());
+        assertEquals(Collections.singletonList(new ProductStatsDto(
+                TEST_PRODUCT_ID_2, TEST_PRODUCT_NAME, 1, Money.ofMinorUnits(1000))), stats.getTopProducts());
+    }
+
+    @Test(expected = OrderRollupsNotReadyException.class)
+    public void testStatsAreNotServedBeforeRebuild() {
+        orderRollups = new OrderRollups(orderRepository, transactionManager, true,
+                Duration.ofHours(1), Duration.ofDays(1), Duration.ofDays(7));
+        orderRollups.getStats(now, now, OrderStatsGrouping.DAY, 10, 10);
+    }
+
+    @Test(expected = UnsupportedStatsGroupingException.class)
+    public void testGroupingByCustomerIsNotSupported() {
+        orderRollups.getStats(now, now, OrderStatsGrouping.CUSTOMER, 10, 10);
+    }
+
+    private static OrderDto getTestOrderDto(Date timestamp, Money totalPrice, UUID... productIds) {
+        return OrderDto.builder()
+                .id(UUID.randomUUID())
+                .customerEmail(TEST_CUSTOMER_EMAIL)
+                .timestamp(timestamp)
+                .totalPrice(totalPrice)
+                .products(Arrays.stream(productIds)
+                        .map(productId -> new ProductDto(productId, TEST_PRODUCT_NAME, Money.ofMinorUnits(100)))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+}
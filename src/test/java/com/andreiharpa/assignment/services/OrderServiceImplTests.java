@@ -1,38 +1,60 @@
 package com.andreiharpa.assignment.services;
 
+import com.andreiharpa.assignment.cache.ProductCache;
+import com.andreiharpa.assignment.dtos.BatchOrderResultDto;
 import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.CreateOrderLineDto;
 import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderPageDto;
 import com.andreiharpa.assignment.dtos.ProductDto;
 import com.andreiharpa.assignment.exceptions.OrderNotFoundException;
 import com.andreiharpa.assignment.exceptions.OrderProductNotFoundException;
+import com.andreiharpa.assignment.exceptions.OrderQuantityTooLargeException;
+import com.andreiharpa.assignment.exceptions.OrderTotalTooLargeException;
 import com.andreiharpa.assignment.models.Order;
 import com.andreiharpa.assignment.models.OrderItem;
+import com.andreiharpa.assignment.models.OrderSnapshot;
 import com.andreiharpa.assignment.models.Product;
 import com.andreiharpa.assignment.repositories.OrderRepository;
+import com.andreiharpa.assignment.repositories.OrderSnapshotRepository;
 import com.andreiharpa.assignment.repositories.ProductRepository;
+import com.andreiharpa.assignment.rollups.OrderRollups;
+import com.andreiharpa.assignment.utils.Money;
+import com.andreiharpa.assignment.utils.OrderCursor;
 import com.andreiharpa.assignment.utils.UuidGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 
-import java.math.BigDecimal;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -40,28 +62,41 @@ import static org.mockito.Mockito.when;
 @RunWith(MockitoJUnitRunner.class)
 public class OrderServiceImplTests {
     private static final UUID TEST_ORDER_ID_1 = UUID.fromString("b2abf4cd-7498-4ee0-a6d6-13c4060266ef");
+    private static final UUID TEST_ORDER_ID_2 = UUID.fromString("b3abf4cd-7498-4ee0-a6d6-13c4060266ef");
     private static final UUID TEST_PRODUCT_ID_1 = UUID.fromString("a2aaa4aa-7498-4ee0-a6d6-13c4060266ef");
     private static final UUID TEST_PRODUCT_ID_2 = UUID.fromString("c2ccc4aa-7498-4ee0-a6d6-13c4060266ef");
-    private static final BigDecimal TEST_PRODUCT_PRICE_1 = BigDecimal.ONE;
-    private static final BigDecimal TEST_PRODUCT_PRICE_2 = BigDecimal.ONE;
-    private static final BigDecimal TEST_ORDER_TOTAL_PRICE = TEST_PRODUCT_PRICE_1.add(TEST_PRODUCT_PRICE_2);
+    private static final Money TEST_PRODUCT_PRICE_1 = Money.ofMinorUnits(100);
+    private static final Money TEST_PRODUCT_PRICE_2 = Money.ofMinorUnits(100);
+    private static final Money TEST_ORDER_TOTAL_PRICE = TEST_PRODUCT_PRICE_1.plus(TEST_PRODUCT_PRICE_2);
     private static final String TEST_CUSTOMER_EMAIL = "contact@andreiharpa.dev";
     private static final String TEST_PRODUCT_NAME = "test-product name";
     private static Date TEST_TIMESTAMP_1;
     private static Date TEST_TIMESTAMP_2;
 
-    private static final Product TEST_PRODUCT_1 = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, BigDecimal.ONE);
-    private static final Product TEST_PRODUCT_2 = new Product(TEST_PRODUCT_ID_2, TEST_PRODUCT_NAME, BigDecimal.ONE);
+    private static final Product TEST_PRODUCT_1 = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.ofMinorUnits(100));
+    private static final Product TEST_PRODUCT_2 = new Product(TEST_PRODUCT_ID_2, TEST_PRODUCT_NAME, Money.ofMinorUnits(100));
 
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private OrderSnapshotRepository orderSnapshotRepository;
+
+    @Mock
+    private OrderRollups orderRollups;
+
     @Mock
     private ProductRepository productRepository;
 
     @Mock
     private UuidGenerator uuidGenerator;
 
+    @Spy
+    private ProductCache productCache = new ProductCache(true, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private OrderServiceImpl orderServiceImpl;
 
@@ -88,6 +123,24 @@ public class OrderServiceImplTests {
         orderServiceImpl.getById(TEST_ORDER_ID_1);
     }
 
+    @Test
+    public void testGetSummaryById() {
+        when(orderRepository.findHeaderById(TEST_ORDER_ID_1))
+                .thenReturn(Optional.of(getTestOrderHeader(TEST_ORDER_ID_1, TEST_TIMESTAMP_1)));
+
+        OrderDto orderDto = orderServiceImpl.getSummaryById(TEST_ORDER_ID_1);
+
+        assertEquals(TEST_ORDER_ID_1, orderDto.getId());
+        assertEquals(TEST_ORDER_TOTAL_PRICE, orderDto.getTotalPrice());
+        assertNull(orderDto.getProducts());
+        verify(orderRepository, never()).findById(any());
+    }
+
+    @Test(expected = OrderNotFoundException.class)
+    public void testGetSummaryByIdOrderNotFound() {
+        orderServiceImpl.getSummaryById(TEST_ORDER_ID_1);
+    }
+
     @Test
     public void testCreateOrderProductsExist() {
         List<UUID> orderProductIds = Arrays.asList(TEST_PRODUCT_ID_1, TEST_PRODUCT_ID_2);
@@ -99,21 +152,113 @@ public class OrderServiceImplTests {
         OrderDto expectedOrderDto = getExpectedOrderDtoForProducts(productList);
 
         when(uuidGenerator.generate()).thenReturn(TEST_ORDER_ID_1);
-        when(productRepository.findAllById(orderProductIds)).thenReturn(productList);
-        when(orderRepository.save(orderToSave)).thenReturn(orderRetrieved);
+        when(productRepository.findAllById(new HashSet<>(orderProductIds))).thenReturn(productList);
+        when(orderRepository.saveAndFlush(orderToSave)).thenReturn(orderRetrieved);
 
         OrderDto productDto = orderServiceImpl.create(createProductDto);
-        verify(orderRepository).save(orderToSave);
+        verify(orderRepository).saveAndFlush(orderToSave);
         assertEquals(expectedOrderDto, productDto);
     }
 
+    @Test
+    public void testCreateOrderWritesSnapshot() throws JsonProcessingException {
+        List<UUID> orderProductIds = Arrays.asList(TEST_PRODUCT_ID_1, TEST_PRODUCT_ID_2);
+        List<Product> productList = Arrays.asList(TEST_PRODUCT_1, TEST_PRODUCT_2);
+
+        CreateOrderDto createProductDto = new CreateOrderDto(TEST_CUSTOMER_EMAIL, orderProductIds);
+        Order orderToSave = getTestOrderForProducts(productList);
+        Order orderRetrieved = getTestOrderForProducts(productList, TEST_TIMESTAMP_1);
+        OrderDto expectedOrderDto = getExpectedOrderDtoForProducts(productList);
+
+        when(uuidGenerator.generate()).thenReturn(TEST_ORDER_ID_1);
+        when(productRepository.findAllById(new HashSet<>(orderProductIds))).thenReturn(productList);
+        when(orderRepository.saveAndFlush(orderToSave)).thenReturn(orderRetrieved);
+
+        orderServiceImpl.create(createProductDto);
+        ArgumentCaptor<OrderSnapshot> snapshot = ArgumentCaptor.forClass(OrderSnapshot.class);
+        verify(orderSnapshotRepository).save(snapshot.capture());
+        assertEquals(TEST_ORDER_ID_1, snapshot.getValue().getId());
+        assertEquals(TEST_TIMESTAMP_1, snapshot.getValue().getTimestamp());
+        assertEquals(expectedOrderDto, objectMapper.readValue(snapshot.getValue().getPayload(), OrderDto.class));
+    }
+
+    @Test
+    public void testCreateOrderRecordsRollups() {
+        List<UUID> orderProductIds = Arrays.asList(TEST_PRODUCT_ID_1, TEST_PRODUCT_ID_2);
+        List<Product> productList = Arrays.asList(TEST_PRODUCT_1, TEST_PRODUCT_2);
+
+        CreateOrderDto createProductDto = new CreateOrderDto(TEST_CUSTOMER_EMAIL, orderProductIds);
+        Order orderToSave = getTestOrderForProducts(productList);
+        Order orderRetrieved = getTestOrderForProducts(productList, TEST_TIMESTAMP_1);
+
+        when(uuidGenerator.generate()).thenReturn(TEST_ORDER_ID_1);
+        when(productRepository.findAllById(new HashSet<>(orderProductIds))).thenReturn(productList);
+        when(orderRepository.saveAndFlush(orderToSave)).thenReturn(orderRetrieved);
+
+        OrderDto orderDto = orderServiceImpl.create(createProductDto);
+        verify(orderRollups).record(orderDto);
+    }
+
+    @Test
+    public void testCreateOrderResolvesCachedProductsWithoutRepository() {
+        List<UUID> orderProductIds = Arrays.asList(TEST_PRODUCT_ID_1, TEST_PRODUCT_ID_2);
+        List<Product> productList = Arrays.asList(TEST_PRODUCT_1, TEST_PRODUCT_2);
+        productList.forEach(productCache::put);
+
+        CreateOrderDto createProductDto = new CreateOrderDto(TEST_CUSTOMER_EMAIL, orderProductIds);
+        Order orderToSave = getTestOrderForProducts(productList);
+        Order orderRetrieved = getTestOrderForProducts(productList, TEST_TIMESTAMP_1);
+
+        when(uuidGenerator.generate()).thenReturn(TEST_ORDER_ID_1);
+        when(orderRepository.saveAndFlush(orderToSave)).thenReturn(orderRetrieved);
+
+        orderServiceImpl.create(createProductDto);
+        verify(productRepository, times(0)).findAllById(any());
+        verify(orderRepository).saveAndFlush(orderToSave);
+    }
+
+    @Test
+    public void testCreateOrderMergesProductIdsAndLinesIntoQuantities() {
+        CreateOrderDto createOrderDto = CreateOrderDto.builder()
+                .customerEmail(TEST_CUSTOMER_EMAIL)
+                .productIds(Arrays.asList(TEST_PRODUCT_ID_1, TEST_PRODUCT_ID_1))
+                .lines(Collections.singletonList(new CreateOrderLineDto(TEST_PRODUCT_ID_2, 3)))
+                .build();
+
+        when(uuidGenerator.generate()).thenReturn(TEST_ORDER_ID_1);
+        when(productRepository.findAllById(new HashSet<>(Arrays.asList(TEST_PRODUCT_ID_1, TEST_PRODUCT_ID_2))))
+                .thenReturn(Arrays.asList(TEST_PRODUCT_1, TEST_PRODUCT_2));
+        when(orderRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        OrderDto orderDto = orderServiceImpl.create(createOrderDto);
+        ArgumentCaptor<Order> order = ArgumentCaptor.forClass(Order.class);
+        verify(orderRepository).saveAndFlush(order.capture());
+        assertEquals(2, order.getValue().getOrderItems().size());
+        assertEquals(2, order.getValue().getOrderItems().get(0).getQuantity());
+        assertEquals(3, order.getValue().getOrderItems().get(1).getQuantity());
+        assertEquals(TEST_PRODUCT_PRICE_1.times(2).plus(TEST_PRODUCT_PRICE_2.times(3)), orderDto.getTotalPrice());
+        assertEquals(Integer.valueOf(3), orderDto.getProducts().get(1).getQuantity());
+    }
+
+    @Test
+    public void testCreateOrderMergedQuantityTooLarge() {
+        CreateOrderDto createOrderDto = CreateOrderDto.builder()
+                .customerEmail(TEST_CUSTOMER_EMAIL)
+                .productIds(Collections.singletonList(TEST_PRODUCT_ID_1))
+                .lines(Collections.singletonList(new CreateOrderLineDto(TEST_PRODUCT_ID_1, CreateOrderLineDto.MAX_QUANTITY)))
+                .build();
+
+        assertThrows(OrderQuantityTooLargeException.class, () -> orderServiceImpl.create(createOrderDto));
+        verify(productRepository, times(0)).findAllById(any());
+    }
+
     @Test
     public void testCreateOrderProductsNotFound() {
         List<UUID> orderProductIds = Arrays.asList(TEST_PRODUCT_ID_1, TEST_PRODUCT_ID_2);
         List<Product> productList = Collections.singletonList(TEST_PRODUCT_1);
         CreateOrderDto createProductDto = new CreateOrderDto(TEST_CUSTOMER_EMAIL, orderProductIds);
 
-        when(productRepository.findAllById(orderProductIds)).thenReturn(productList);
+        when(productRepository.findAllById(new HashSet<>(orderProductIds))).thenReturn(productList);
 
         assertThrows(OrderProductNotFoundException.class, () -> {
             orderServiceImpl.create(createProductDto);
@@ -122,24 +267,169 @@ public class OrderServiceImplTests {
     }
 
     @Test
-    public void testGetAllInRange() {
+    public void testCreateOrderTotalTooLarge() {
+        Product expensiveProduct = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.ofMinorUnits(Long.MAX_VALUE / 2));
+        productCache.put(expensiveProduct);
+        CreateOrderDto createOrderDto = CreateOrderDto.builder()
+                .customerEmail(TEST_CUSTOMER_EMAIL)
+                .lines(Collections.singletonList(new CreateOrderLineDto(TEST_PRODUCT_ID_1, 3)))
+                .build();
+
+        assertThrows(OrderTotalTooLargeException.class, () -> orderServiceImpl.create(createOrderDto));
+        verify(orderRepository, times(0)).saveAndFlush(any());
+    }
+
+    @Test
+    public void testCreateAllReportsMissingProductsPerOrder() {
+        UUID missingProductId = UUID.randomUUID();
+        CreateOrderDto validOrder = new CreateOrderDto(TEST_CUSTOMER_EMAIL, Arrays.asList(TEST_PRODUCT_ID_1, TEST_PRODUCT_ID_2));
+        CreateOrderDto invalidOrder = new CreateOrderDto(TEST_CUSTOMER_EMAIL, Arrays.asList(TEST_PRODUCT_ID_1, missingProductId));
+        Order orderToSave = getTestOrderForProducts(Arrays.asList(TEST_PRODUCT_1, TEST_PRODUCT_2));
+
+        when(uuidGenerator.generate()).thenReturn(TEST_ORDER_ID_1);
+        when(productRepository.findAllById(new HashSet<>(Arrays.asList(TEST_PRODUCT_ID_1, TEST_PRODUCT_ID_2, missingProductId))))
+                .thenReturn(Arrays.asList(TEST_PRODUCT_1, TEST_PRODUCT_2));
+
+        List<BatchOrderResultDto> results = orderServiceImpl.createAll(Arrays.asList(validOrder, invalidOrder));
+        verify(productRepository, times(1)).findAllById(any());
+        verify(orderRepository).saveAll(Collections.singletonList(orderToSave));
+        assertEquals(2, results.size());
+        assertEquals(0, results.get(0).getIndex());
+        assertNotNull(results.get(0).getOrder());
+        assertNull(results.get(0).getError());
+        assertEquals(1, results.get(1).getIndex());
+        assertNull(results.get(1).getOrder());
+        assertNotNull(results.get(1).getError());
+    }
+
+    @Test
+    public void testCreateAllReportsQuantityTooLargePerOrder() {
+        CreateOrderDto validOrder = new CreateOrderDto(TEST_CUSTOMER_EMAIL, Arrays.asList(TEST_PRODUCT_ID_1, TEST_PRODUCT_ID_2));
+        CreateOrderDto invalidOrder = CreateOrderDto.builder()
+                .customerEmail(TEST_CUSTOMER_EMAIL)
+                .productIds(Collections.singletonList(TEST_PRODUCT_ID_1))
+                .lines(Collections.singletonList(new CreateOrderLineDto(TEST_PRODUCT_ID_1, CreateOrderLineDto.MAX_QUANTITY)))
+                .build();
+        Order orderToSave = getTestOrderForProducts(Arrays.asList(TEST_PRODUCT_1, TEST_PRODUCT_2));
+
+        when(uuidGenerator.generate()).thenReturn(TEST_ORDER_ID_1);
+        when(productRepository.findAllById(new HashSet<>(Arrays.asList(TEST_PRODUCT_ID_1, TEST_PRODUCT_ID_2))))
+                .thenReturn(Arrays.asList(TEST_PRODUCT_1, TEST_PRODUCT_2));
+
+        List<BatchOrderResultDto> results = orderServiceImpl.createAll(Arrays.asList(validOrder, invalidOrder));
+        verify(orderRepository).saveAll(Collections.singletonList(orderToSave));
+        assertEquals(2, results.size());
+        assertNotNull(results.get(0).getOrder());
+        assertNull(results.get(0).getError());
+        assertEquals(1, results.get(1).getIndex());
+        assertNull(results.get(1).getOrder());
+        assertNotNull(results.get(1).getError());
+    }
+
+    @Test
+    public void testGetPageInRange() throws JsonProcessingException {
         List<Product> productList = Arrays.asList(TEST_PRODUCT_1, TEST_PRODUCT_2);
-        Order orderRetrieved = getTestOrderForProducts(productList, TEST_TIMESTAMP_1);
         OrderDto expectedOrderDto = getExpectedOrderDtoForProducts(productList);
+        OrderSnapshot snapshot = getTestOrderSnapshot(expectedOrderDto);
+
+        when(orderSnapshotRepository.findByTimestampBetween(TEST_TIMESTAMP_1, TEST_TIMESTAMP_2, PageRequest.of(0, 3)))
+                .thenReturn(Collections.singletonList(snapshot));
+
+        OrderPageDto orderPage = orderServiceImpl.getPageInTimeInterval(TEST_TIMESTAMP_1, TEST_TIMESTAMP_2, null, 2);
+        assertEquals(Collections.singletonList(expectedOrderDto), orderPage.getOrders());
+        assertNull(orderPage.getNextCursor());
+    }
 
-        when(orderRepository.findAllByTimestampBetween(TEST_TIMESTAMP_1, TEST_TIMESTAMP_2)).thenReturn(
-                Collections.singletonList(orderRetrieved));
+    @Test
+    public void testGetPageInRangeWithNextPage() throws JsonProcessingException {
+        List<Product> productList = Collections.singletonList(TEST_PRODUCT_1);
+        OrderSnapshot firstSnapshot = getTestOrderSnapshot(getExpectedOrderDtoForProducts(productList));
+        OrderSnapshot secondSnapshot = OrderSnapshot.builder()
+                .id(TEST_ORDER_ID_2)
+                .timestamp(TEST_TIMESTAMP_2)
+                .payload(firstSnapshot.getPayload())
+                .build();
+        OrderCursor cursor = new OrderCursor(TEST_TIMESTAMP_1, TEST_ORDER_ID_2);
 
-        List<OrderDto> orders = orderServiceImpl.getAllInTimeInterval(TEST_TIMESTAMP_1, TEST_TIMESTAMP_2);
-        verify(orderRepository).findAllByTimestampBetween(TEST_TIMESTAMP_1, TEST_TIMESTAMP_2);
+        when(orderSnapshotRepository.findByTimestampBetweenAfter(TEST_TIMESTAMP_1, TEST_TIMESTAMP_2,
+                TEST_TIMESTAMP_1, TEST_ORDER_ID_2, PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(firstSnapshot, secondSnapshot));
+
+        OrderPageDto orderPage = orderServiceImpl.getPageInTimeInterval(
+                TEST_TIMESTAMP_1, TEST_TIMESTAMP_2, cursor.encode(), 1);
+        assertEquals(1, orderPage.getOrders().size());
+        assertEquals(OrderCursor.after(firstSnapshot), OrderCursor.decode(orderPage.getNextCursor()));
+    }
+
+    @Test
+    public void testGetSummaryPageInRangeWithNextPage() {
+        OrderRepository.OrderHeader firstHeader = getTestOrderHeader(TEST_ORDER_ID_1, TEST_TIMESTAMP_1);
+        OrderRepository.OrderHeader secondHeader = getTestOrderHeader(TEST_ORDER_ID_2, TEST_TIMESTAMP_2);
+        OrderCursor cursor = new OrderCursor(TEST_TIMESTAMP_1, TEST_ORDER_ID_2);
+
+        when(orderRepository.findHeadersByTimestampBetweenAfter(TEST_TIMESTAMP_1, TEST_TIMESTAMP_2,
+                TEST_TIMESTAMP_1, TEST_ORDER_ID_2, PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(firstHeader, secondHeader));
+
+        OrderPageDto orderPage = orderServiceImpl.getSummaryPageInTimeInterval(
+                TEST_TIMESTAMP_1, TEST_TIMESTAMP_2, cursor.encode(), 1);
+        assertEquals(1, orderPage.getOrders().size());
+        assertNull(orderPage.getOrders().get(0).getProducts());
+        assertEquals(OrderCursor.after(firstHeader), OrderCursor.decode(orderPage.getNextCursor()));
+        verify(orderSnapshotRepository, never()).findByTimestampBetweenAfter(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testForEachInRange() throws JsonProcessingException {
+        List<Product> productList = Arrays.asList(TEST_PRODUCT_1, TEST_PRODUCT_2);
+        OrderDto expectedOrderDto = getExpectedOrderDtoForProducts(productList);
+        OrderSnapshot snapshot = getTestOrderSnapshot(expectedOrderDto);
+
+        when(orderSnapshotRepository.findByTimestampBetween(TEST_TIMESTAMP_1, TEST_TIMESTAMP_2,
+                PageRequest.of(0, OrderServiceImpl.STREAM_CHUNK_SIZE)))
+                .thenReturn(Collections.singletonList(snapshot));
+
+        List<OrderDto> orders = new ArrayList<>();
+        orderServiceImpl.forEachInTimeInterval(TEST_TIMESTAMP_1, TEST_TIMESTAMP_2, orders::add);
         assertEquals(Collections.singletonList(expectedOrderDto), orders);
     }
 
+    @Test
+    public void testBackfillSnapshots() {
+        List<Product> productList = Arrays.asList(TEST_PRODUCT_1, TEST_PRODUCT_2);
+        Order orderRetrieved = getTestOrderForProducts(productList, TEST_TIMESTAMP_1);
+
+        when(orderSnapshotRepository.findOrderIdsWithoutSnapshot(PageRequest.of(0, 10)))
+                .thenReturn(Collections.singletonList(TEST_ORDER_ID_1));
+        when(orderRepository.findDistinctByIdIn(Collections.singletonList(TEST_ORDER_ID_1)))
+                .thenReturn(Collections.singletonList(orderRetrieved));
+
+        assertEquals(Collections.singletonList(TEST_ORDER_ID_1), orderServiceImpl.backfillSnapshots(null, 10));
+        verify(orderSnapshotRepository).saveAll(any());
+    }
+
+    @Test
+    public void testBackfillSnapshotsAfterId() {
+        when(orderSnapshotRepository.findOrderIdsWithoutSnapshotAfter(TEST_ORDER_ID_1, PageRequest.of(0, 10)))
+                .thenReturn(Collections.emptyList());
+
+        assertEquals(Collections.emptyList(), orderServiceImpl.backfillSnapshots(TEST_ORDER_ID_1, 10));
+        verify(orderSnapshotRepository, times(0)).findOrderIdsWithoutSnapshot(any());
+    }
+
+    private OrderSnapshot getTestOrderSnapshot(OrderDto orderDto) throws JsonProcessingException {
+        return OrderSnapshot.builder()
+                .id(orderDto.getId())
+                .timestamp(orderDto.getTimestamp())
+                .payload(objectMapper.writeValueAsString(orderDto))
+                .build();
+    }
+
     private Order getTestOrderForProducts(List<Product> products) {
         List<OrderItem> orderItems = products.stream()
                 .map(product -> OrderItem.builder()
                         .price(product.getPrice())
-                        .product(product)
+                        .productId(product.getId())
                         .build())
                 .collect(Collectors.toList());
 
@@ -155,6 +445,7 @@ public class OrderServiceImplTests {
         List<OrderItem> orderItems = products.stream()
                 .map(product -> OrderItem.builder()
                         .price(product.getPrice())
+                        .productId(product.getId())
                         .product(product)
                         .build())
                 .collect(Collectors.toList());
@@ -174,6 +465,7 @@ public class OrderServiceImplTests {
                         .id(product.getId())
                         .name(product.getName())
                         .price(product.getPrice())
+                        .quantity(1)
                         .build())
                 .collect(Collectors.toList());
 
@@ -185,4 +477,8 @@ public class OrderServiceImplTests {
                 .products(productDtos)
                 .build();
     }
+
+    private OrderRepository.OrderHeader getTestOrderHeader(UUID id, Date timestamp) {
+        return new OrderRepository.OrderHeader(id, TEST_CUSTOMER_EMAIL, timestamp, TEST_ORDER_TOTAL_PRICE);
+    }
 }
@@ -0,0 +1,121 @@
+package com.andreiharpa.assignment.services;
+
+import com.andreiharpa.assignment.dtos.OrderStatsDto;
+import com.andreiharpa.assignment.dtos.OrderStatsGroupDto;
+import com.andreiharpa.assignment.dtos.OrderStatsGrouping;
+import com.andreiharpa.assignment.dtos.ProductStatsDto;
+import com.andreiharpa.assignment.repositories.OrderRepository;
+import com.andreiharpa.assignment.repositories.OrderRepository.CustomerTotals;
+import com.andreiharpa.assignment.repositories.OrderRepository.OrderTotals;
+import com.andreiharpa.assignment.repositories.OrderRepository.PeriodTotals;
+import com.andreiharpa.assignment.repositories.OrderRepository.ProductTotals;
+import com.andreiharpa.assignment.utils.Money;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OrderStatsServiceImplTests {
+    private static final Date TEST_START_TIME = new Date(0);
+    private static final Date TEST_END_TIME = new Date(1000);
+    private static final String TEST_CUSTOMER_EMAIL = "contact@andreiharpa.dev";
+    private static final UUID TEST_PRODUCT_ID = UUID.fromString("a2aaa4aa-7498-4ee0-a6d6-13c4060266ef");
+    private static final String TEST_PRODUCT_NAME = "test-product-name";
+    private static final int TEST_GROUP_LIMIT = 10;
+    private static final int TEST_TOP_PRODUCTS = 5;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @InjectMocks
+    private OrderStatsServiceImpl orderStatsService;
+
+    @Test
+    public void testGetStatsGroupedByHour() {
+        OrderTotals totals = mockOrderTotals(OrderTotals.class, 3, Money.ofMinorUnits(1000));
+        PeriodTotals hourTotals = mockOrderTotals(PeriodTotals.class, 3, Money.ofMinorUnits(1000));
+        when(hourTotals.getYear()).thenReturn(2020);
+        when(hourTotals.getMonth()).thenReturn(11);
+        when(hourTotals.getDay()).thenReturn(9);
+        when(hourTotals.getHour()).thenReturn(7);
+        ProductTotals productTotals = mock(ProductTotals.class);
+        when(productTotals.getProductId()).thenReturn(TEST_PRODUCT_ID);
+        when(productTotals.getName()).thenReturn(TEST_PRODUCT_NAME);
+        when(productTotals.getUnitsSold()).thenReturn(4L);
+        when(productTotals.getRevenue()).thenReturn(Money.ofMinorUnits(1000));
+
+        when(orderRepository.findTotalsByTimestampBetween(TEST_START_TIME, TEST_END_TIME)).thenReturn(totals);
+        when(orderRepository.findHourlyTotalsByTimestampBetween(
+                TEST_START_TIME, TEST_END_TIME, PageRequest.of(0, TEST_GROUP_LIMIT)))
+                .thenReturn(Collections.singletonList(hourTotals));
+        when(orderRepository.findProductTotalsByTimestampBetween(
+                TEST_START_TIME, TEST_END_TIME, PageRequest.of(0, TEST_TOP_PRODUCTS)))
+                .thenReturn(Collections.singletonList(productTotals));
+
+        OrderStatsDto stats = orderStatsService.getStats(
+                TEST_START_TIME, TEST_END_TIME, OrderStatsGrouping.HOUR, TEST_GROUP_LIMIT, TEST_TOP_PRODUCTS);
+
+        assertEquals(3, stats.getOrderCount());
+        assertEquals(Money.ofMinorUnits(1000), stats.getRevenue());
+        assertEquals(Money.ofMinorUnits(333), stats.getAverageOrderValue());
+        assertEquals(Collections.singletonList(new OrderStatsGroupDto(
+                "2020-11-09T07:00:00", 3, Money.ofMinorUnits(1000), Money.ofMinorUnits(333))), stats.getGroups());
+        assertEquals(Collections.singletonList(new ProductStatsDto(
+                TEST_PRODUCT_ID, TEST_PRODUCT_NAME, 4, Money.ofMinorUnits(1000))), stats.getTopProducts());
+    }
+
+    @Test
+    public void testGetStatsGroupedByCustomerWithoutTopProducts() {
+        OrderTotals totals = mockOrderTotals(OrderTotals.class, 2, Money.ofMinorUnits(1000));
+        CustomerTotals customerTotals = mockOrderTotals(CustomerTotals.class, 2, Money.ofMinorUnits(1000));
+        when(customerTotals.getCustomerEmail()).thenReturn(TEST_CUSTOMER_EMAIL);
+
+        when(orderRepository.findTotalsByTimestampBetween(TEST_START_TIME, TEST_END_TIME)).thenReturn(totals);
+        when(orderRepository.findCustomerTotalsByTimestampBetween(
+                TEST_START_TIME, TEST_END_TIME, PageRequest.of(0, TEST_GROUP_LIMIT)))
+                .thenReturn(Collections.singletonList(customerTotals));
+
+        OrderStatsDto stats = orderStatsService.getStats(
+                TEST_START_TIME, TEST_END_TIME, OrderStatsGrouping.CUSTOMER, TEST_GROUP_LIMIT, 0);
+
+        assertEquals(TEST_CUSTOMER_EMAIL, stats.getGroups().get(0).getKey());
+        assertEquals(Money.ofMinorUnits(500), stats.getGroups().get(0).getAverageOrderValue());
+        assertEquals(Collections.emptyList(), stats.getTopProducts());
+        verify(orderRepository, never()).findProductTotalsByTimestampBetween(any(), any(), any());
+    }
+
+    @Test
+    public void testGetStatsWithoutOrders() {
+        OrderTotals totals = mockOrderTotals(OrderTotals.class, 0, null);
+        when(orderRepository.findTotalsByTimestampBetween(TEST_START_TIME, TEST_END_TIME)).thenReturn(totals);
+
+        OrderStatsDto stats = orderStatsService.getStats(
+                TEST_START_TIME, TEST_END_TIME, OrderStatsGrouping.DAY, TEST_GROUP_LIMIT, TEST_TOP_PRODUCTS);
+
+        assertEquals(0, stats.getOrderCount());
+        assertEquals(Money.ZERO, stats.getRevenue());
+        assertEquals(Money.ZERO, stats.getAverageOrderValue());
+        assertEquals(Collections.emptyList(), stats.getGroups());
+    }
+
+    private static <T extends OrderTotals> T mockOrderTotals(Class<T> totalsClass, long orderCount, Money revenue) {
+        T totals = mock(totalsClass);
+        when(totals.getOrderCount()).thenReturn(orderCount);
+        when(totals.getRevenue()).thenReturn(revenue);
+        return totals;
+    }
+}
@@ -1,28 +1,45 @@
 package com.andreiharpa.assignment.services;
 
+import com.andreiharpa.assignment.cache.ProductCache;
 import com.andreiharpa.assignment.dtos.CreateProductDto;
 import com.andreiharpa.assignment.dtos.ProductDto;
 import com.andreiharpa.assignment.dtos.UpdateProductDto;
 import com.andreiharpa.assignment.exceptions.ProductNotFoundException;
+import com.andreiharpa.assignment.exceptions.ProductVersionConflictException;
+import com.andreiharpa.assignment.exceptions.ProductVersionMismatchException;
 import com.andreiharpa.assignment.models.Product;
 import com.andreiharpa.assignment.repositories.ProductRepository;
+import com.andreiharpa.assignment.utils.Money;
 import com.andreiharpa.assignment.utils.UuidGenerator;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManager;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -42,13 +59,19 @@ public class ProductServiceImplTests {
     @Mock
     private UuidGenerator uuidGenerator;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ProductCache productCache = new ProductCache(true, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
     @InjectMocks
     private ProductServiceImpl productServiceImpl;
 
     @Test
     public void testGetById() {
-        Product product = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, TEST_PRODUCT_PRICE);
-        ProductDto expectedProductDto = new ProductDto(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, TEST_PRODUCT_PRICE);
+        Product product = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE));
+        ProductDto expectedProductDto = new ProductDto(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE));
 
         when(productRepository.findById(TEST_PRODUCT_ID_1)).thenReturn(
                 Optional.of(product));
@@ -57,6 +80,19 @@ public class ProductServiceImplTests {
         assertEquals(expectedProductDto, productDto);
     }
 
+    @Test
+    public void testGetByIdServedFromCache() {
+        Product product = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE));
+        ProductDto expectedProductDto = new ProductDto(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE));
+
+        when(productRepository.findById(TEST_PRODUCT_ID_1)).thenReturn(Optional.of(product));
+        productServiceImpl.getById(TEST_PRODUCT_ID_1);
+        ProductDto productDto = productServiceImpl.getById(TEST_PRODUCT_ID_1);
+
+        verify(productRepository, times(1)).findById(TEST_PRODUCT_ID_1);
+        assertEquals(expectedProductDto, productDto);
+    }
+
     @Test(expected = ProductNotFoundException.class)
     public void testGetByIdProductNotFound() {
         when(productRepository.findById(TEST_PRODUCT_ID_1)).thenReturn(Optional.empty());
@@ -66,25 +102,55 @@ public class ProductServiceImplTests {
     @Test
     public void testGetAll() {
         List<Product> allProducts = Arrays.asList(
-                new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, TEST_PRODUCT_PRICE),
-                new Product(TEST_PRODUCT_ID_2, TEST_PRODUCT_NAME, TEST_PRODUCT_PRICE)
+                new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE)),
+                new Product(TEST_PRODUCT_ID_2, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE))
         );
         List<ProductDto> expectedProductDtos = Arrays.asList(
-                new ProductDto(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, TEST_PRODUCT_PRICE),
-                new ProductDto(TEST_PRODUCT_ID_2, TEST_PRODUCT_NAME, TEST_PRODUCT_PRICE)
+                new ProductDto(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE)),
+                new ProductDto(TEST_PRODUCT_ID_2, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE))
         );
 
-        when(productRepository.findAll()).thenReturn(allProducts);
+        when(productRepository.findUnmanaged(Pageable.unpaged())).thenReturn(allProducts);
         List<ProductDto> productDtoList = productServiceImpl.getAll();
 
         assertEquals(expectedProductDtos, productDtoList);
     }
 
+    @Test
+    public void testGetPage() {
+        List<Product> pageProducts = Arrays.asList(
+                new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE)),
+                new Product(TEST_PRODUCT_ID_2, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE))
+        );
+        List<ProductDto> expectedProductDtos = Arrays.asList(
+                new ProductDto(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE)),
+                new ProductDto(TEST_PRODUCT_ID_2, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE))
+        );
+
+        when(productRepository.findUnmanaged(PageRequest.of(1, 2))).thenReturn(pageProducts);
+        List<ProductDto> productDtoList = productServiceImpl.getPage(1, 2);
+
+        assertEquals(expectedProductDtos, productDtoList);
+    }
+
+    @Test
+    public void testForEach() {
+        Product product = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE));
+        ProductDto expectedProductDto = new ProductDto(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE));
+
+        when(productRepository.streamAll()).thenReturn(Stream.of(product));
+        List<ProductDto> productDtoList = new ArrayList<>();
+        productServiceImpl.forEach(productDtoList::add);
+
+        verify(entityManager).detach(product);
+        assertEquals(Collections.singletonList(expectedProductDto), productDtoList);
+    }
+
     @Test
     public void testCreate() {
         CreateProductDto createProductDto = new CreateProductDto(TEST_PRODUCT_NAME, TEST_PRODUCT_PRICE);
-        Product testProduct = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, TEST_PRODUCT_PRICE);
-        ProductDto expectedProductDto = new ProductDto(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, TEST_PRODUCT_PRICE);
+        Product testProduct = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE));
+        ProductDto expectedProductDto = new ProductDto(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE));
 
         when(productRepository.save(any())).thenReturn(testProduct);
         when(uuidGenerator.generate()).thenReturn(TEST_PRODUCT_ID_1);
@@ -97,30 +163,46 @@ public class ProductServiceImplTests {
     @Test
     public void testUpdateAllFields() {
         UpdateProductDto updateProductDto = new UpdateProductDto(TEST_UPDATED_PRODUCT_NAME, TEST_UPDATED_PRODUCT_PRICE);
-        Product currProduct = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, TEST_PRODUCT_PRICE);
-        Product expectedProduct = new Product(TEST_PRODUCT_ID_1, TEST_UPDATED_PRODUCT_NAME, TEST_UPDATED_PRODUCT_PRICE);
-        ProductDto expectedProductDto = new ProductDto(TEST_PRODUCT_ID_1, TEST_UPDATED_PRODUCT_NAME, TEST_UPDATED_PRODUCT_PRICE);
+        Product currProduct = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE));
+        Product expectedProduct = new Product(TEST_PRODUCT_ID_1, TEST_UPDATED_PRODUCT_NAME, Money.of(TEST_UPDATED_PRODUCT_PRICE));
+        ProductDto expectedProductDto = new ProductDto(TEST_PRODUCT_ID_1, TEST_UPDATED_PRODUCT_NAME, Money.of(TEST_UPDATED_PRODUCT_PRICE));
 
         when(productRepository.findById(TEST_PRODUCT_ID_1)).thenReturn(Optional.of(currProduct));
-        when(productRepository.save(expectedProduct)).thenReturn(expectedProduct);
+        when(productRepository.saveAndFlush(expectedProduct)).thenReturn(expectedProduct);
 
-        ProductDto productDto = productServiceImpl.update(TEST_PRODUCT_ID_1, updateProductDto);
-        verify(productRepository).save(expectedProduct);
+        ProductDto productDto = productServiceImpl.update(TEST_PRODUCT_ID_1, updateProductDto, null);
+        verify(productRepository).saveAndFlush(expectedProduct);
         assertEquals(expectedProductDto, productDto);
     }
 
+    @Test
+    public void testUpdateRefreshesCache() {
+        UpdateProductDto updateProductDto = new UpdateProductDto(TEST_UPDATED_PRODUCT_NAME, TEST_UPDATED_PRODUCT_PRICE);
+        Product currProduct = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE));
+        Product expectedProduct = new Product(TEST_PRODUCT_ID_1, TEST_UPDATED_PRODUCT_NAME, Money.of(TEST_UPDATED_PRODUCT_PRICE));
+        ProductDto expectedProductDto = new ProductDto(TEST_PRODUCT_ID_1, TEST_UPDATED_PRODUCT_NAME, Money.of(TEST_UPDATED_PRODUCT_PRICE));
+
+        productCache.put(currProduct);
+        when(productRepository.findById(TEST_PRODUCT_ID_1)).thenReturn(
+                Optional.of(new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE))));
+        when(productRepository.saveAndFlush(expectedProduct)).thenReturn(expectedProduct);
+
+        productServiceImpl.update(TEST_PRODUCT_ID_1, updateProductDto, null);
+        assertEquals(expectedProductDto, productServiceImpl.getById(TEST_PRODUCT_ID_1));
+    }
+
     @Test
     public void testUpdateSomeFields() {
         UpdateProductDto updateProductDto = new UpdateProductDto(null, TEST_UPDATED_PRODUCT_PRICE);
-        Product currProduct = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, TEST_PRODUCT_PRICE);
-        Product expectedProduct = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, TEST_UPDATED_PRODUCT_PRICE);
-        ProductDto expectedProductDto = new ProductDto(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, TEST_UPDATED_PRODUCT_PRICE);
+        Product currProduct = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE));
+        Product expectedProduct = new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_UPDATED_PRODUCT_PRICE));
+        ProductDto expectedProductDto = new ProductDto(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_UPDATED_PRODUCT_PRICE));
 
         when(productRepository.findById(TEST_PRODUCT_ID_1)).thenReturn(Optional.of(currProduct));
-        when(productRepository.save(expectedProduct)).thenReturn(expectedProduct);
+        when(productRepository.saveAndFlush(expectedProduct)).thenReturn(expectedProduct);
 
-        ProductDto productDto = productServiceImpl.update(TEST_PRODUCT_ID_1, updateProductDto);
-        verify(productRepository).save(expectedProduct);
+        ProductDto productDto = productServiceImpl.update(TEST_PRODUCT_ID_1, updateProductDto, null);
+        verify(productRepository).saveAndFlush(expectedProduct);
         assertEquals(expectedProductDto, productDto);
     }
 
@@ -129,8 +211,78 @@ public class ProductServiceImplTests {
         UpdateProductDto updateProductDto = new UpdateProductDto(TEST_UPDATED_PRODUCT_NAME, TEST_UPDATED_PRODUCT_PRICE);
         when(productRepository.findById(TEST_PRODUCT_ID_1)).thenThrow(ProductNotFoundException.class);
         assertThrows(ProductNotFoundException.class, () -> {
-            productServiceImpl.update(TEST_PRODUCT_ID_1, updateProductDto);
-            verify(productRepository, times(0)).save(any());
+            productServiceImpl.update(TEST_PRODUCT_ID_1, updateProductDto, null);
+            verify(productRepository, times(0)).saveAndFlush(any());
         });
     }
+
+    @Test
+    public void testUpdateVersionConflict() {
+        UpdateProductDto updateProductDto = new UpdateProductDto(TEST_UPDATED_PRODUCT_NAME, TEST_UPDATED_PRODUCT_PRICE);
+        when(productRepository.findById(TEST_PRODUCT_ID_1)).thenReturn(
+                Optional.of(new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE))));
+        when(productRepository.saveAndFlush(any())).thenThrow(
+                new ObjectOptimisticLockingFailureException(Product.class, TEST_PRODUCT_ID_1));
+
+        assertThrows(ProductVersionConflictException.class,
+                () -> productServiceImpl.update(TEST_PRODUCT_ID_1, updateProductDto, null));
+    }
+
+    @Test
+    public void testUpdateVersionMismatch() {
+        UpdateProductDto updateProductDto = new UpdateProductDto(TEST_UPDATED_PRODUCT_NAME, TEST_UPDATED_PRODUCT_PRICE);
+        when(productRepository.findById(TEST_PRODUCT_ID_1)).thenReturn(
+                Optional.of(new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE), 3L)));
+
+        assertThrows(ProductVersionMismatchException.class,
+                () -> productServiceImpl.update(TEST_PRODUCT_ID_1, updateProductDto, 2L));
+        verify(productRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void testUpdateExpectedVersion() {
+        UpdateProductDto updateProductDto = new UpdateProductDto(TEST_UPDATED_PRODUCT_NAME, null);
+        Product updatedProduct = new Product(TEST_PRODUCT_ID_1, TEST_UPDATED_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE), 4L);
+        when(productRepository.findById(TEST_PRODUCT_ID_1)).thenReturn(
+                Optional.of(new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE), 3L)));
+        when(productRepository.saveAndFlush(any())).thenReturn(updatedProduct);
+
+        ProductDto productDto = productServiceImpl.update(TEST_PRODUCT_ID_1, updateProductDto, 3L);
+        assertEquals(Long.valueOf(4L), productDto.getVersion());
+    }
+
+    @Test
+    public void testGetVersionFromCache() {
+        productCache.put(new Product(TEST_PRODUCT_ID_1, TEST_PRODUCT_NAME, Money.of(TEST_PRODUCT_PRICE), 3L));
+
+        assertEquals(Optional.of(3L), productServiceImpl.getVersion(TEST_PRODUCT_ID_1));
+        verify(productRepository, never()).findVersionById(any());
+    }
+
+    @Test
+    public void testGetVersionNotCached() {
+        when(productRepository.findVersionById(TEST_PRODUCT_ID_1)).thenReturn(Optional.of(3L));
+
+        assertEquals(Optional.of(3L), productServiceImpl.getVersion(TEST_PRODUCT_ID_1));
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    public void testGetAllVersionChangesWithProductVersions() {
+        when(productRepository.findVersions(Pageable.unpaged())).thenReturn(
+                Collections.singletonList(productVersion(TEST_PRODUCT_ID_1, 0)),
+                Collections.singletonList(productVersion(TEST_PRODUCT_ID_1, 0)),
+                Collections.singletonList(productVersion(TEST_PRODUCT_ID_1, 1)),
+                Arrays.asList(productVersion(TEST_PRODUCT_ID_1, 1), productVersion(TEST_PRODUCT_ID_2, 0)));
+
+        String version = productServiceImpl.getAllVersion();
+        assertEquals(version, productServiceImpl.getAllVersion());
+        String updatedVersion = productServiceImpl.getAllVersion();
+        assertNotEquals(version, updatedVersion);
+        assertNotEquals(updatedVersion, productServiceImpl.getAllVersion());
+    }
+
+    private ProductRepository.ProductVersion productVersion(UUID id, long version) {
+        return new ProductRepository.ProductVersion(id, version);
+    }
 }
@@ -0,0 +1,220 @@
+package com.andreiharpa.assignment.services;
+
+import com.andreiharpa.assignment.dtos.CreateOrderDto;
+import com.andreiharpa.assignment.dtos.CreateOrderLineDto;
+import com.andreiharpa.assignment.dtos.CreateProductDto;
+import com.andreiharpa.assignment.dtos.OrderDto;
+import com.andreiharpa.assignment.dtos.OrderPageDto;
+import com.andreiharpa.assignment.dtos.ProductDto;
+import com.andreiharpa.assignment.dtos.UpdateProductDto;
+import com.andreiharpa.assignment.exceptions.OrderNotFoundException;
+import com.andreiharpa.assignment.exceptions.OrderProductNotFoundException;
+import com.andreiharpa.assignment.exceptions.ProductNotFoundException;
+import com.andreiharpa.assignment.exceptions.ProductVersionMismatchException;
+import com.andreiharpa.assignment.r2dbc.R2dbcDatabase;
+import com.andreiharpa.assignment.rollups.OrderRollups;
+import com.andreiharpa.assignment.utils.Money;
+import com.andreiharpa.assignment.utils.UuidGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SpringRunner.class)
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:reactive-tests")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReactiveOrderServiceImplTests {
+    private static final String TEST_EMAIL = "contact@andreiharpa.dev";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private R2dbcDatabase database;
+
+    private OrderRollups orderRollupsMock;
+
+    private ReactiveProductServiceImpl productService;
+
+    private ReactiveOrderServiceImpl orderService;
+
+    @Before
+    public void before() {
+        jdbcTemplate.update("delete from order_snapshots");
+        jdbcTemplate.update("delete from order_items");
+        jdbcTemplate.update("delete from orders");
+        jdbcTemplate.update("delete from products");
+
+        database = new R2dbcDatabase("r2dbc:h2:mem:///reactive-tests", "sa", "", 2);
+        orderRollupsMock = mock(OrderRollups.class);
+        UuidGenerator uuidGenerator = new UuidGenerator(UuidGenerator.Mode.RANDOM);
+        productService = new ReactiveProductServiceImpl(database, uuidGenerator);
+        orderService = new ReactiveOrderServiceImpl(database, uuidGenerator, new ObjectMapper(), orderRollupsMock);
+    }
+
+    @After
+    public void after() {
+        database.destroy();
+    }
+
+    @Test
+    public void testCreateProductThenUpdate() {
+        ProductDto created = productService.create(new CreateProductDto("test-product", BigDecimal.TEN)).block();
+
+        ProductDto updated = productService.update(created.getId(),
+                new UpdateProductDto(null, new BigDecimal("12.50")), null).block();
+
+        assertEquals("test-product", updated.getName());
+        assertEquals(Money.of(new BigDecimal("12.50")), productService.getById(created.getId()).block().getPrice());
+        assertThrows(ProductNotFoundException.class,
+                () -> productService.update(UUID.randomUUID(), new UpdateProductDto("name", null), null).block());
+    }
+
+    @Test
+    public void testUpdateProductExpectedVersion() {
+        ProductDto created = productService.create(new CreateProductDto("test-product", BigDecimal.TEN)).block();
+
+        ProductDto updated = productService.update(created.getId(), new UpdateProductDto("renamed", null), 0L).block();
+
+        assertEquals(Long.valueOf(1L), updated.getVersion());
+        assertThrows(ProductVersionMismatchException.class,
+                () -> productService.update(created.getId(), new UpdateProductDto("stale", null), 0L).block());
+        assertEquals("renamed", productService.getById(created.getId()).block().getName());
+    }
+
+    @Test
+    public void testCreateOrderThenGetById() {
+        ProductDto first = createProduct("first", "2.50");
+        ProductDto second = createProduct("second", "10.00");
+
+        OrderDto created = orderService.create(CreateOrderDto.builder()
+                .customerEmail(TEST_EMAIL)
+                .productIds(Arrays.asList(first.getId(), first.getId()))
+                .lines(Collections.singletonList(new CreateOrderLineDto(second.getId(), 3)))
+                .build()).block();
+        OrderDto found = orderService.getById(created.getId()).block();
+
+        assertEquals(Money.of(new BigDecimal("35.00")), created.getTotalPrice());
+        assertEquals(created.getId(), found.getId());
+        assertEquals(created.getTotalPrice(), found.getTotalPrice());
+        assertEquals(new HashSet<>(created.getProducts()), new HashSet<>(found.getProducts()));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(distinct id) from order_items", Integer.class)
+                .intValue());
+        verify(orderRollupsMock).record(created);
+    }
+
+    @Test
+    public void testCreateOrderWithMissingProductCreatesNothing() {
+        ProductDto product = createProduct("product", "1.00");
+
+        assertThrows(OrderProductNotFoundException.class, () -> orderService.create(
+                new CreateOrderDto(TEST_EMAIL, Arrays.asList(product.getId(), UUID.randomUUID()))).block());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from orders", Integer.class).intValue());
+    }
+
+    @Test
+    public void testGetByIdOfMissingOrder() {
+        assertThrows(OrderNotFoundException.class, () -> orderService.getById(UUID.randomUUID()).block());
+    }
+
+    @Test
+    public void testOrderItemIdsDoNotCollideAcrossAllocations() {
+        ProductDto product = createProduct("product", "1.00");
+        List<UUID> productIds = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            productIds.add(createProduct("product-" + i, "1.00").getId());
+        }
+
+        orderService.create(new CreateOrderDto(TEST_EMAIL, productIds)).block();
+        orderService.create(new CreateOrderDto(TEST_EMAIL, Collections.singletonList(product.getId()))).block();
+
+        assertEquals(61, jdbcTemplate.queryForObject("select count(distinct id) from order_items", Integer.class)
+                .intValue());
+    }
+
+    @Test
+    public void testPagesAndStreamReturnSameOrders() {
+        ProductDto product = createProduct("product", "1.00");
+        Date startTime = new Date(System.currentTimeMillis() - 60_000);
+        for (int i = 0; i < 5; i++) {
+            orderService.create(new CreateOrderDto(TEST_EMAIL, Collections.singletonList(product.getId()))).block();
+        }
+        Date endTime = new Date(System.currentTimeMillis() + 60_000);
+
+        List<UUID> pagedIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            OrderPageDto page = orderService.getPageInTimeInterval(startTime, endTime, cursor, 2).block();
+            page.getOrders().forEach(orderDto -> pagedIds.add(orderDto.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        List<UUID> streamedIds = orderService.getAllInTimeInterval(startTime, endTime)
+                .map(OrderDto::getId)
+                .collect(Collectors.toList())
+                .block();
+
+        assertEquals(5, pagedIds.size());
+        assertEquals(streamedIds, pagedIds);
+        assertNull(orderService.getPageInTimeInterval(endTime, endTime, null, 2).block().getNextCursor());
+    }
+
+    @Test
+    public void testSummariesMatchOrdersWithoutProducts() {
+        ProductDto product = createProduct("product", "1.00");
+        Date startTime = new Date(System.currentTimeMillis() - 60_000);
+        for (int i = 0; i < 5; i++) {
+            orderService.create(new CreateOrderDto(TEST_EMAIL, Collections.singletonList(product.getId()))).block();
+        }
+        Date endTime = new Date(System.currentTimeMillis() + 60_000);
+
+        List<UUID> pagedIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            OrderPageDto page = orderService.getSummaryPageInTimeInterval(startTime, endTime, cursor, 2).block();
+            page.getOrders().forEach(orderDto -> pagedIds.add(orderDto.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        List<OrderDto> summaries = orderService.getAllSummariesInTimeInterval(startTime, endTime)
+                .collectList()
+                .block();
+        OrderDto order = orderService.getById(pagedIds.get(0)).block();
+        OrderDto summary = orderService.getSummaryById(order.getId()).block();
+
+        assertEquals(summaries.stream().map(OrderDto::getId).collect(Collectors.toList()), pagedIds);
+        assertEquals(5, summaries.stream().filter(orderDto -> orderDto.getProducts() == null).count());
+        assertEquals(order.getTotalPrice(), summary.getTotalPrice());
+        assertEquals(order.getTimestamp(), summary.getTimestamp());
+        assertNull(summary.getProducts());
+        assertThrows(OrderNotFoundException.class, () -> orderService.getSummaryById(UUID.randomUUID()).block());
+    }
+
+    private ProductDto createProduct(String name, String price) {
+        return productService.create(new CreateProductDto(name, new BigDecimal(price))).block();
+    }
+}
@@ -0,0 +1,46 @@
+package com.andreiharpa.assignment.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+
+public class MoneyTests {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    public void testOfRoundsHalfUpToMinorUnits() {
+        assertEquals(1250, Money.of(new BigDecimal("12.5")).getMinorUnits());
+        assertEquals(1001, Money.of(new BigDecimal("10.005")).getMinorUnits());
+        assertEquals(new BigDecimal("12.50"), Money.ofMinorUnits(1250).toBigDecimal());
+    }
+
+    @Test
+    public void testDividedByRoundsHalfUp() {
+        assertEquals(Money.ofMinorUnits(333), Money.ofMinorUnits(1000).dividedBy(3));
+        assertEquals(Money.ofMinorUnits(334), Money.ofMinorUnits(1001).dividedBy(3));
+        assertEquals(Money.ofMinorUnits(-5), Money.ofMinorUnits(-9).dividedBy(2));
+    }
+
+    @Test
+    public void testToStringUsesTwoDecimals() {
+        assertEquals("12.50", Money.ofMinorUnits(1250).toString());
+        assertEquals("0.05", Money.ofMinorUnits(5).toString());
+        assertEquals("-0.05", Money.ofMinorUnits(-5).toString());
+        assertEquals("-3.10", Money.ofMinorUnits(-310).toString());
+        assertEquals("-92233720368547758.08", Money.ofMinorUnits(Long.MIN_VALUE).toString());
+    }
+
+    @Test
+    public void testJsonRoundTrip() throws JsonProcessingException {
+        assertEquals("12.50", OBJECT_MAPPER.writeValueAsString(Money.ofMinorUnits(1250)));
+        assertEquals(Money.ofMinorUnits(1250), OBJECT_MAPPER.readValue("12.5", Money.class));
+        assertEquals(Money.ofMinorUnits(-700), OBJECT_MAPPER.readValue("-7", Money.class));
+        assertEquals(Money.ofMinorUnits(1001), OBJECT_MAPPER.readValue("10.005", Money.class));
+        assertEquals(Money.ofMinorUnits(100), OBJECT_MAPPER.readValue("1e0", Money.class));
+        assertEquals(Money.ofMinorUnits(1999), OBJECT_MAPPER.readValue("\"19.99\"", Money.class));
+    }
+}
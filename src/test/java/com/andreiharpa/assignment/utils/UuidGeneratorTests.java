@@ -0,0 +1,42 @@
+package com.andreiharpa.assignment.utils;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UuidGeneratorTests {
+
+    @Test
+    public void testRandomModeGeneratesVersion4() {
+        UUID uuid = new UuidGenerator(UuidGenerator.Mode.RANDOM).generate();
+
+        assertEquals(4, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    public void testTimeOrderedModeGeneratesVersion7() {
+        long before = System.currentTimeMillis();
+        UUID uuid = new UuidGenerator(UuidGenerator.Mode.TIME_ORDERED).generate();
+        long timestamp = uuid.getMostSignificantBits() >>> 16;
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis());
+    }
+
+    @Test
+    public void testTimeOrderedIdsIncreaseAcrossMilliseconds() throws InterruptedException {
+        UuidGenerator uuidGenerator = new UuidGenerator(UuidGenerator.Mode.TIME_ORDERED);
+        UUID first = uuidGenerator.generate();
+        Thread.sleep(2);
+        UUID second = uuidGenerator.generate();
+
+        assertNotEquals(first, second);
+        assertTrue(Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits()) < 0);
+    }
+}